@@ -0,0 +1,117 @@
+package com.nvidia.triton.contrib;
+
+import java.util.Random;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.google.common.base.Preconditions;
+
+/**
+ * Random tensor data of realistic shapes, like roberta inputs (1x32) or an inception image (1x299x299x3).
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Parse a shape like "1x299x299x3".
+     */
+    static long[] shape(String shape) {
+        String[] dims = shape.split("x");
+        long[] ret = new long[dims.length];
+        for (int i = 0; i < dims.length; i++) {
+            ret[i] = Long.parseLong(dims[i]);
+        }
+        return ret;
+    }
+
+    static int numElem(String shape) {
+        return (int)Util.elemNumFromShape(shape(shape));
+    }
+
+    /**
+     * Create tensor data as accepted by {@link BinaryProtocol#toBytes(DataType, Object)}: a primitive array matching
+     * data type, float[] for FP16 and BF16, String[] of short words for BYTES.
+     */
+    static Object array(DataType dataType, int numElem, long seed) {
+        Random random = new Random(seed);
+        switch (dataType) {
+            case BOOL: {
+                boolean[] ret = new boolean[numElem];
+                for (int i = 0; i < numElem; i++) {
+                    ret[i] = random.nextBoolean();
+                }
+                return ret;
+            }
+            case INT8:
+            case UINT8: {
+                byte[] ret = new byte[numElem];
+                random.nextBytes(ret);
+                return ret;
+            }
+            case INT16:
+            case UINT16: {
+                short[] ret = new short[numElem];
+                for (int i = 0; i < numElem; i++) {
+                    ret[i] = (short)random.nextInt();
+                }
+                return ret;
+            }
+            case INT32:
+            case UINT32:
+                return random.ints(numElem, 0, 30000).toArray();
+            case INT64:
+            case UINT64:
+                return random.longs(numElem, 0, 1L << 40).toArray();
+            case FP16:
+            case BF16:
+            case FP32: {
+                float[] ret = new float[numElem];
+                for (int i = 0; i < numElem; i++) {
+                    ret[i] = random.nextFloat();
+                }
+                return ret;
+            }
+            case FP64:
+                return random.doubles(numElem).toArray();
+            case BYTES: {
+                String[] ret = new String[numElem];
+                for (int i = 0; i < numElem; i++) {
+                    ret[i] = Integer.toString(random.nextInt(), 36);
+                }
+                return ret;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        }
+    }
+
+    /**
+     * Set data of an input, in binary or JSON format.
+     */
+    static void setData(InferInput input, Object data, boolean binary) {
+        Preconditions.checkArgument(binary || input.getDataType() != DataType.FP16
+            && input.getDataType() != DataType.BF16, "%s has no JSON format.", input.getDataType());
+        if (data instanceof float[] && input.getDataType() == DataType.FP16) {
+            input.setDataAsFp16((float[])data);
+        } else if (data instanceof float[] && input.getDataType() == DataType.BF16) {
+            input.setDataAsBf16((float[])data);
+        } else if (data instanceof boolean[]) {
+            input.setData((boolean[])data, binary);
+        } else if (data instanceof byte[]) {
+            input.setData((byte[])data, binary);
+        } else if (data instanceof short[]) {
+            input.setData((short[])data, binary);
+        } else if (data instanceof int[]) {
+            input.setData((int[])data, binary);
+        } else if (data instanceof long[]) {
+            input.setData((long[])data, binary);
+        } else if (data instanceof float[]) {
+            input.setData((float[])data, binary);
+        } else if (data instanceof double[]) {
+            input.setData((double[])data, binary);
+        } else {
+            input.setData((String[])data, binary);
+        }
+    }
+}
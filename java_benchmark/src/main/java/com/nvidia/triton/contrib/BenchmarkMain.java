@@ -0,0 +1,24 @@
+package com.nvidia.triton.contrib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry of the benchmark jar, runs JMH with the GC profiler so that allocation rate (gc.alloc.rate.norm, bytes per
+ * operation) is reported along with time. Arguments are those of JMH, the profiler is not added again if one is
+ * requested already.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(Arrays.asList(args));
+        if (!argv.contains("-prof")) {
+            argv.add("-prof");
+            argv.add("gc");
+        }
+        Main.main(argv.toArray(new String[0]));
+    }
+}
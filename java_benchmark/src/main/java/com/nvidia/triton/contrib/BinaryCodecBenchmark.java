@@ -0,0 +1,93 @@
+package com.nvidia.triton.contrib;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.google.common.primitives.Floats;
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binary tensor encoding and decoding of {@link BinaryProtocol}, against the per-element implementation it replaced
+ * (boxing getter or consumer per element, reflective {@link Array#set}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryCodecBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int numElem;
+
+    private float[] floats;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        this.floats = new float[this.numElem];
+        for (int i = 0; i < this.numElem; i++) {
+            this.floats[i] = random.nextFloat();
+        }
+        this.bytes = BinaryProtocol.toBytes(DataType.FP32, this.floats);
+    }
+
+    @Benchmark
+    public byte[] encodeFp32() {
+        return BinaryProtocol.toBytes(DataType.FP32, this.floats);
+    }
+
+    @Benchmark
+    public byte[] encodeFp32PerElement() {
+        return perElementEncode(DataType.FP32, Floats.asList(this.floats), ByteBuffer::putFloat);
+    }
+
+    @Benchmark
+    public float[] decodeFp32() {
+        return (float[])BinaryProtocol.fromBytes(DataType.FP32, ByteBuffer.wrap(this.bytes), this.numElem);
+    }
+
+    @Benchmark
+    public float[] decodeFp32PerElement() {
+        ByteBuffer buf = ByteBuffer.wrap(this.bytes).order(ByteOrder.LITTLE_ENDIAN);
+        return (float[])perElementDecode(buf, this.numElem, float.class, ByteBuffer::getFloat);
+    }
+
+    private static <T> byte[] perElementEncode(DataType dataType, List<T> data, BiConsumer<ByteBuffer, T> consumer) {
+        byte[] binaryData = new byte[data.size() * dataType.numByte];
+        ByteBuffer buf = ByteBuffer.wrap(binaryData);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        for (T datum : data) {
+            consumer.accept(buf, datum);
+        }
+        return binaryData;
+    }
+
+    private static <T> Object perElementDecode(ByteBuffer buf, int numElem, Class<T> clazz,
+                                               Function<ByteBuffer, T> getter) {
+        Object array = Array.newInstance(clazz, numElem);
+        for (int i = 0; i < numElem; i++) {
+            Array.set(array, i, getter.apply(buf));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,68 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binary tensor data of every data type, encoded by {@link BinaryProtocol} and decoded as {@link InferResult} does:
+ * {@link BinaryProtocol#fromBytes(DataType, ByteBuffer, int)}, {@link HalfFloat} for FP16 and BF16 read as floats, and
+ * {@link BytesTensor} for BYTES.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryTensorBenchmark {
+
+    @Param({"BOOL", "UINT8", "UINT16", "UINT32", "UINT64", "INT8", "INT16", "INT32", "INT64", "FP16", "BF16", "FP32",
+        "FP64", "BYTES"})
+    public DataType dataType;
+
+    @Param({"1x32", "1x299x299x3"})
+    public String shape;
+
+    private int numElem;
+    private Object data;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        this.numElem = BenchmarkData.numElem(this.shape);
+        this.data = BenchmarkData.array(this.dataType, this.numElem, 0);
+        this.bytes = BinaryProtocol.toBytes(this.dataType, this.data);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BinaryProtocol.toBytes(this.dataType, this.data);
+    }
+
+    @Benchmark
+    public Object decode() {
+        ByteBuffer buf = ByteBuffer.wrap(this.bytes);
+        switch (this.dataType) {
+            case FP16:
+            case BF16:
+                return HalfFloat.decode(this.dataType, buf, this.numElem);
+            case BYTES:
+                return BytesTensor.parse(buf, this.numElem);
+            default:
+                return BinaryProtocol.fromBytes(this.dataType, buf, this.numElem);
+        }
+    }
+}
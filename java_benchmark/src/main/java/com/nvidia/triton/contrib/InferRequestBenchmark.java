@@ -0,0 +1,98 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building an inference request body of a model from scratch: input tensors, arguments and the JSON header with
+ * parameters of each input, in binary or JSON format. Models are roberta (three 1x32 INT32 inputs) and inception (one
+ * 1x299x299x3 FP32 image).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InferRequestBenchmark {
+
+    @Param({"roberta", "inception"})
+    public String model;
+
+    @Param({"true", "false"})
+    public boolean binary;
+
+    private String[] names;
+    private DataType dataType;
+    private long[] shape;
+    private Object[] data;
+    private List<InferRequestedOutput> outputs;
+    private InferArguments arguments;
+
+    @Setup
+    public void setup() {
+        switch (this.model) {
+            case "roberta":
+                this.names = new String[] {"input_ids", "input_mask", "segment_ids"};
+                this.dataType = DataType.INT32;
+                this.shape = new long[] {1, 32};
+                this.outputs = Lists.newArrayList(new InferRequestedOutput("logits", this.binary));
+                break;
+            case "inception":
+                this.names = new String[] {"input"};
+                this.dataType = DataType.FP32;
+                this.shape = new long[] {1, 299, 299, 3};
+                this.outputs = Lists.newArrayList(new InferRequestedOutput("probs", this.binary));
+                break;
+            default:
+                throw new UnsupportedOperationException(this.model);
+        }
+        this.data = new Object[this.names.length];
+        for (int i = 0; i < this.names.length; i++) {
+            this.data[i] = BenchmarkData.array(this.dataType, (int)Util.elemNumFromShape(this.shape), i);
+        }
+        this.arguments = new InferArguments(this.model, this.inputs(), this.outputs);
+    }
+
+    private List<InferInput> inputs() {
+        InferInput[] inputs = new InferInput[this.names.length];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new InferInput(this.names[i], this.shape, this.dataType);
+            BenchmarkData.setData(inputs[i], this.data[i], this.binary);
+        }
+        return Arrays.asList(inputs);
+    }
+
+    /**
+     * Everything a caller pays before the request is sent.
+     */
+    @Benchmark
+    public byte[] buildRequest() throws IOException {
+        return InferRequestEncoder.encode(new InferArguments(this.model, this.inputs(), this.outputs));
+    }
+
+    /**
+     * JSON header alone, from inputs set already.
+     */
+    @Benchmark
+    public byte[] encodeHeader() throws IOException {
+        return InferRequestEncoder.encode(this.arguments);
+    }
+}
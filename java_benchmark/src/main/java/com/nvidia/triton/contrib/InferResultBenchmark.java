@@ -0,0 +1,68 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.nvidia.triton.contrib.InferResult.Index;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.InferenceResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading an FP32 output from a received response body as {@link InferResponseConsumer} and {@link InferResult} do:
+ * decode the JSON header, index binary outputs and get the output as an array, in binary or JSON format. Sizes are
+ * those of roberta logits (1x2), inception probabilities (1x1001) and an image (1x299x299x3).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InferResultBenchmark {
+
+    @Param({"1x2", "1x1001", "1x299x299x3"})
+    public String shape;
+
+    @Param({"true", "false"})
+    public boolean binary;
+
+    private byte[] header;
+    private byte[] binaryData;
+
+    @Setup
+    public void setup() throws IOException {
+        long[] dims = BenchmarkData.shape(this.shape);
+        float[] data = (float[])BenchmarkData.array(DataType.FP32, (int)Util.elemNumFromShape(dims), 0);
+        String output = "{\"name\":\"probs\",\"datatype\":\"FP32\",\"shape\":" + Util.toJson(dims) + ",";
+        if (this.binary) {
+            this.binaryData = BinaryProtocol.toBytes(DataType.FP32, data);
+            output += "\"parameters\":{\"binary_data_size\":" + this.binaryData.length + "}}";
+        } else {
+            output += "\"data\":" + InferRequestEncoder.encodeData(DataType.FP32, data) + "}";
+        }
+        this.header = ("{\"model_name\":\"model\",\"model_version\":\"1\",\"outputs\":[" + output + "]}")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public float[] getOutputAsFloat() throws IOException {
+        InferenceResponse response = InferResponseDecoder.decode(this.header, 0, this.header.length);
+        Map<String, Index> nameToBinaryIdx = new HashMap<>();
+        InferResult.indexBinaryOutputs(response, nameToBinaryIdx);
+        return new InferResult(response, nameToBinaryIdx, this.binaryData).getOutputAsFloat("probs");
+    }
+}
@@ -0,0 +1,73 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.mock.MockModel;
+import com.nvidia.triton.contrib.mock.MockTritonServer;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inference round trips of roberta through loopback HTTP to a {@link MockTritonServer} without model latency, so the
+ * score is the overhead of client, transport and mock server. Run with -t to measure concurrent callers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InferenceServerClientBenchmark {
+
+    @Param({"true", "false"})
+    public boolean binary;
+
+    private MockTritonServer server;
+    private InferenceServerClient client;
+    private List<InferRequestedOutput> outputs;
+
+    @Setup
+    public void setup() throws IOException {
+        MockTritonServer.enableNoDelay();
+        this.server = new MockTritonServer().addModel(MockModel.synthetic("roberta")
+            .addInput("input_ids", DataType.INT32, -1, 32)
+            .addInput("input_mask", DataType.INT32, -1, 32)
+            .addOutput("logits", DataType.FP32, -1, 2)
+            .setMaxBatchSize(8));
+        this.client = new InferenceServerClient(this.server.getAddress(), 1000, 5000);
+        this.outputs = Lists.newArrayList(new InferRequestedOutput("logits", this.binary));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.client.close();
+        this.server.close();
+    }
+
+    @Benchmark
+    public float[] infer() throws InferenceException {
+        InferInput ids = new InferInput("input_ids", new long[] {1, 32}, DataType.INT32);
+        BenchmarkData.setData(ids, BenchmarkData.array(DataType.INT32, 32, 0), this.binary);
+        InferInput mask = new InferInput("input_mask", new long[] {1, 32}, DataType.INT32);
+        BenchmarkData.setData(mask, BenchmarkData.array(DataType.INT32, 32, 1), this.binary);
+        try (InferResult result = this.client.infer(new InferArguments("roberta", Lists.newArrayList(ids, mask),
+            this.outputs))) {
+            return result.getOutputAsFloat("logits");
+        }
+    }
+}
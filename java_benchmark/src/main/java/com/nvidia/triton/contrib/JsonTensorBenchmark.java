@@ -0,0 +1,62 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tensor data in JSON format of every data type JSON can carry (all but FP16 and BF16), written as in request bodies by
+ * {@link InferRequestEncoder} and read as from response bodies by {@link InferResponseDecoder}. Compare with
+ * {@link BinaryTensorBenchmark} to see what binary format saves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonTensorBenchmark {
+
+    @Param({"BOOL", "UINT8", "UINT16", "UINT32", "UINT64", "INT8", "INT16", "INT32", "INT64", "FP32", "FP64", "BYTES"})
+    public DataType dataType;
+
+    @Param({"1x32", "1x299x299x3"})
+    public String shape;
+
+    private long[] dims;
+    private Object data;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        this.dims = BenchmarkData.shape(this.shape);
+        this.data = BenchmarkData.array(this.dataType, (int)Util.elemNumFromShape(this.dims), 0);
+        this.json = InferRequestEncoder.encodeData(this.dataType, this.data).getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public String encode() throws IOException {
+        return InferRequestEncoder.encodeData(this.dataType, this.data);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        try (JsonParser parser = Util.createJsonParser(this.json, 0, this.json.length)) {
+            parser.nextToken();
+            return InferResponseDecoder.decodeData(parser, this.dataType, this.dims);
+        }
+    }
+}
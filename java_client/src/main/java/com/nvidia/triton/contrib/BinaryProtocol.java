@@ -1,79 +1,261 @@
 package com.nvidia.triton.contrib;
 
-import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.function.BiConsumer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import com.nvidia.triton.contrib.pojo.DataType;
 import com.google.common.base.Preconditions;
-import com.google.common.primitives.Booleans;
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Floats;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-import com.google.common.primitives.Shorts;
+import com.google.common.base.Utf8;
 
 /**
+ * Little-endian binary tensor data of Triton's binary extension. Fixed size types are converted in bulk through typed
+ * views of a {@link ByteBuffer}, like {@link ByteBuffer#asFloatBuffer()}, which the JVM turns into memory copies (and
+ * byte swaps on big-endian hosts) instead of per-element calls.
+ *
  * @author xiafei.qiuxf
  * @date 2021/4/20
  */
 public class BinaryProtocol {
 
-    private static <T> byte[] setBinaryDataImpl(DataType dataType, List<T> data, BiConsumer<ByteBuffer, T> consumer) {
-        byte[] binaryData = new byte[data.size() * dataType.numByte];
-        ByteBuffer buf = ByteBuffer.wrap(binaryData);
-        buf.order(ByteOrder.LITTLE_ENDIAN);
-        for (T datum : data) {
-            consumer.accept(buf, datum);
-        }
-        Preconditions.checkState(buf.position() == binaryData.length);
+    private static byte[] encode(DataType dataType, Object data, int numElem) {
+        byte[] binaryData = new byte[numElem * dataType.numByte];
+        encode(dataType, data, ByteBuffer.wrap(binaryData));
         return binaryData;
     }
 
     public static byte[] toBytes(DataType dataType, boolean[] data) {
-        return setBinaryDataImpl(dataType, Booleans.asList(data), (buf, b) -> buf.put(b ? (byte)1 : (byte)0));
+        return encode(dataType, data, data.length);
     }
 
     public static byte[] toBytes(DataType dataType, byte[] data) {
-        return setBinaryDataImpl(dataType, Bytes.asList(data), ByteBuffer::put);
+        return Arrays.copyOf(data, data.length);
     }
 
     public static byte[] toBytes(DataType dataType, short[] data) {
-        return setBinaryDataImpl(dataType, Shorts.asList(data), ByteBuffer::putShort);
+        return encode(dataType, data, data.length);
     }
 
     public static byte[] toBytes(DataType dataType, int[] data) {
-        return setBinaryDataImpl(dataType, Ints.asList(data), ByteBuffer::putInt);
+        return encode(dataType, data, data.length);
     }
 
     public static byte[] toBytes(DataType dataType, long[] data) {
-        return setBinaryDataImpl(dataType, Longs.asList(data), ByteBuffer::putLong);
+        return encode(dataType, data, data.length);
     }
 
     public static byte[] toBytes(DataType dataType, float[] data) {
-        return setBinaryDataImpl(dataType, Floats.asList(data), ByteBuffer::putFloat);
+        return encode(dataType, data, data.length);
     }
 
-
     public static byte[] toBytes(DataType dataType, double[] data) {
-        return setBinaryDataImpl(dataType, Doubles.asList(data), ByteBuffer::putDouble);
+        return encode(dataType, data, data.length);
+    }
+
+    /**
+     * Encode a primitive array, or elements of a BYTES tensor, see the typed variants.
+     */
+    public static byte[] toBytes(DataType dataType, Object data) {
+        if (data instanceof Object[]) {
+            return toBytes(dataType, (Object[])data);
+        }
+        if (data instanceof byte[]) {
+            return toBytes(dataType, (byte[])data);
+        }
+        return encode(dataType, data, Array.getLength(data));
+    }
+
+    /**
+     * Encode a fixed size primitive array in bulk, or elements of a BYTES tensor, into a buffer.
+     *
+     * @param dataType data type of tensor, its width must match the array, except float[] which is converted when
+     *                 data type is FP16 or BF16.
+     * @param data     boolean[], byte[], short[], int[], long[], float[] or double[], or elements of a BYTES tensor,
+     *                 see {@link #encodeBytes(Object[], ByteBuffer)}.
+     * @param dst      buffer to write to from its position, it's written in little-endian regardless of its order and
+     *                 its position is not changed.
+     */
+    public static void encode(DataType dataType, Object data, ByteBuffer dst) {
+        ByteBuffer buf = dst.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (data instanceof boolean[]) {
+            boolean[] arr = (boolean[])data;
+            for (int i = 0; i < arr.length; i++) {
+                buf.put(i, arr[i] ? (byte)1 : (byte)0);
+            }
+        } else if (data instanceof byte[]) {
+            buf.put((byte[])data);
+        } else if (data instanceof short[]) {
+            buf.asShortBuffer().put((short[])data);
+        } else if (data instanceof int[]) {
+            buf.asIntBuffer().put((int[])data);
+        } else if (data instanceof long[]) {
+            buf.asLongBuffer().put((long[])data);
+        } else if (data instanceof float[] && (dataType == DataType.FP16 || dataType == DataType.BF16)) {
+            HalfFloat.encode(dataType, FloatBuffer.wrap((float[])data), buf);
+        } else if (data instanceof float[]) {
+            buf.asFloatBuffer().put((float[])data);
+        } else if (data instanceof double[]) {
+            buf.asDoubleBuffer().put((double[])data);
+        } else if (data instanceof Object[] && dataType == DataType.BYTES) {
+            encodeBytes((Object[])data, buf);
+        } else {
+            throw new IllegalArgumentException(String.format("Could not encode %s as %s.",
+                data.getClass().getSimpleName(), dataType));
+        }
     }
 
+    /**
+     * Encode BYTES tensor data, see {@link #encodeBytes(Object[], ByteBuffer)}.
+     */
     public static byte[] toBytes(DataType dataType, String[] data) {
-        ByteArrayOutputStream o = new ByteArrayOutputStream();
-        for (String datum : data) {
-            byte[] bytes = datum.getBytes(StandardCharsets.UTF_8);
-            try {
-                o.write(Util.intToBytes(bytes.length));
-                o.write(bytes);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        return toBytes(dataType, (Object[])data);
+    }
+
+    /**
+     * Encode BYTES tensor data of raw elements, see {@link #encodeBytes(Object[], ByteBuffer)}.
+     */
+    public static byte[] toBytes(DataType dataType, byte[][] data) {
+        return toBytes(dataType, (Object[])data);
+    }
+
+    private static byte[] toBytes(DataType dataType, Object[] data) {
+        Preconditions.checkArgument(dataType == DataType.BYTES, "Could not encode %s as %s.",
+            data.getClass().getSimpleName(), dataType);
+        byte[] ret = new byte[bytesLength(data)];
+        encodeBytes(data, ByteBuffer.wrap(ret));
+        return ret;
+    }
+
+    /**
+     * Get the exact size of BYTES tensor data, without encoding it.
+     *
+     * @param data elements, each a {@link CharSequence} encoded in UTF-8 or a byte[] taken as is.
+     * @return size in bytes, 4-byte length prefix of each element included.
+     * @throws IllegalArgumentException if a character sequence has unpaired surrogates, or the size exceeds 2GB.
+     */
+    public static int bytesLength(Object[] data) {
+        long len = 4L * data.length;
+        for (Object datum : data) {
+            if (datum instanceof byte[]) {
+                len += ((byte[])datum).length;
+            } else if (datum instanceof CharSequence) {
+                len += Utf8.encodedLength((CharSequence)datum);
+            } else {
+                throw new IllegalArgumentException("Could not encode " + (datum == null ? null
+                    : datum.getClass().getSimpleName()) + " as BYTES element.");
+            }
+        }
+        Preconditions.checkArgument(len <= Integer.MAX_VALUE, "BYTES tensor of %s bytes is too large.", len);
+        return (int)len;
+    }
+
+    /**
+     * Encode BYTES tensor data, each element is a 4-byte little-endian length followed by its bytes. Characters are
+     * encoded to UTF-8 straight into dst, without intermediate arrays.
+     *
+     * @param data elements, each a {@link CharSequence} encoded in UTF-8 or a byte[] taken as is.
+     * @param dst  buffer to write to from its position, with at least {@link #bytesLength(Object[])} bytes remaining.
+     *             Its position is not changed.
+     */
+    public static void encodeBytes(Object[] data, ByteBuffer dst) {
+        ByteBuffer buf = dst.slice().order(ByteOrder.LITTLE_ENDIAN);
+        for (Object datum : data) {
+            if (datum instanceof byte[]) {
+                byte[] bytes = (byte[])datum;
+                buf.putInt(bytes.length);
+                buf.put(bytes);
+                continue;
+            }
+            CharSequence chars = (CharSequence)datum;
+            int lengthPos = buf.position();
+            buf.position(lengthPos + 4);
+            for (int i = 0, n = chars.length(); i < n; i++) {
+                char c = chars.charAt(i);
+                if (c < 0x80) {
+                    buf.put((byte)c);
+                } else if (c < 0x800) {
+                    buf.put((byte)(0xC0 | (c >>> 6)));
+                    buf.put((byte)(0x80 | (c & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    Preconditions.checkArgument(Character.isHighSurrogate(c) && i + 1 < n
+                        && Character.isLowSurrogate(chars.charAt(i + 1)), "Unpaired surrogate at index %s.", i);
+                    int cp = Character.toCodePoint(c, chars.charAt(++i));
+                    buf.put((byte)(0xF0 | (cp >>> 18)));
+                    buf.put((byte)(0x80 | ((cp >>> 12) & 0x3F)));
+                    buf.put((byte)(0x80 | ((cp >>> 6) & 0x3F)));
+                    buf.put((byte)(0x80 | (cp & 0x3F)));
+                } else {
+                    buf.put((byte)(0xE0 | (c >>> 12)));
+                    buf.put((byte)(0x80 | ((c >>> 6) & 0x3F)));
+                    buf.put((byte)(0x80 | (c & 0x3F)));
+                }
+            }
+            buf.putInt(lengthPos, buf.position() - lengthPos - 4);
+        }
+    }
+
+    /**
+     * Decode fixed size tensor data into a primitive array matching data type, the position of buf is not changed.
+     *
+     * @param dataType data type of tensor, any but BYTES which is read by {@link BytesTensor#parse(ByteBuffer, int)}.
+     * @param buf      buffer holding data from its position, in little-endian regardless of the order of buf.
+     * @param numElem  number of elements.
+     * @return boolean[], byte[], short[], int[], long[], float[] or double[]; unsigned types share the array of the
+     * signed type of the same width, FP16 and BF16 are returned as raw short[] bits, see {@link HalfFloat}.
+     */
+    public static Object fromBytes(DataType dataType, ByteBuffer buf, int numElem) {
+        Preconditions.checkArgument(dataType != DataType.BYTES, "BYTES tensor is not fixed size.");
+        Preconditions.checkArgument(buf.remaining() >= (long)numElem * dataType.numByte,
+            "Buffer of %s bytes holds less than %s elements of %s.", buf.remaining(), numElem, dataType);
+        ByteBuffer src = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        switch (dataType) {
+            case BOOL: {
+                boolean[] ret = new boolean[numElem];
+                for (int i = 0; i < numElem; i++) {
+                    ret[i] = src.get(i) != 0;
+                }
+                return ret;
+            }
+            case INT8:
+            case UINT8: {
+                byte[] ret = new byte[numElem];
+                src.get(ret);
+                return ret;
+            }
+            case INT16:
+            case UINT16:
+            case FP16:
+            case BF16: {
+                short[] ret = new short[numElem];
+                src.asShortBuffer().get(ret);
+                return ret;
+            }
+            case INT32:
+            case UINT32: {
+                int[] ret = new int[numElem];
+                src.asIntBuffer().get(ret);
+                return ret;
+            }
+            case INT64:
+            case UINT64: {
+                long[] ret = new long[numElem];
+                src.asLongBuffer().get(ret);
+                return ret;
+            }
+            case FP32: {
+                float[] ret = new float[numElem];
+                src.asFloatBuffer().get(ret);
+                return ret;
+            }
+            case FP64: {
+                double[] ret = new double[numElem];
+                src.asDoubleBuffer().get(ret);
+                return ret;
             }
+            default:
+                throw new IllegalArgumentException("Unsupported binary data type: " + dataType);
         }
-        return o.toByteArray();
     }
 }
@@ -0,0 +1,100 @@
+package com.nvidia.triton.contrib;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Size-classed pool of byte arrays for binary tensor data, so that large request and response bodies are recycled
+ * instead of churning the young generation. Arrays are sized in powers of two from 4KB up to maxBufferSize, larger
+ * requests are allocated unpooled. Idle arrays are kept up to maxPooledBytes in total, the rest are left to GC.
+ * <p>
+ * Buffers handed out are reference counted, see {@link PooledBuffer}: an array is returned to the pool when the last
+ * holder releases it, for example when an {@link InferResult} is closed. Buffers that are never released are simply
+ * garbage collected. Arrays are on heap, as request segments and response outputs are addressed as heap arrays.
+ * <p>
+ * A pool is shared by a client, see {@link InferenceServerClient#setBufferPool(BufferPool)}, and by inputs created
+ * with a pool, see {@link InferInput}. All methods are thread safe.
+ */
+public class BufferPool {
+
+    private static final int MIN_SHIFT = 12;
+
+    private final int maxBufferSize;
+    private final long maxPooledBytes;
+    private final ConcurrentLinkedQueue<byte[]>[] classes;
+    private final AtomicLong pooledBytes = new AtomicLong(0);
+
+    /**
+     * Create a pool of arrays up to 64MB, keeping up to 256MB idle.
+     */
+    public BufferPool() {
+        this(64 << 20, 256L << 20);
+    }
+
+    /**
+     * @param maxBufferSize  largest array size to pool, rounded up to a power of two.
+     * @param maxPooledBytes max total size of idle arrays kept.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int maxBufferSize, long maxPooledBytes) {
+        Preconditions.checkArgument(maxBufferSize > 0 && maxBufferSize <= 1 << 30, "Invalid maxBufferSize: %s",
+            maxBufferSize);
+        Preconditions.checkArgument(maxPooledBytes >= 0, "Invalid maxPooledBytes: %s", maxPooledBytes);
+        int numClasses = sizeClass(maxBufferSize) + 1;
+        this.maxBufferSize = 1 << (numClasses - 1 + MIN_SHIFT);
+        this.maxPooledBytes = maxPooledBytes;
+        this.classes = new ConcurrentLinkedQueue[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            this.classes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private static int sizeClass(int size) {
+        return size <= 1 << MIN_SHIFT ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * Get a buffer of at least size bytes, its content is undefined.
+     *
+     * @return buffer with one reference, held by the caller.
+     */
+    PooledBuffer acquire(int size) {
+        Preconditions.checkArgument(size >= 0, "Invalid size: %s", size);
+        if (size > this.maxBufferSize) {
+            return new PooledBuffer(null, new byte[size]);
+        }
+        int idx = sizeClass(size);
+        byte[] array = this.classes[idx].poll();
+        if (array == null) {
+            array = new byte[1 << (idx + MIN_SHIFT)];
+        } else {
+            this.pooledBytes.addAndGet(-array.length);
+        }
+        return new PooledBuffer(this, array);
+    }
+
+    /**
+     * Take back an array no longer referenced.
+     */
+    void recycle(byte[] array) {
+        while (true) {
+            long current = this.pooledBytes.get();
+            if (current + array.length > this.maxPooledBytes) {
+                return;
+            }
+            if (this.pooledBytes.compareAndSet(current, current + array.length)) {
+                break;
+            }
+        }
+        this.classes[sizeClass(array.length)].offer(array);
+    }
+
+    /**
+     * Get total size of idle arrays in the pool.
+     */
+    public long getPooledBytes() {
+        return this.pooledBytes.get();
+    }
+}
@@ -0,0 +1,110 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Elements of a BYTES tensor in binary format, read in place. Element boundaries are found by one walk over the 4-byte
+ * length prefixes, then each element is a zero-copy view of the underlying data, decoded to a String only when asked
+ * for. Views share the data they were parsed from, which must not change while they are used.
+ */
+public final class BytesTensor {
+
+    /**
+     * Data parsed, only handed out as read-only views.
+     */
+    private final ByteBuffer data;
+    /**
+     * Position of the bytes of each element in data, after its length prefix.
+     */
+    private final int[] starts;
+    private final int[] lengths;
+
+    private BytesTensor(ByteBuffer data, int[] starts, int[] lengths) {
+        this.data = data;
+        this.starts = starts;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Find elements of a BYTES tensor.
+     *
+     * @param buf     buffer holding data from its position, its position is not changed.
+     * @param numElem number of elements.
+     * @return elements viewing buf.
+     * @throws IllegalArgumentException if buf does not hold numElem well formed elements.
+     */
+    public static BytesTensor parse(ByteBuffer buf, int numElem) {
+        ByteBuffer data = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int[] starts = new int[numElem];
+        int[] lengths = new int[numElem];
+        int pos = 0;
+        for (int i = 0; i < numElem; i++) {
+            Preconditions.checkArgument(data.limit() - pos >= 4, "BYTES element %s is truncated.", i);
+            int len = data.getInt(pos);
+            pos += 4;
+            Preconditions.checkArgument(len >= 0 && len <= data.limit() - pos, "BYTES element %s is truncated.", i);
+            starts[i] = pos;
+            lengths[i] = len;
+            pos += len;
+        }
+        return new BytesTensor(data, starts, lengths);
+    }
+
+    /**
+     * Get number of elements.
+     */
+    public int size() {
+        return this.starts.length;
+    }
+
+    /**
+     * Get size of an element in bytes.
+     */
+    public int length(int index) {
+        return this.lengths[index];
+    }
+
+    /**
+     * Get a read-only view of the bytes of an element, without copying.
+     */
+    public ByteBuffer get(int index) {
+        ByteBuffer view = this.data.duplicate();
+        view.limit(this.starts[index] + this.lengths[index]).position(this.starts[index]);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a copy of the bytes of an element.
+     */
+    public byte[] getBytes(int index) {
+        byte[] ret = new byte[this.lengths[index]];
+        this.get(index).get(ret);
+        return ret;
+    }
+
+    /**
+     * Decode an element as UTF-8.
+     */
+    public String getString(int index) {
+        if (this.data.hasArray()) {
+            return new String(this.data.array(), this.data.arrayOffset() + this.starts[index], this.lengths[index],
+                StandardCharsets.UTF_8);
+        }
+        return new String(this.getBytes(index), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode all elements as UTF-8.
+     */
+    public String[] toStringArray() {
+        String[] ret = new String[this.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = this.getString(i);
+        }
+        return ret;
+    }
+}
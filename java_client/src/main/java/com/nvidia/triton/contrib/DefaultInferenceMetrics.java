@@ -0,0 +1,132 @@
+package com.nvidia.triton.contrib;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory {@link InferenceMetrics} aggregated by model and by endpoint address, with {@link LongAdder} counters and
+ * {@link LatencyHistogram}s, cheap enough to be always on. Values are cumulative since creation, a scraper computes
+ * rates from the difference of two reads. Reading is lock-free and never blocks recording.
+ */
+public class DefaultInferenceMetrics implements InferenceMetrics {
+
+    /**
+     * Counters and histograms of a model or an endpoint address.
+     * <ul>
+     * <li>Of a model: requests are calls, errors are failed calls, latency is that of calls and retries are those of
+     * its calls. Phases and bytes are those of all attempts.</li>
+     * <li>Of an endpoint address: requests are attempts sent to it, errors are failed attempts, latency is that of
+     * attempts and retries are those of attempts failed on it.</li>
+     * </ul>
+     */
+    public static final class Stats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+        private Stats() {
+            for (Phase phase : Phase.values()) {
+                this.phases.put(phase, new LatencyHistogram());
+            }
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public LatencyHistogram getPhase(Phase phase) {
+            return phases.get(phase);
+        }
+    }
+
+    private final ConcurrentHashMap<String, Stats> models = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Stats> endpoints = new ConcurrentHashMap<>();
+
+    private static Stats statsOf(ConcurrentHashMap<String, Stats> map, String key) {
+        Stats stats = map.get(key);
+        return stats != null ? stats : map.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * @return read only view of stats by model name.
+     */
+    public Map<String, Stats> getModelStats() {
+        return Collections.unmodifiableMap(this.models);
+    }
+
+    /**
+     * @return read only view of stats by endpoint address.
+     */
+    public Map<String, Stats> getEndpointStats() {
+        return Collections.unmodifiableMap(this.endpoints);
+    }
+
+    @Override
+    public void recordPhase(String model, String endpoint, Phase phase, long nanos) {
+        statsOf(this.models, model).phases.get(phase).record(nanos);
+        if (endpoint != null) {
+            statsOf(this.endpoints, endpoint).phases.get(phase).record(nanos);
+        }
+    }
+
+    @Override
+    public void recordAttempt(String model, String endpoint, long requestBytes, long responseBytes, long nanos,
+                              Throwable error) {
+        Stats modelStats = statsOf(this.models, model);
+        modelStats.requestBytes.add(requestBytes);
+        modelStats.responseBytes.add(responseBytes);
+        Stats endpointStats = statsOf(this.endpoints, endpoint);
+        endpointStats.requests.increment();
+        if (error != null) {
+            endpointStats.errors.increment();
+        }
+        endpointStats.requestBytes.add(requestBytes);
+        endpointStats.responseBytes.add(responseBytes);
+        endpointStats.latency.record(nanos);
+    }
+
+    @Override
+    public void recordRetry(String model, String endpoint) {
+        statsOf(this.models, model).retries.increment();
+        if (endpoint != null) {
+            statsOf(this.endpoints, endpoint).retries.increment();
+        }
+    }
+
+    @Override
+    public void recordCall(String model, long nanos, Throwable error) {
+        Stats stats = statsOf(this.models, model);
+        stats.requests.increment();
+        if (error != null) {
+            stats.errors.increment();
+        }
+        stats.latency.record(nanos);
+    }
+}
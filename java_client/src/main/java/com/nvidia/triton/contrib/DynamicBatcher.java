@@ -0,0 +1,370 @@
+package com.nvidia.triton.contrib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+
+/**
+ * A client side dynamic batcher in front of {@link InferenceServerClient}. Concurrent requests for the same model and
+ * version whose inputs only differ in dimension 0 are concatenated into one HTTP request, and every caller gets back
+ * its own rows of the batched {@link InferResult}.
+ * <p>
+ * A batch is sent as soon as it holds maxBatchSize rows, or maxQueueDelayMicros after its first request arrived.
+ * Only requests agreeing on everything but their data are batched together, hedge policy included, which then hedges
+ * the batch. Requests that could not be batched, like sequence requests, requests carrying a request id or using
+ * shared memory, are sent directly. All methods are thread safe.
+ */
+public class DynamicBatcher implements AutoCloseable {
+
+    private final InferenceServerClient client;
+    private final int maxBatchSize;
+    private final long maxQueueDelayMicros;
+    private final ConcurrentHashMap<BatchKey, Queue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Create a dynamic batcher.
+     *
+     * @param client              client to send batched requests with.
+     * @param maxBatchSize        max number of rows (dimension 0) in a batch.
+     * @param maxQueueDelayMicros max time a request waits for others to join its batch, in microseconds.
+     */
+    public DynamicBatcher(InferenceServerClient client, int maxBatchSize, long maxQueueDelayMicros) {
+        Preconditions.checkArgument(client != null, "client should not be null.");
+        Preconditions.checkArgument(maxBatchSize > 0, "Invalid maxBatchSize: %s", maxBatchSize);
+        Preconditions.checkArgument(maxQueueDelayMicros >= 0, "Invalid maxQueueDelayMicros: %s",
+            maxQueueDelayMicros);
+        this.client = client;
+        this.maxBatchSize = maxBatchSize;
+        this.maxQueueDelayMicros = maxQueueDelayMicros;
+    }
+
+    /**
+     * Run inference, possibly batched with concurrent requests, and block until the result is available.
+     *
+     * @param arg inference arguments.
+     * @return inference result holding only the rows of this request.
+     * @throws InferenceException if inference failed or the calling thread was interrupted.
+     */
+    public InferResult infer(InferArguments arg) throws InferenceException {
+        return InferenceServerClient.await(this.inferAsync(arg));
+    }
+
+    /**
+     * Run inference, possibly batched with concurrent requests, without blocking the calling thread.
+     *
+     * @param arg inference arguments.
+     * @return future completed with an inference result holding only the rows of this request.
+     */
+    public CompletableFuture<InferResult> inferAsync(InferArguments arg) {
+        Preconditions.checkArgument(arg != null, "arguments should not be null.");
+        long rows = rowsOf(arg);
+        if (rows <= 0 || rows >= this.maxBatchSize) {
+            return this.client.inferAsync(arg);
+        }
+        Entry entry = new Entry(arg, rows);
+        BatchKey key = new BatchKey(arg);
+        Queue queue;
+        List<Entry> full = null;
+        List<Entry> overflow = null;
+        while (true) {
+            queue = this.queues.computeIfAbsent(key, Queue::new);
+            synchronized (queue) {
+                if (queue.removed) {
+                    // Pruned by another thread since it was looked up.
+                    continue;
+                }
+                if (queue.rows + rows > this.maxBatchSize) {
+                    overflow = queue.drain();
+                }
+                queue.add(entry);
+                if (queue.rows >= this.maxBatchSize) {
+                    full = queue.drain();
+                    this.prune(queue);
+                } else if (queue.entries.size() == 1) {
+                    final Queue scheduled = queue;
+                    final long generation = queue.generation;
+                    this.client.getScheduler().schedule(() -> this.flush(scheduled, generation),
+                        this.maxQueueDelayMicros, TimeUnit.MICROSECONDS);
+                }
+                break;
+            }
+        }
+        if (overflow != null) {
+            this.send(queue, overflow);
+        }
+        if (full != null) {
+            this.send(queue, full);
+        }
+        return entry.result;
+    }
+
+    private void flush(Queue queue, long generation) {
+        List<Entry> entries;
+        synchronized (queue) {
+            if (queue.generation != generation || queue.entries.isEmpty()) {
+                return;
+            }
+            entries = queue.drain();
+            this.prune(queue);
+        }
+        this.send(queue, entries);
+    }
+
+    /**
+     * Remove a drained queue, so that the map does not keep a queue for every batch key ever seen. Must hold the
+     * monitor of the queue.
+     */
+    private void prune(Queue queue) {
+        queue.removed = true;
+        this.queues.remove(queue.key, queue);
+    }
+
+    private void send(Queue queue, List<Entry> entries) {
+        if (entries.size() == 1) {
+            Entry entry = entries.get(0);
+            this.client.inferAsync(entry.arg).whenComplete((r, e) -> {
+                if (e != null) {
+                    entry.result.completeExceptionally(e);
+                } else if (!entry.result.complete(r)) {
+                    r.close();
+                }
+            });
+            return;
+        }
+
+        InferArguments first = entries.get(0).arg;
+        List<InferInput> inputs = new ArrayList<>(first.inputs.size());
+        long totalRows = 0;
+        try {
+            for (int i = 0; i < first.inputs.size(); i++) {
+                List<InferInput> parts = new ArrayList<>(entries.size());
+                for (Entry entry : entries) {
+                    parts.add(entry.arg.inputs.get(i));
+                }
+                inputs.add(InferInput.concat(parts));
+            }
+        } catch (Exception e) {
+            for (Entry entry : entries) {
+                entry.result.completeExceptionally(new InferenceException(e));
+            }
+            return;
+        }
+        for (Entry entry : entries) {
+            totalRows += entry.rows;
+        }
+
+        BatchKey key = queue.key;
+        InferArguments batched = new InferArguments(first.modelName, inputs, first.outputs)
+            .setModelVersion(key.modelVersion)
+            .setPriority(key.priority)
+            .setTimeout(key.timeout)
+            .setHedgePolicy(key.hedgePolicy);
+        key.headers.forEach(batched::setHeader);
+        key.queryParams.forEach(batched::addQueryParam);
+
+        final long batchRows = totalRows;
+        this.client.inferAsync(batched).whenComplete((result, err) -> {
+            long rowStart = 0;
+            for (Entry entry : entries) {
+                if (err != null) {
+                    entry.result.completeExceptionally(err);
+                    continue;
+                }
+                try {
+                    InferResult slice = result.slice(rowStart, entry.rows, batchRows);
+                    if (!entry.result.complete(slice)) {
+                        slice.close();
+                    }
+                } catch (Exception e) {
+                    entry.result.completeExceptionally(e);
+                }
+                rowStart += entry.rows;
+            }
+            if (result != null) {
+                // Slices hold their own references on pooled binary data.
+                result.close();
+            }
+        });
+    }
+
+    /**
+     * Send all pending requests right away.
+     */
+    public void flushAll() {
+        for (Queue queue : this.queues.values()) {
+            List<Entry> entries;
+            synchronized (queue) {
+                if (queue.entries.isEmpty()) {
+                    continue;
+                }
+                entries = queue.drain();
+                this.prune(queue);
+            }
+            this.send(queue, entries);
+        }
+    }
+
+    /**
+     * @return number of batch keys having pending requests.
+     */
+    @VisibleForTesting
+    int getQueueCount() {
+        return this.queues.size();
+    }
+
+    /**
+     * Send all pending requests. The underlying client is not closed.
+     */
+    @Override
+    public void close() {
+        this.flushAll();
+    }
+
+    /**
+     * Get number of rows in a request, all inputs must agree on it.
+     *
+     * @return rows of the request, or -1 if the request could not be batched.
+     */
+    private static long rowsOf(InferArguments arg) {
+        if (arg.sequenceId != 0 || !Util.isEmpty(arg.requestId) || Util.isEmpty(arg.inputs)) {
+            return -1;
+        }
+        if (arg.outputs != null) {
+            for (InferRequestedOutput output : arg.outputs) {
+                if (output.isSharedMemory()) {
+                    return -1;
+                }
+            }
+        }
+        long rows = -1;
+        for (InferInput input : arg.inputs) {
+            long[] shape = input.getShape();
+            if (input.isSharedMemory() || shape.length == 0 || (rows != -1 && shape[0] != rows)) {
+                return -1;
+            }
+            rows = shape[0];
+        }
+        return rows;
+    }
+
+    /**
+     * Requests with equal keys could be concatenated into one request. Headers and query parameters are copied, so
+     * that arguments changed by their caller afterwards do not change a key in the map.
+     */
+    private static final class BatchKey {
+        final String modelName;
+        final String modelVersion;
+        final int priority;
+        final int timeout;
+        final Map<String, String> headers;
+        final Map<String, String> queryParams;
+        /**
+         * Compared by identity, a policy learns the latency of the requests it hedges.
+         */
+        final HedgePolicy hedgePolicy;
+        /**
+         * Name, datatype, encoding and shape beyond dimension 0 of inputs in order.
+         */
+        final List<Object> inputs = new ArrayList<>();
+        /**
+         * Name, encoding and class count of requested outputs in order.
+         */
+        final List<Object> outputs = new ArrayList<>();
+
+        BatchKey(InferArguments arg) {
+            this.modelName = arg.modelName;
+            this.modelVersion = arg.modelVersion;
+            this.priority = arg.priority;
+            this.timeout = arg.timeout;
+            this.headers = Collections.unmodifiableMap(new HashMap<>(arg.headers));
+            this.queryParams = Collections.unmodifiableMap(new HashMap<>(arg.queryParams));
+            this.hedgePolicy = arg.hedgePolicy;
+            for (InferInput input : arg.inputs) {
+                long[] shape = input.getShape();
+                this.inputs.add(input.getName());
+                this.inputs.add(input.getDataType());
+                this.inputs.add(input.getBinaryBuffer() != null);
+                this.inputs.add(Arrays.toString(Arrays.copyOfRange(shape, 1, shape.length)));
+            }
+            if (!Util.isEmpty(arg.outputs)) {
+                for (InferRequestedOutput output : arg.outputs) {
+                    this.outputs.add(output.getName());
+                    this.outputs.add(output.isBinary());
+                    this.outputs.add(output.getClassCount());
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey)o;
+            return this.priority == other.priority && this.timeout == other.timeout
+                && this.hedgePolicy == other.hedgePolicy && this.modelName.equals(other.modelName)
+                && Objects.equals(this.modelVersion, other.modelVersion) && this.headers.equals(other.headers)
+                && this.queryParams.equals(other.queryParams) && this.inputs.equals(other.inputs)
+                && this.outputs.equals(other.outputs);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.modelName, this.modelVersion, this.priority, this.timeout, this.headers,
+                this.queryParams, System.identityHashCode(this.hedgePolicy), this.inputs, this.outputs);
+        }
+    }
+
+    private static class Entry {
+        final InferArguments arg;
+        final long rows;
+        final CompletableFuture<InferResult> result = new CompletableFuture<>();
+
+        Entry(InferArguments arg, long rows) {
+            this.arg = arg;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Pending requests of one batch key, guarded by its own monitor.
+     */
+    private static class Queue {
+        final BatchKey key;
+        List<Entry> entries = new ArrayList<>();
+        long rows = 0;
+        long generation = 0;
+        boolean removed = false;
+
+        Queue(BatchKey key) {
+            this.key = key;
+        }
+
+        void add(Entry entry) {
+            this.entries.add(entry);
+            this.rows += entry.rows;
+        }
+
+        List<Entry> drain() {
+            List<Entry> ret = this.entries;
+            this.entries = new ArrayList<>();
+            this.rows = 0;
+            this.generation++;
+            return ret;
+        }
+    }
+}
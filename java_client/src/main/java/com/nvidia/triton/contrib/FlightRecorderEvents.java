@@ -0,0 +1,179 @@
+package com.nvidia.triton.contrib;
+
+/**
+ * Java Flight Recorder events of inference calls, in category "Triton" of a recording, so that slow calls can be
+ * lined up with GC pauses, safepoints and lock contention of the same recording:
+ * <ul>
+ * <li>{@code com.nvidia.triton.contrib.InferenceRequest}: a call, from its start until its result is available.</li>
+ * <li>{@code com.nvidia.triton.contrib.InferenceEncode}: encoding the request before any attempt.</li>
+ * <li>{@code com.nvidia.triton.contrib.InferencePoolLease}: an attempt waiting for a pooled connection.</li>
+ * <li>{@code com.nvidia.triton.contrib.InferenceDecode}: parsing a response, or decoding a lazily decoded output.</li>
+ * <li>{@code com.nvidia.triton.contrib.InferenceRetry}: a failed attempt being retried.</li>
+ * </ul>
+ * Events of one call share its callId, a number assigned by the client when InferenceRequest events are enabled, and
+ * the request id of its arguments if any.
+ * <p>
+ * The SDK is built against the Java 8 API, which has no jdk.jfr, so events are emitted by {@code JfrRecorder},
+ * compiled from src/main/jfr when building on JDK 11 or later and loaded only if the running JVM has JFR. Otherwise
+ * every method does nothing. Events cost a check of whether they are enabled when no recording is running, in-flight
+ * events are handed around as Object.
+ */
+final class FlightRecorderEvents {
+
+    /**
+     * Emits events, every method of the default implementation does nothing.
+     */
+    interface Recorder {
+
+        Recorder NOOP = new Recorder() {
+        };
+
+        /**
+         * Begin the event of a call.
+         *
+         * @return the event, null if disabled.
+         */
+        default Object beginRequest(String model, String requestId) {
+            return null;
+        }
+
+        /**
+         * @param request event of a call, may be null.
+         * @return callId of the call, 0 if its event is disabled.
+         */
+        default long callIdOf(Object request) {
+            return 0;
+        }
+
+        /**
+         * Record the endpoint address and bytes of the last attempt of a call, under the monitor of the call.
+         */
+        default void onAttempt(Object request, String endpoint, long requestBytes, long responseBytes) {
+        }
+
+        default void commitRequest(Object request, Throwable error) {
+        }
+
+        /**
+         * Begin the event of encoding a request.
+         *
+         * @return the event, null if disabled.
+         */
+        default Object beginEncode() {
+            return null;
+        }
+
+        default void commitEncode(Object encode, Object request, String model, String requestId, long bytes) {
+        }
+
+        /**
+         * Begin the event of an attempt waiting for a connection, ended by {@link #end(Object)} once the request is
+         * being written and committed by {@link #commitPoolLease} when the attempt finishes.
+         *
+         * @return the event, null if disabled.
+         */
+        default Object beginPoolLease() {
+            return null;
+        }
+
+        default void commitPoolLease(Object lease, Object request, String endpoint, int attempt) {
+        }
+
+        /**
+         * Begin the event of decoding, ended by {@link #end(Object)}.
+         *
+         * @return the event, null if disabled.
+         */
+        default Object beginDecode() {
+            return null;
+        }
+
+        /**
+         * Commit the event of decoding.
+         *
+         * @param decode   decode event, may be null.
+         * @param request  event of the call, null if unknown.
+         * @param model    model name, used if the call has no event.
+         * @param endpoint endpoint address, null if unknown.
+         * @param output   name of output decoded on access, null if a response was decoded.
+         * @param bytes    size of JSON decoded.
+         */
+        default void commitDecode(Object decode, Object request, String model, String endpoint, String output,
+                                  long bytes) {
+        }
+
+        /**
+         * End a begun event to be committed later, an event committed without end lasts until its commit.
+         */
+        default void end(Object event) {
+        }
+
+        default void retry(Object request, String model, String endpoint, int retry, Throwable error) {
+        }
+    }
+
+    private static final Recorder RECORDER = load();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static Recorder load() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return (Recorder)Class.forName("com.nvidia.triton.contrib.JfrRecorder").getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // No JFR in this JVM, or the SDK was built without it.
+            return Recorder.NOOP;
+        }
+    }
+
+    static Object beginRequest(String model, String requestId) {
+        return RECORDER.beginRequest(model, requestId);
+    }
+
+    static long callIdOf(Object request) {
+        return RECORDER.callIdOf(request);
+    }
+
+    static void onAttempt(Object request, String endpoint, long requestBytes, long responseBytes) {
+        RECORDER.onAttempt(request, endpoint, requestBytes, responseBytes);
+    }
+
+    static void commitRequest(Object request, Throwable error) {
+        RECORDER.commitRequest(request, error);
+    }
+
+    static Object beginEncode() {
+        return RECORDER.beginEncode();
+    }
+
+    static void commitEncode(Object encode, Object request, String model, String requestId, long bytes) {
+        RECORDER.commitEncode(encode, request, model, requestId, bytes);
+    }
+
+    static Object beginPoolLease() {
+        return RECORDER.beginPoolLease();
+    }
+
+    static void commitPoolLease(Object lease, Object request, String endpoint, int attempt) {
+        RECORDER.commitPoolLease(lease, request, endpoint, attempt);
+    }
+
+    static Object beginDecode() {
+        return RECORDER.beginDecode();
+    }
+
+    static void commitDecode(Object decode, Object request, String model, String endpoint, String output,
+                             long bytes) {
+        RECORDER.commitDecode(decode, request, model, endpoint, output, bytes);
+    }
+
+    static void end(Object event) {
+        RECORDER.end(event);
+    }
+
+    static void retry(Object request, String model, String endpoint, int retry, Throwable error) {
+        RECORDER.retry(request, model, endpoint, retry, error);
+    }
+}
@@ -0,0 +1,195 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.pojo.DataType;
+
+/**
+ * Conversions between float and 16-bit floating point types, IEEE 754 half precision (FP16) and bfloat16 (BF16), whose
+ * bits are held in a short. Conversions are branch-light bit manipulations rounding to nearest even, NaN stays NaN and
+ * out of range values become infinity (FP16) or keep their exponent (BF16, which has the exponent range of float).
+ * Bulk variants convert in chunks through typed buffer views so that tensors never need a full intermediate array.
+ */
+public final class HalfFloat {
+
+    private static final int CHUNK = 1024;
+
+    private HalfFloat() {
+    }
+
+    /**
+     * Convert a float to FP16 bits, rounding to nearest even.
+     */
+    public static short toFp16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+        if (abs >= 0x7F800000) {
+            // Infinity, or NaN kept quiet with the top of its payload.
+            return (short)(sign | (abs == 0x7F800000 ? 0x7C00 : 0x7E00 | ((abs >>> 13) & 0x3FF)));
+        }
+        if (abs >= 0x47800000) {
+            // 65536 and above, larger than FP16 max even before rounding.
+            return (short)(sign | 0x7C00);
+        }
+        if (abs >= 0x38800000) {
+            // Normal: rebias exponent from 127 to 15, round the 13 dropped bits. A carry may reach infinity.
+            int rebiased = abs - 0x38000000;
+            return (short)(sign | ((rebiased + 0xFFF + ((rebiased >>> 13) & 1)) >>> 13));
+        }
+        int exp = abs >>> 23;
+        if (exp < 102) {
+            // Below half of the smallest subnormal.
+            return (short)sign;
+        }
+        // Subnormal: shift the mantissa with its implicit bit, a carry may produce the smallest normal.
+        int mantissa = (abs & 0x7FFFFF) | 0x800000;
+        int shift = 126 - exp;
+        int half = mantissa >>> shift;
+        int rest = mantissa & ((1 << shift) - 1);
+        int midpoint = 1 << (shift - 1);
+        if (rest > midpoint || (rest == midpoint && (half & 1) != 0)) {
+            half++;
+        }
+        return (short)(sign | half);
+    }
+
+    /**
+     * Convert FP16 bits to float, exactly.
+     */
+    public static float fp16ToFloat(short fp16) {
+        int sign = (fp16 & 0x8000) << 16;
+        int abs = fp16 & 0x7FFF;
+        if (abs >= 0x7C00) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | ((abs & 0x3FF) << 13));
+        }
+        if (abs >= 0x400) {
+            return Float.intBitsToFloat(sign | ((abs << 13) + 0x38000000));
+        }
+        // Subnormal or zero, the value is abs * 2^-24.
+        float value = abs * 0x1p-24F;
+        return sign == 0 ? value : -value;
+    }
+
+    /**
+     * Convert a float to BF16 bits, rounding to nearest even.
+     */
+    public static short toBf16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        if ((bits & 0x7FFFFFFF) > 0x7F800000) {
+            // NaN kept quiet, so that truncation never turns it into infinity.
+            return (short)((bits >>> 16) | 0x40);
+        }
+        return (short)((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16);
+    }
+
+    /**
+     * Convert BF16 bits to float, exactly.
+     */
+    public static float bf16ToFloat(short bf16) {
+        return Float.intBitsToFloat(bf16 << 16);
+    }
+
+    private static void checkHalf(DataType dataType) {
+        Preconditions.checkArgument(dataType == DataType.FP16 || dataType == DataType.BF16,
+            "%s is not a 16-bit floating point type.", dataType);
+    }
+
+    public static short[] toFp16(float[] values) {
+        short[] ret = new short[values.length];
+        toHalf(DataType.FP16, values, 0, ret, 0, values.length);
+        return ret;
+    }
+
+    public static float[] fp16ToFloat(short[] values) {
+        float[] ret = new float[values.length];
+        toFloat(DataType.FP16, values, 0, ret, 0, values.length);
+        return ret;
+    }
+
+    public static short[] toBf16(float[] values) {
+        short[] ret = new short[values.length];
+        toHalf(DataType.BF16, values, 0, ret, 0, values.length);
+        return ret;
+    }
+
+    public static float[] bf16ToFloat(short[] values) {
+        float[] ret = new float[values.length];
+        toFloat(DataType.BF16, values, 0, ret, 0, values.length);
+        return ret;
+    }
+
+    private static void toHalf(DataType dataType, float[] src, int srcPos, short[] dst, int dstPos, int len) {
+        if (dataType == DataType.FP16) {
+            for (int i = 0; i < len; i++) {
+                dst[dstPos + i] = toFp16(src[srcPos + i]);
+            }
+        } else {
+            for (int i = 0; i < len; i++) {
+                dst[dstPos + i] = toBf16(src[srcPos + i]);
+            }
+        }
+    }
+
+    private static void toFloat(DataType dataType, short[] src, int srcPos, float[] dst, int dstPos, int len) {
+        if (dataType == DataType.FP16) {
+            for (int i = 0; i < len; i++) {
+                dst[dstPos + i] = fp16ToFloat(src[srcPos + i]);
+            }
+        } else {
+            for (int i = 0; i < len; i++) {
+                dst[dstPos + i] = bf16ToFloat(src[srcPos + i]);
+            }
+        }
+    }
+
+    /**
+     * Convert floats to little-endian FP16 or BF16 binary data.
+     *
+     * @param dataType FP16 or BF16.
+     * @param src      floats from position to limit, the position is moved to limit.
+     * @param dst      buffer to write to from its position, it's written in little-endian regardless of its order and
+     *                 its position is not changed.
+     */
+    static void encode(DataType dataType, FloatBuffer src, ByteBuffer dst) {
+        checkHalf(dataType);
+        ShortBuffer out = dst.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        Preconditions.checkArgument(out.remaining() >= src.remaining(), "Buffer of %s bytes could not hold %s elements"
+            + " of %s.", dst.remaining(), src.remaining(), dataType);
+        float[] floats = new float[Math.min(CHUNK, src.remaining())];
+        short[] halves = new short[floats.length];
+        while (src.hasRemaining()) {
+            int len = Math.min(floats.length, src.remaining());
+            src.get(floats, 0, len);
+            toHalf(dataType, floats, 0, halves, 0, len);
+            out.put(halves, 0, len);
+        }
+    }
+
+    /**
+     * Convert little-endian FP16 or BF16 binary data to floats.
+     *
+     * @param dataType FP16 or BF16.
+     * @param src      buffer holding data from its position, in little-endian regardless of its order. Its position is
+     *                 not changed.
+     * @param numElem  number of elements.
+     */
+    static float[] decode(DataType dataType, ByteBuffer src, int numElem) {
+        checkHalf(dataType);
+        Preconditions.checkArgument(src.remaining() >= (long)numElem * 2,
+            "Buffer of %s bytes holds less than %s elements of %s.", src.remaining(), numElem, dataType);
+        ShortBuffer in = src.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        float[] ret = new float[numElem];
+        short[] halves = new short[Math.min(CHUNK, numElem)];
+        for (int pos = 0; pos < numElem; pos += halves.length) {
+            int len = Math.min(halves.length, numElem - pos);
+            in.get(halves, 0, len);
+            toFloat(dataType, halves, 0, ret, pos, len);
+        }
+        return ret;
+    }
+}
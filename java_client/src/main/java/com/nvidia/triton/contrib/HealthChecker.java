@@ -0,0 +1,136 @@
+package com.nvidia.triton.contrib;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Charsets;
+import com.nvidia.triton.contrib.endpoint.AbstractEndpoint;
+import com.nvidia.triton.contrib.endpoint.HealthConfig;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+/**
+ * Periodically probes every address of an endpoint with /v2/health/ready and /v2/models/{model}/ready, and reports
+ * the results to the endpoint. Probes are asynchronous, an address is probed by one request at a time and its paths
+ * are requested one after another until one fails. An address whose probe is still pending when the next round starts
+ * is skipped, so that a hung server does not pile up probes.
+ */
+class HealthChecker implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(HealthChecker.class);
+
+    private final AbstractEndpoint endpoint;
+    private final CloseableHttpAsyncClient httpClient;
+    private final List<String> paths;
+    private final RequestConfig requestConfig;
+    private final ScheduledFuture<?> task;
+    /**
+     * Addresses having a probe in flight.
+     */
+    private final Set<String> probing = ConcurrentHashMap.newKeySet();
+
+    HealthChecker(AbstractEndpoint endpoint, HealthConfig config, CloseableHttpAsyncClient httpClient,
+                  ScheduledExecutorService scheduler) {
+        this.endpoint = endpoint;
+        this.httpClient = httpClient;
+        this.paths = new ArrayList<>();
+        this.paths.add("/v2/health/ready");
+        for (String model : config.getProbeModels()) {
+            this.paths.add(String.format("/v2/models/%s/ready", encode(model)));
+        }
+        this.requestConfig = RequestConfig.custom()
+            .setConnectTimeout(config.getProbeTimeoutMs())
+            .setConnectionRequestTimeout(config.getProbeTimeoutMs())
+            .setSocketTimeout(config.getProbeTimeoutMs()).build();
+        this.task = scheduler.scheduleWithFixedDelay(this::probeAll, 0, config.getProbeIntervalMs(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void probeAll() {
+        try {
+            for (String addr : this.endpoint.getAddresses()) {
+                if (this.probing.add(addr)) {
+                    this.probe(addr, 0);
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to start health probes.", e);
+        }
+    }
+
+    private void probe(String addr, int pathIdx) {
+        if (pathIdx >= this.paths.size()) {
+            this.probing.remove(addr);
+            this.endpoint.onProbeResult(addr, true);
+            return;
+        }
+        HttpGet get = new HttpGet("http://" + addr + this.paths.get(pathIdx));
+        get.setConfig(this.requestConfig);
+        try {
+            this.execute(addr, pathIdx, get);
+        } catch (RuntimeException e) {
+            this.probing.remove(addr);
+            throw e;
+        }
+    }
+
+    private void execute(String addr, int pathIdx, HttpGet get) {
+        this.httpClient.execute(get, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse result) {
+                if (result.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                    probe(addr, pathIdx + 1);
+                } else {
+                    onNotReady(addr, get.getURI() + " returned " + result.getStatusLine().getStatusCode());
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                onNotReady(addr, get.getURI() + " failed: " + ex);
+            }
+
+            @Override
+            public void cancelled() {
+                probing.remove(addr);
+            }
+        });
+    }
+
+    private void onNotReady(String addr, String reason) {
+        this.probing.remove(addr);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Health probe of " + addr + " failed, " + reason);
+        }
+        this.endpoint.onProbeResult(addr, false);
+    }
+
+    private static String encode(String s) {
+        try {
+            return URLEncoder.encode(s, Charsets.UTF_8.toString());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stop probing, probes in flight still report their results.
+     */
+    @Override
+    public void close() {
+        this.task.cancel(false);
+    }
+}
@@ -0,0 +1,119 @@
+package com.nvidia.triton.contrib;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Hedging of inference requests, see {@link InferenceServerClient.InferArguments#setHedgePolicy(HedgePolicy)}. If no
+ * response arrives within the hedge delay, a duplicate request is sent, preferably to another address of the
+ * endpoint. The first response wins and the other request is cancelled.
+ * <p>
+ * The delay is either fixed, or a percentile of recently observed latencies. Hedges are paid from a budget: every
+ * request deposits budgetPercent / 100 of a token and a hedge costs one, so hedging adds at most budgetPercent extra
+ * load. A policy keeps its latency samples and budget across requests, share one instance among all requests for the
+ * same model. All methods are thread safe.
+ */
+public class HedgePolicy {
+
+    /**
+     * Number of latest latencies a percentile delay is computed from.
+     */
+    private static final int WINDOW = 1024;
+    /**
+     * Percentile delay is computed again after this many samples.
+     */
+    private static final int RECOMPUTE_INTERVAL = 64;
+    /**
+     * Budget saved up for bursts of hedges, in tokens.
+     */
+    private static final int MAX_TOKENS = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final TokenBucket budget;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong sampleCount = new AtomicLong(0);
+    private volatile long delayNanos;
+
+    private HedgePolicy(double percentile, long minDelayNanos, double budgetPercent) {
+        Preconditions.checkArgument(budgetPercent > 0 && budgetPercent <= 100, "Invalid budgetPercent: %s",
+            budgetPercent);
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+        this.delayNanos = minDelayNanos;
+        this.budget = new TokenBucket(budgetPercent, MAX_TOKENS, 0);
+    }
+
+    /**
+     * Create a policy hedging requests without response after a fixed delay.
+     *
+     * @param delayMs       hedge delay in milliseconds.
+     * @param budgetPercent max extra requests sent as hedges, in percent of all requests.
+     */
+    public static HedgePolicy fixedDelay(long delayMs, double budgetPercent) {
+        Preconditions.checkArgument(delayMs >= 0, "Invalid delayMs: %s", delayMs);
+        return new HedgePolicy(-1, TimeUnit.MILLISECONDS.toNanos(delayMs), budgetPercent);
+    }
+
+    /**
+     * Create a policy hedging requests slower than a percentile of recent latencies, like 95 for p95.
+     *
+     * @param percentile    percentile of latency to hedge after, in (0, 100).
+     * @param minDelayMs    lower bound of the hedge delay, also used until enough latencies are observed.
+     * @param budgetPercent max extra requests sent as hedges, in percent of all requests.
+     */
+    public static HedgePolicy percentileDelay(double percentile, long minDelayMs, double budgetPercent) {
+        Preconditions.checkArgument(percentile > 0 && percentile < 100, "Invalid percentile: %s", percentile);
+        Preconditions.checkArgument(minDelayMs >= 0, "Invalid minDelayMs: %s", minDelayMs);
+        return new HedgePolicy(percentile, TimeUnit.MILLISECONDS.toNanos(minDelayMs), budgetPercent);
+    }
+
+    /**
+     * Get current hedge delay in nanoseconds.
+     */
+    public long getDelayNanos() {
+        return this.delayNanos;
+    }
+
+    /**
+     * Called when a request is sent, deposits its share of the hedge budget.
+     */
+    void onRequest() {
+        this.budget.deposit();
+    }
+
+    /**
+     * Take one hedge from the budget.
+     *
+     * @return false if the budget is used up.
+     */
+    boolean tryAcquireHedge() {
+        return this.budget.tryAcquire();
+    }
+
+    /**
+     * Record latency of a successful attempt.
+     */
+    void recordLatency(long latencyNanos) {
+        if (this.percentile < 0) {
+            return;
+        }
+        long n = this.sampleCount.getAndIncrement();
+        this.samples.set((int)(n % WINDOW), latencyNanos);
+        if ((n + 1) % RECOMPUTE_INTERVAL == 0) {
+            int size = (int)Math.min(n + 1, WINDOW);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = this.samples.get(i);
+            }
+            Arrays.sort(sorted);
+            int idx = (int)Math.min(size - 1, Math.ceil(this.percentile / 100 * size) - 1);
+            this.delayNanos = Math.max(this.minDelayNanos, sorted[Math.max(0, idx)]);
+        }
+    }
+}
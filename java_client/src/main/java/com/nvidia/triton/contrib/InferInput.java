@@ -1,24 +1,16 @@
 package com.nvidia.triton.contrib;
 
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.List;
-import java.util.function.BiConsumer;
-import java.util.function.Function;
 
 import com.nvidia.triton.contrib.pojo.DataType;
 import com.nvidia.triton.contrib.pojo.IOTensor;
 import com.nvidia.triton.contrib.pojo.Parameters;
+import com.nvidia.triton.contrib.shm.SystemSharedMemoryRegion;
 import com.google.common.base.Preconditions;
-import com.google.common.primitives.Booleans;
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Floats;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-import com.google.common.primitives.Shorts;
-import com.google.common.primitives.UnsignedInteger;
-import com.google.common.primitives.UnsignedLong;
 
 /**
  * This class describes an input tensor feeding to inference server, including it's name, shape, datatype and the actual
@@ -43,13 +35,22 @@ public class InferInput {
      */
     private final Parameters parameters;
     /**
-     * Binary representation of tensor data of this input tensor if it's in binary format.
+     * Binary representation of tensor data of this input tensor if it's in binary format, from position 0 to limit.
      */
-    private byte[] binaryData;
+    private ByteBuffer binaryData;
     /**
-     * Tensor data of this input tensor if it's in JSON format.
+     * Pooled array backing binaryData, null if it is not pooled.
      */
-    private Object[] data;
+    private PooledBuffer pooledBuffer;
+    /**
+     * Pool to encode binary data into, null to allocate a new array each time.
+     */
+    private final BufferPool bufferPool;
+    /**
+     * Tensor data of this input tensor if it's in JSON format. A primitive array matching the data type, or String[]
+     * for BYTES, unsigned values keep their top bit in the sign bit.
+     */
+    private Object data;
 
     /**
      * Number of elements in this inference input.
@@ -64,6 +65,20 @@ public class InferInput {
      * @param dataType data type of input
      */
     public InferInput(String name, long[] shape, DataType dataType) {
+        this(name, shape, dataType, null);
+    }
+
+    /**
+     * Create an inference input encoding binary data into arrays from a pool. Call {@link #release()} when the input is
+     * no longer used to return its array, requests in flight keep their own reference on it.
+     *
+     * @param name       name of input.
+     * @param shape      shape of input.
+     * @param dataType   data type of input
+     * @param bufferPool pool of arrays for binary data, null to allocate a new array each time.
+     */
+    public InferInput(String name, long[] shape, DataType dataType, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
         this.name = name;
         this.shape = shape;
         this.dataType = dataType;
@@ -76,35 +91,16 @@ public class InferInput {
             "Data tensor's size [%s not consist with shape [%s].", len, this.numElement);
     }
 
-    private <T> void setBinaryDataImpl(List<T> data, BiConsumer<ByteBuffer, T> consumer) {
-        this.binaryData = new byte[data.size() * dataType.numByte];
-        ByteBuffer buf = ByteBuffer.wrap(this.binaryData);
-        buf.order(ByteOrder.LITTLE_ENDIAN);
-        for (T datum : data) {
-            consumer.accept(buf, datum);
-        }
-        Preconditions.checkState(buf.position() == this.binaryData.length);
-        this.parameters.put(Parameters.KEY_BINARY_DATA_SIZE, this.binaryData.length);
-    }
-
-    private <T> void setJSONDataImpl(List<T> data) {
-        this.parameters.remove(Parameters.KEY_BINARY_DATA_SIZE);
-        //this.data = new JSONArray(data.size());
-        //this.data.addAll(data);
-        this.data = data.toArray(new Object[0]);
-    }
-
-    private <T, U> void setJSONDataImpl(List<T> data, Function<T, U> mapper) {
+    /**
+     * Keep a copy of a primitive array as JSON data, it's written by {@link InferRequestEncoder} without boxing.
+     */
+    private void setJSONDataImpl(Object array) {
         this.parameters.remove(Parameters.KEY_BINARY_DATA_SIZE);
-        //this.data = new JSONArray(data.size());
-        //for (T datum : data) {
-        //    this.data.add(mapper.apply(datum));
-        //}
-        this.data = new Object[data.size()];
-        int i = 0;
-        for (T datum : data) {
-            this.data[i++] = mapper.apply(datum);
-        }
+        this.removeSharedMemory();
+        this.releaseBinaryData();
+        int len = Array.getLength(array);
+        this.data = Array.newInstance(array.getClass().getComponentType(), len);
+        System.arraycopy(array, 0, this.data, 0, len);
     }
 
     /**
@@ -117,11 +113,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.BOOL,
             "Could not set boolean[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            //setBinaryDataImpl(Booleans.asList(data), (buf, b) -> buf.put(b ? (byte)1 : (byte)0));
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Booleans.asList(data));
+            setJSONDataImpl(data);
         }
     }
 
@@ -136,13 +130,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.INT8 || this.dataType == DataType.UINT8,
             "Could not set boolean[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            //setBinaryDataImpl(Bytes.asList(data), ByteBuffer::put);
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
-        } else if (this.dataType.singed) {
-            setJSONDataImpl(Bytes.asList(data));
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Bytes.asList(data), bits -> UnsignedInteger.fromIntBits(bits).longValue());
+            setJSONDataImpl(data);
         }
     }
 
@@ -158,13 +148,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.INT16 || this.dataType == DataType.UINT16,
             "Could not set boolean[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            //setBinaryDataImpl(Shorts.asList(data), ByteBuffer::putShort);
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
-        } else if (this.dataType.singed) {
-            setJSONDataImpl(Shorts.asList(data));
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Shorts.asList(data), bits -> UnsignedInteger.fromIntBits(bits).longValue());
+            setJSONDataImpl(data);
         }
     }
 
@@ -180,16 +166,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.INT32 || this.dataType == DataType.UINT32,
             "Could not set boolean[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            //setBinaryDataImpl(Ints.asList(data), ByteBuffer::putInt);
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Ints.asList(data));
-            if (this.dataType.singed) {
-                setJSONDataImpl(Ints.asList(data));
-            } else { // uint32
-                setJSONDataImpl(Ints.asList(data), bits -> UnsignedInteger.fromIntBits(bits).longValue());
-            }
+            setJSONDataImpl(data);
         }
     }
 
@@ -206,14 +185,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.INT64 || this.dataType == DataType.UINT64,
             "Could not set long[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
-        } else if (this.dataType.singed) {
-            setJSONDataImpl(Longs.asList(data));
+            this.setBinaryDataImpl(data);
         } else {
-            // TODO(xiafei.qiuxf): This is a little bit inefficient, maybe we can write a custom json
-            //  serializer/deserializer for unsigned types.
-            setJSONDataImpl(Longs.asList(data), bits -> UnsignedLong.fromLongBits(bits).bigIntegerValue());
+            setJSONDataImpl(data);
         }
     }
 
@@ -228,10 +202,9 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.FP32,
             "Could not set float[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Floats.asList(data));
+            setJSONDataImpl(data);
         }
     }
 
@@ -246,15 +219,14 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.FP64,
             "Could not set double[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
+            this.setBinaryDataImpl(data);
         } else {
-            setJSONDataImpl(Doubles.asList(data));
+            setJSONDataImpl(data);
         }
     }
 
     /**
-     * Set boolean tensor data.
+     * Set BYTES tensor data, elements are encoded in UTF-8.
      *
      * @param data         tensor data in java array. It's length must match input shape given in constructor.
      * @param isBinaryData whether it's in binary format.
@@ -264,46 +236,367 @@ public class InferInput {
         Preconditions.checkArgument(this.dataType == DataType.BYTES,
             "Could not set String[] as data of type: %s", this.dataType);
         if (isBinaryData) {
-            this.binaryData = BinaryProtocol.toBytes(this.dataType, data);
-            this.updateBinaryDataSize();
+            this.setBinaryDataImpl(data);
         } else {
-            //this.data = new JSONArray(data.length);
-            //this.data.addAll(Arrays.asList(data));
-            this.data = new Object[data.length];
-            System.arraycopy(data, 0, this.data, 0, data.length);
+            setJSONDataImpl(data);
         }
     }
 
+    /**
+     * Set BYTES tensor data of raw elements. It's always in binary format as JSON only holds strings.
+     *
+     * @param data tensor data in java array. It's length must match input shape given in constructor.
+     */
+    public void setData(byte[][] data) {
+        this.checkShape(data.length);
+        Preconditions.checkArgument(this.dataType == DataType.BYTES,
+            "Could not set byte[][] as data of type: %s", this.dataType);
+        this.setBinaryDataImpl(data);
+    }
+
+    /**
+     * Set BYTES tensor data from character sequences such as StringBuilder, encoded in UTF-8 straight into binary
+     * data without creating strings.
+     *
+     * @param data tensor data in java array. It's length must match input shape given in constructor.
+     */
+    public void setData(CharSequence[] data) {
+        this.checkShape(data.length);
+        Preconditions.checkArgument(this.dataType == DataType.BYTES,
+            "Could not set CharSequence[] as data of type: %s", this.dataType);
+        this.setBinaryDataImpl(data);
+    }
+
+    /**
+     * Set FP16 tensor data converted from floats, rounding to nearest even. It's always in binary format as FP16 has
+     * no JSON representation.
+     *
+     * @param data tensor data in java array. It's length must match input shape given in constructor.
+     */
+    public void setDataAsFp16(float[] data) {
+        this.checkShape(data.length);
+        Preconditions.checkArgument(this.dataType == DataType.FP16,
+            "Could not set float[] as FP16 data of type: %s", this.dataType);
+        this.setBinaryDataImpl(data);
+    }
+
+    /**
+     * Set BF16 tensor data converted from floats, rounding to nearest even. It's always in binary format as BF16 has
+     * no JSON representation.
+     *
+     * @param data tensor data in java array. It's length must match input shape given in constructor.
+     */
+    public void setDataAsBf16(float[] data) {
+        this.checkShape(data.length);
+        Preconditions.checkArgument(this.dataType == DataType.BF16,
+            "Could not set float[] as BF16 data of type: %s", this.dataType);
+        this.setBinaryDataImpl(data);
+    }
+
+    /**
+     * Convert FP32 tensor data of this input to a new FP16 or BF16 input in binary format, in a pooled array if this
+     * input has a pool.
+     *
+     * @param halfType FP16 or BF16.
+     * @return the converted input, or null if this input is not FP32 or has no data in request body.
+     */
+    InferInput toHalf(DataType halfType) {
+        FloatBuffer src;
+        if (this.dataType != DataType.FP32) {
+            return null;
+        } else if (this.data != null) {
+            src = FloatBuffer.wrap((float[])this.data);
+        } else if (this.binaryData != null) {
+            src = this.binaryData.duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        } else {
+            return null;
+        }
+        InferInput ret = new InferInput(this.name, this.shape, halfType, this.bufferPool);
+        int size = (int)this.numElement * halfType.numByte;
+        if (this.bufferPool != null) {
+            ret.pooledBuffer = this.bufferPool.acquire(size);
+            ret.binaryData = ByteBuffer.wrap(ret.pooledBuffer.array(), 0, size).slice();
+        } else {
+            ret.binaryData = ByteBuffer.allocate(size);
+        }
+        HalfFloat.encode(halfType, src, ret.binaryData);
+        ret.updateBinaryDataSize();
+        return ret;
+    }
+
+    /**
+     * Set tensor data already in binary format, that is little-endian elements, or 4-byte length prefixed elements
+     * for BYTES. Bytes between position and limit of data are sent as is and are not copied, so data may be a direct
+     * buffer or a {@link java.nio.MappedByteBuffer} region of a file and is written to the connection without going
+     * through the heap. Its content must not change until requests using this input are complete. Position, limit and
+     * byte order of data are left unchanged.
+     *
+     * @param data tensor data in binary format, its size must match input shape given in constructor.
+     */
+    public void setData(ByteBuffer data) {
+        Preconditions.checkNotNull(data, "data should not be null.");
+        ByteBuffer binary = data.slice();
+        if (this.dataType == DataType.BYTES) {
+            ByteBuffer buf = binary.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            long count = 0;
+            while (buf.remaining() >= 4) {
+                int len = buf.getInt();
+                Preconditions.checkArgument(len >= 0 && len <= buf.remaining(),
+                    "Malformed BYTES element %s of input %s.", count, this.name);
+                buf.position(buf.position() + len);
+                count++;
+            }
+            Preconditions.checkArgument(!buf.hasRemaining() && count == this.numElement,
+                "Data of input %s holds %s BYTES elements, expect %s.", this.name, count, this.numElement);
+        } else {
+            Preconditions.checkArgument(binary.remaining() == this.numElement * this.dataType.numByte,
+                "Data of input %s holds %s bytes, expect %s.", this.name, binary.remaining(),
+                this.numElement * this.dataType.numByte);
+        }
+        this.releaseBinaryData();
+        this.binaryData = binary;
+        this.updateBinaryDataSize();
+    }
+
+    /**
+     * Encode a primitive array, or elements for BYTES, as binary data, into a pooled array if there is a pool.
+     */
+    private void setBinaryDataImpl(Object array) {
+        this.releaseBinaryData();
+        if (this.bufferPool != null) {
+            int size = this.dataType == DataType.BYTES ? BinaryProtocol.bytesLength((Object[])array)
+                : Array.getLength(array) * this.dataType.numByte;
+            this.pooledBuffer = this.bufferPool.acquire(size);
+            this.binaryData = ByteBuffer.wrap(this.pooledBuffer.array(), 0, size).slice();
+            BinaryProtocol.encode(this.dataType, array, this.binaryData);
+        } else {
+            this.binaryData = ByteBuffer.wrap(BinaryProtocol.toBytes(this.dataType, array));
+        }
+        this.updateBinaryDataSize();
+    }
+
     private void updateBinaryDataSize() {
-        this.parameters.put(Parameters.KEY_BINARY_DATA_SIZE, this.binaryData.length);
+        this.removeSharedMemory();
+        this.data = null;
+        this.parameters.put(Parameters.KEY_BINARY_DATA_SIZE, this.binaryData.remaining());
+    }
+
+    /**
+     * Drop binary data, returning its array to the pool once no request in flight uses it.
+     */
+    private void releaseBinaryData() {
+        if (this.pooledBuffer != null) {
+            this.pooledBuffer.release();
+            this.pooledBuffer = null;
+        }
+        this.binaryData = null;
+    }
+
+    /**
+     * Drop tensor data of this input and return its pooled array, if any. Data must be set again before this input is
+     * used in another request.
+     */
+    public void release() {
+        this.releaseBinaryData();
+        this.data = null;
+        this.parameters.remove(Parameters.KEY_BINARY_DATA_SIZE);
+    }
+
+    /**
+     * Let server read tensor data from a registered system shared memory region instead of request body. Tensor data
+     * must have been written into the region in binary format before inference.
+     *
+     * @param regionName name of the region registered on server.
+     * @param byteSize   size of tensor data in bytes.
+     * @param offset     offset of tensor data in region.
+     */
+    public void setSharedMemory(String regionName, long byteSize, long offset) {
+        Preconditions.checkArgument(!Util.isEmpty(regionName), "regionName should not be null or empty.");
+        if (this.dataType != DataType.BYTES) {
+            Preconditions.checkArgument(byteSize == this.numElement * this.dataType.numByte,
+                "Shared memory size %s does not match shape of input %s.", byteSize, this.name);
+        }
+        this.releaseBinaryData();
+        this.data = null;
+        this.parameters.remove(Parameters.KEY_BINARY_DATA_SIZE);
+        this.parameters.put(Parameters.KEY_SHARED_MEMORY_REGION, regionName);
+        this.parameters.put(Parameters.KEY_SHARED_MEMORY_BYTE_SIZE, byteSize);
+        if (offset != 0) {
+            this.parameters.put(Parameters.KEY_SHARED_MEMORY_OFFSET, offset);
+        }
+    }
+
+    /**
+     * Let server read tensor data from a mapped system shared memory region, see
+     * {@link #setSharedMemory(String, long, long)}.
+     */
+    public void setSharedMemory(SystemSharedMemoryRegion region, long byteSize, long offset) {
+        this.setSharedMemory(region.getName(), byteSize, offset);
+    }
+
+    /**
+     * Write tensor data of this input into a mapped system shared memory region in binary format, then let server read
+     * it from there, see {@link #setSharedMemory(String, long, long)}. Data is dropped from this input afterwards.
+     *
+     * @param region the region, which must have been registered on server.
+     * @param offset offset of tensor data in region.
+     * @return size of tensor data written, in bytes.
+     */
+    public int writeToSharedMemory(SystemSharedMemoryRegion region, int offset) {
+        Preconditions.checkState(this.data != null || this.binaryData != null, "Input %s has no data.", this.name);
+        int size;
+        if (this.binaryData != null) {
+            size = this.binaryData.remaining();
+            region.asByteBuffer(offset, size).put(this.binaryData.duplicate());
+        } else {
+            size = this.dataType == DataType.BYTES ? BinaryProtocol.bytesLength((Object[])this.data)
+                : Array.getLength(this.data) * this.dataType.numByte;
+            BinaryProtocol.encode(this.dataType, this.data, region.asByteBuffer(offset, size));
+        }
+        this.setSharedMemory(region, size, offset);
+        return size;
+    }
+
+    boolean isSharedMemory() {
+        return this.parameters.getString(Parameters.KEY_SHARED_MEMORY_REGION) != null;
+    }
+
+    private void removeSharedMemory() {
+        this.parameters.remove(Parameters.KEY_SHARED_MEMORY_REGION);
+        this.parameters.remove(Parameters.KEY_SHARED_MEMORY_BYTE_SIZE);
+        this.parameters.remove(Parameters.KEY_SHARED_MEMORY_OFFSET);
     }
 
     public String getName() {
         return name;
     }
 
+    long[] getShape() {
+        return shape;
+    }
+
+    DataType getDataType() {
+        return dataType;
+    }
+
+    Parameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Concatenate inputs of the same name, datatype and encoding along dimension 0.
+     *
+     * @param parts inputs to concatenate, their shapes may only differ in dimension 0.
+     * @return a new input holding data of all parts in order.
+     */
+    static InferInput concat(List<InferInput> parts) {
+        Preconditions.checkArgument(!parts.isEmpty(), "Nothing to concatenate.");
+        InferInput first = parts.get(0);
+        long rows = 0;
+        int binaryLen = 0;
+        int jsonLen = 0;
+        for (InferInput part : parts) {
+            Preconditions.checkArgument(part.name.equals(first.name) && part.dataType == first.dataType
+                    && part.shape.length == first.shape.length && (part.binaryData == null) == (first.binaryData == null),
+                "Input %s could not be concatenated.", part.name);
+            for (int i = 1; i < part.shape.length; i++) {
+                Preconditions.checkArgument(part.shape[i] == first.shape[i],
+                    "Input %s differs in dimension %s.", part.name, i);
+            }
+            rows += part.shape[0];
+            if (part.binaryData != null) {
+                binaryLen += part.binaryData.remaining();
+            } else {
+                jsonLen += Array.getLength(part.data);
+            }
+        }
+        long[] shape = first.shape.clone();
+        shape[0] = rows;
+        InferInput ret = new InferInput(first.name, shape, first.dataType);
+        if (first.binaryData != null) {
+            ByteBuffer buf = ByteBuffer.allocate(binaryLen);
+            for (InferInput part : parts) {
+                buf.put(part.binaryData.duplicate());
+            }
+            buf.flip();
+            ret.binaryData = buf;
+            ret.updateBinaryDataSize();
+        } else {
+            ret.data = Array.newInstance(first.data.getClass().getComponentType(), jsonLen);
+            int pos = 0;
+            for (InferInput part : parts) {
+                int len = Array.getLength(part.data);
+                System.arraycopy(part.data, 0, ret.data, pos, len);
+                pos += len;
+            }
+        }
+        return ret;
+    }
+
     IOTensor getTensor() {
-        Preconditions.checkArgument(this.binaryData != null || this.data != null,
+        Preconditions.checkArgument(this.binaryData != null || this.data != null || this.isSharedMemory(),
             ".setData method not call on InferInput %s", this.name);
         IOTensor tensor = new IOTensor();
         tensor.setName(this.name);
         tensor.setDatatype(this.dataType);
         tensor.setShape(this.shape);
         tensor.setParameters(this.parameters);
-        tensor.setData(this.data);
+        tensor.setData(this.getJSONData());
         return tensor;
     }
 
     /**
-     * Get binary representation of tensor data of this inference input.
+     * Get binary representation of tensor data of this inference input as an exact array, copied if the data is in a
+     * larger pooled array.
      *
      * @return null if this inference input is in JSON format.
      */
     byte[] getBinaryData() {
-        return binaryData;
+        ByteBuffer buf = this.binaryData;
+        if (buf == null) {
+            return null;
+        }
+        if (buf.hasArray() && buf.arrayOffset() == 0 && buf.array().length == buf.remaining()) {
+            return buf.array();
+        }
+        byte[] ret = new byte[buf.remaining()];
+        buf.duplicate().get(ret);
+        return ret;
     }
 
-    Object[] getJSONData() {
+    /**
+     * Get binary representation of tensor data of this inference input without copying.
+     *
+     * @return a new view of the data, or null if this inference input is in JSON format.
+     */
+    ByteBuffer getBinaryBuffer() {
+        return this.binaryData == null ? null : this.binaryData.duplicate();
+    }
+
+    /**
+     * Get pooled array holding binary data.
+     *
+     * @return null if binary data is not pooled.
+     */
+    PooledBuffer getPooledBuffer() {
+        return this.pooledBuffer;
+    }
+
+    /**
+     * Get JSON data as primitive array, see {@link #data}.
+     *
+     * @return null if this inference input is not in JSON format.
+     */
+    Object getJSONDataArray() {
         return this.data;
     }
+
+    /**
+     * Get JSON data boxed, unsigned values are converted to their numeric value.
+     *
+     * @return null if this inference input is not in JSON format.
+     */
+    Object[] getJSONData() {
+        return this.data == null ? null : Util.boxArray(this.dataType, this.data);
+    }
 }
@@ -0,0 +1,243 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.Parameters;
+
+/**
+ * Writes the JSON header of a v2 inference request with a streaming {@link JsonGenerator}, straight from the fields of
+ * {@link InferArguments}, {@link InferInput} and {@link InferRequestedOutput}. JSON tensor data is written from its
+ * primitive array element by element, unsigned types included, so nothing is boxed and no intermediate tree or
+ * String is built. Output goes to a per-thread buffer that is reused across requests, only the final byte[] is
+ * allocated.
+ */
+final class InferRequestEncoder {
+
+    private static final int INIT_BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER =
+        ThreadLocal.withInitial(() -> new ByteArrayBuilder(INIT_BUFFER_SIZE));
+
+    private InferRequestEncoder() {
+    }
+
+    /**
+     * Encode JSON header of an inference request.
+     *
+     * @param arg inference arguments.
+     * @return UTF-8 encoded JSON.
+     * @throws IOException if a parameter value could not be written.
+     */
+    static byte[] encode(InferArguments arg) throws IOException {
+        ByteArrayBuilder buf = BUFFER.get();
+        buf.reset();
+        try (JsonGenerator gen = Util.createJsonGenerator(buf)) {
+            write(arg, gen);
+        }
+        return buf.toByteArray();
+    }
+
+    static void write(InferArguments arg, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        if (!Util.isEmpty(arg.requestId)) {
+            gen.writeStringField("id", arg.requestId);
+        }
+
+        gen.writeArrayFieldStart("inputs");
+        for (InferInput input : arg.inputs) {
+            writeInput(input, gen);
+        }
+        gen.writeEndArray();
+
+        boolean hasOutputs = !Util.isEmpty(arg.outputs);
+        if (hasOutputs) {
+            gen.writeArrayFieldStart("outputs");
+            for (InferRequestedOutput output : arg.outputs) {
+                gen.writeStartObject();
+                gen.writeStringField("name", output.getName());
+                writeParameters(output.getParameters(), gen);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        if (arg.sequenceId != 0 || arg.priority != 0 || arg.timeout > 0 || !hasOutputs) {
+            gen.writeObjectFieldStart("parameters");
+            if (arg.sequenceId != 0) {
+                gen.writeNumberField("sequence_id", arg.sequenceId);
+                gen.writeBooleanField("sequence_start", arg.sequenceStart);
+                gen.writeBooleanField("sequence_end", arg.sequenceEnd);
+            }
+            if (arg.priority != 0) {
+                gen.writeNumberField("priority", arg.priority);
+            }
+            if (arg.timeout > 0) {
+                gen.writeNumberField("timeout", arg.timeout);
+            }
+            if (!hasOutputs) {
+                // Looks strange, just do as in Triton's python SDK.
+                gen.writeBooleanField("binary_data_output", true);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeInput(InferInput input, JsonGenerator gen) throws IOException {
+        Object data = input.getJSONDataArray();
+        if (data == null && input.getBinaryBuffer() == null && !input.isSharedMemory()) {
+            throw new IllegalArgumentException(String.format(".setData method not call on InferInput %s",
+                input.getName()));
+        }
+        gen.writeStartObject();
+        gen.writeStringField("name", input.getName());
+        long[] shape = input.getShape();
+        gen.writeFieldName("shape");
+        gen.writeArray(shape, 0, shape.length);
+        gen.writeStringField("datatype", input.getDataType().name());
+        writeParameters(input.getParameters(), gen);
+        if (data != null) {
+            gen.writeFieldName("data");
+            writeData(input.getDataType(), data, gen);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeParameters(Parameters parameters, JsonGenerator gen) throws IOException {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        gen.writeObjectFieldStart("parameters");
+        for (Map.Entry<String, Object> e : parameters.entrySet()) {
+            gen.writeFieldName(e.getKey());
+            Object value = e.getValue();
+            if (value instanceof Boolean) {
+                gen.writeBoolean((Boolean)value);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+                gen.writeNumber(((Number)value).longValue());
+            } else if (value instanceof String) {
+                gen.writeString((String)value);
+            } else {
+                gen.writeObject(value);
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Write tensor data as a flat JSON array.
+     *
+     * @param dataType data type of tensor.
+     * @param data     primitive array matching data type, or String[] for BYTES.
+     */
+    static void writeData(DataType dataType, Object data, JsonGenerator gen) throws IOException {
+        switch (dataType) {
+            case BOOL: {
+                boolean[] arr = (boolean[])data;
+                gen.writeStartArray();
+                for (boolean v : arr) {
+                    gen.writeBoolean(v);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case INT8:
+            case UINT8: {
+                byte[] arr = (byte[])data;
+                boolean unsigned = dataType == DataType.UINT8;
+                gen.writeStartArray();
+                for (byte v : arr) {
+                    gen.writeNumber(unsigned ? v & 0xFF : v);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case INT16:
+            case UINT16: {
+                short[] arr = (short[])data;
+                boolean unsigned = dataType == DataType.UINT16;
+                gen.writeStartArray();
+                for (short v : arr) {
+                    gen.writeNumber(unsigned ? v & 0xFFFF : v);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case INT32: {
+                int[] arr = (int[])data;
+                gen.writeArray(arr, 0, arr.length);
+                break;
+            }
+            case UINT32: {
+                int[] arr = (int[])data;
+                gen.writeStartArray();
+                for (int v : arr) {
+                    gen.writeNumber(v & 0xFFFFFFFFL);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case INT64: {
+                long[] arr = (long[])data;
+                gen.writeArray(arr, 0, arr.length);
+                break;
+            }
+            case UINT64: {
+                long[] arr = (long[])data;
+                gen.writeStartArray();
+                for (long v : arr) {
+                    if (v >= 0) {
+                        gen.writeNumber(v);
+                    } else {
+                        gen.writeNumber(Long.toUnsignedString(v));
+                    }
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case FP32: {
+                float[] arr = (float[])data;
+                gen.writeStartArray();
+                for (float v : arr) {
+                    gen.writeNumber(v);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            case FP64: {
+                double[] arr = (double[])data;
+                gen.writeArray(arr, 0, arr.length);
+                break;
+            }
+            case BYTES: {
+                String[] arr = (String[])data;
+                gen.writeStartArray();
+                for (String v : arr) {
+                    gen.writeString(v);
+                }
+                gen.writeEndArray();
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported JSON data type: " + dataType);
+        }
+    }
+
+    /**
+     * Encode tensor data alone, for tests and debugging.
+     */
+    static String encodeData(DataType dataType, Object data) throws IOException {
+        ByteArrayBuilder buf = new ByteArrayBuilder(INIT_BUFFER_SIZE);
+        try (JsonGenerator gen = Util.createJsonGenerator(buf)) {
+            writeData(dataType, data, gen);
+        }
+        return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,243 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Produces the body of an inference request, the JSON header followed by the binary tensors, by writing each segment
+ * to the connection as it is. Segments are never concatenated into one array, so a request holds no more heap than
+ * its tensors plus the JSON header.
+ * <p>
+ * A producer created from request path, headers and body is a template without target. {@link #toTarget(Target)}
+ * creates the producer of a single HTTP exchange sharing the same segments, one for each attempt.
+ * <p>
+ * Segments backed by pooled arrays are reference counted: the template and every exchange producer hold a reference
+ * until closed, the HTTP client closes an exchange producer once the exchange is over. So an array is not recycled
+ * while a hedged or cancelled attempt may still be writing it.
+ */
+class InferRequestProducer implements HttpAsyncRequestProducer {
+
+    private final HttpHost target;
+    private final String requestUri;
+    private final Map<String, String> headers;
+    /**
+     * Body segments in order, they are never consumed.
+     */
+    private final ByteBuffer[] segments;
+    private final long contentLength;
+    /**
+     * Pooled arrays backing segments, one reference on each is held until close.
+     */
+    private final PooledBuffer[] buffers;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * Read views of segments for the current exchange.
+     */
+    private final ByteBuffer[] pending;
+    private int current = 0;
+
+    /**
+     * When the body started and finished being written, 0 until then.
+     */
+    private volatile long sendStartNanos;
+    private volatile long sendEndNanos;
+    /**
+     * Flight recorder event of waiting for a connection, ended once the body starts being written, null if disabled.
+     */
+    private volatile Object leaseEvent;
+
+    /**
+     * Create a request template without target.
+     *
+     * @param requestUri path and query of request, relative to endpoint.
+     * @param headers    request headers.
+     * @param segments   request body segments in order.
+     */
+    InferRequestProducer(String requestUri, Map<String, String> headers, List<ByteBuffer> segments) {
+        this(requestUri, headers, segments, Collections.emptyList());
+    }
+
+    /**
+     * Create a request template without target.
+     *
+     * @param requestUri path and query of request, relative to endpoint.
+     * @param headers    request headers.
+     * @param segments   request body segments in order.
+     * @param buffers    pooled arrays backing segments, the caller hands over one reference on each.
+     */
+    InferRequestProducer(String requestUri, Map<String, String> headers, List<ByteBuffer> segments,
+                         List<PooledBuffer> buffers) {
+        this(null, requestUri, headers, segments.toArray(new ByteBuffer[0]), buffers.toArray(new PooledBuffer[0]));
+    }
+
+    private InferRequestProducer(HttpHost target, String requestUri, Map<String, String> headers,
+                                 ByteBuffer[] segments, PooledBuffer[] buffers) {
+        this.target = target;
+        this.buffers = buffers;
+        this.requestUri = requestUri;
+        this.headers = headers;
+        this.segments = segments;
+        this.pending = new ByteBuffer[segments.length];
+        long len = 0;
+        for (ByteBuffer segment : segments) {
+            len += segment.remaining();
+        }
+        this.contentLength = len;
+        this.resetRequest();
+    }
+
+    /**
+     * Create a producer sending this request to a target.
+     *
+     * @param target parsed endpoint address.
+     * @return a new producer sharing body segments with this one.
+     */
+    InferRequestProducer toTarget(Target target) {
+        for (int i = 0; i < this.buffers.length; i++) {
+            try {
+                this.buffers[i].retain();
+            } catch (IllegalStateException e) {
+                for (int j = 0; j < i; j++) {
+                    this.buffers[j].release();
+                }
+                throw e;
+            }
+        }
+        return new InferRequestProducer(target.host, target.pathPrefix + this.requestUri, this.headers,
+            this.segments, this.buffers);
+    }
+
+    String getRequestUri() {
+        return this.target == null ? this.requestUri : this.target.toURI() + this.requestUri;
+    }
+
+    long getContentLength() {
+        return this.contentLength;
+    }
+
+    long getSendStartNanos() {
+        return this.sendStartNanos;
+    }
+
+    long getSendEndNanos() {
+        return this.sendEndNanos;
+    }
+
+    Object getLeaseEvent() {
+        return this.leaseEvent;
+    }
+
+    void setLeaseEvent(Object leaseEvent) {
+        this.leaseEvent = leaseEvent;
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return this.target;
+    }
+
+    @Override
+    public HttpRequest generateRequest() {
+        HttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", this.requestUri);
+        this.headers.forEach(request::setHeader);
+        // Entity only describes the body for header generation, content is written by produceContent.
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContentLength(this.contentLength);
+        request.setEntity(entity);
+        return request;
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+        if (this.sendStartNanos == 0) {
+            this.sendStartNanos = System.nanoTime();
+            FlightRecorderEvents.end(this.leaseEvent);
+        }
+        // ContentEncoder has no gathering write and its channel is not exposed, writing around the encoder would break
+        // its accounting of the content length. The encoder copies a segment smaller than the fragment size hint, the
+        // session buffer size by default, into the session buffer, so the request line, headers, JSON header and small
+        // tensors go out in one socket write. Larger segments are written straight from their arrays.
+        while (this.current < this.pending.length) {
+            ByteBuffer buf = this.pending[this.current];
+            encoder.write(buf);
+            if (buf.hasRemaining()) {
+                // Channel is full, wait for next output-ready event.
+                return;
+            }
+            this.current++;
+        }
+        encoder.complete();
+    }
+
+    @Override
+    public void requestCompleted(HttpContext context) {
+        this.sendEndNanos = System.nanoTime();
+    }
+
+    @Override
+    public void failed(Exception ex) {
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public void resetRequest() {
+        for (int i = 0; i < this.segments.length; i++) {
+            this.pending[i] = this.segments[i].duplicate();
+        }
+        this.current = 0;
+    }
+
+    /**
+     * Drop references on pooled arrays of the body, only the first call has effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            for (PooledBuffer buffer : this.buffers) {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * Endpoint address parsed into host and path prefix, worth caching as endpoints hand out few addresses.
+     */
+    static final class Target {
+        final HttpHost host;
+        final String pathPrefix;
+
+        private Target(HttpHost host, String pathPrefix) {
+            this.host = host;
+            this.pathPrefix = pathPrefix;
+        }
+
+        /**
+         * @param endpoint endpoint in host:port[/path] format.
+         */
+        static Target parse(String endpoint) {
+            URI base = URI.create("http://" + endpoint);
+            return new Target(URIUtils.extractHost(base), base.getRawPath() == null ? "" : base.getRawPath());
+        }
+    }
+}
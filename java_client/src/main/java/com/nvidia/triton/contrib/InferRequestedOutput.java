@@ -1,7 +1,11 @@
 package com.nvidia.triton.contrib;
 
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Preconditions;
 import com.nvidia.triton.contrib.pojo.Parameters;
 import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.nvidia.triton.contrib.shm.SystemSharedMemoryRegion;
 
 /**
  * @author xiafei.qiuxf
@@ -30,6 +34,11 @@ public class InferRequestedOutput {
 
     private final Parameters parameters = new Parameters();
 
+    /**
+     * View of the shared memory region the server writes this output into, null if output is returned in response.
+     */
+    private ByteBuffer sharedMemory;
+
     public InferRequestedOutput(String name, boolean isBinary, int classCount) {
         this.name = name;
         this.isBinary = isBinary;
@@ -49,6 +58,61 @@ public class InferRequestedOutput {
         this(name, isBinary, 0);
     }
 
+    /**
+     * Let server write this output into a registered system shared memory region instead of response body.
+     *
+     * @param regionName name of the region registered on server.
+     * @param byteSize   size reserved for output in bytes.
+     * @param offset     offset of output in region.
+     */
+    public void setSharedMemory(String regionName, long byteSize, long offset) {
+        Preconditions.checkArgument(!Util.isEmpty(regionName), "regionName should not be null or empty.");
+        Preconditions.checkArgument(this.classCount == 0, "Classification output could not use shared memory.");
+        this.parameters.remove("binary_data");
+        this.parameters.put(Parameters.KEY_SHARED_MEMORY_REGION, regionName);
+        this.parameters.put(Parameters.KEY_SHARED_MEMORY_BYTE_SIZE, byteSize);
+        if (offset != 0) {
+            this.parameters.put(Parameters.KEY_SHARED_MEMORY_OFFSET, offset);
+        }
+    }
+
+    /**
+     * Let server write this output into a mapped system shared memory region. {@link InferResult} reads the output
+     * back from the mapping, so the getters work as if it was returned in response.
+     *
+     * @param region   the region, which must have been registered on server.
+     * @param byteSize size reserved for output in bytes.
+     * @param offset   offset of output in region.
+     */
+    public void setSharedMemory(SystemSharedMemoryRegion region, int byteSize, int offset) {
+        this.setSharedMemory(region.getName(), byteSize, offset);
+        this.sharedMemory = region.asByteBuffer(offset, byteSize);
+    }
+
+    boolean isSharedMemory() {
+        return this.parameters.getString(Parameters.KEY_SHARED_MEMORY_REGION) != null;
+    }
+
+    ByteBuffer getSharedMemory() {
+        return sharedMemory;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Parameters getParameters() {
+        return parameters;
+    }
+
+    boolean isBinary() {
+        return isBinary;
+    }
+
+    int getClassCount() {
+        return classCount;
+    }
+
     public IOTensor getTensor() {
         IOTensor tensor = new IOTensor();
         tensor.setName(this.name);
@@ -0,0 +1,252 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.nvidia.triton.contrib.InferResult.Index;
+import com.nvidia.triton.contrib.pojo.InferenceResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Decodes an inference response while it arrives from the connection. The JSON header is parsed as soon as
+ * Inference-Header-Content-Length bytes are received, then binary_data_size of each output is used to allocate one
+ * buffer of the exact size of the binary part, and the remaining bytes are read from the connection straight into
+ * it. Outputs are never copied between the socket and {@link InferResult}.
+ * <p>
+ * Error responses and responses without binary outputs are buffered and parsed when complete.
+ * <p>
+ * With a {@link BufferPool}, the binary part is received into a pooled array handed over to the result, or released
+ * if no result is built.
+ */
+class InferResponseConsumer extends AbstractAsyncResponseConsumer<InferResult> {
+
+    private static final int INIT_BUFFER_SIZE = 4096;
+
+    private int httpCode;
+    /**
+     * Length of JSON header, -1 if the whole body is JSON.
+     */
+    private int headerLen = -1;
+    private long contentLength = -1;
+
+    /**
+     * Buffer receiving JSON header, or the whole body if there is no binary part.
+     */
+    private ByteBuffer headerBuf;
+    private InferenceResponse response;
+    private Map<String, Index> nameToBinaryIdx;
+    /**
+     * Buffer receiving binary outputs, allocated once the JSON header is parsed.
+     */
+    private byte[] binaryData;
+    private ByteBuffer binaryBuf;
+    private final BufferPool bufferPool;
+    /**
+     * Whether data of outputs in JSON format is decoded on first access, see {@link InferResponseDecoder}.
+     */
+    private final boolean lazy;
+    /**
+     * Pooled array holding binaryData until handed over to result.
+     */
+    private PooledBuffer pooledBuffer;
+
+    /**
+     * When the response status and headers were received, 0 until then.
+     */
+    private volatile long responseNanos;
+    /**
+     * Time spent parsing the JSON header and building the result.
+     */
+    private volatile long decodeNanos;
+    /**
+     * Bytes of body received so far, written by the IO thread only.
+     */
+    private volatile long receivedBytes;
+    /**
+     * Flight recorder event of parsing the JSON, ended but not committed, null if disabled.
+     */
+    private volatile Object decodeEvent;
+    private volatile int decodedBytes;
+
+    InferResponseConsumer() {
+        this(null, false);
+    }
+
+    /**
+     * @param bufferPool pool to receive binary outputs into, null to allocate.
+     * @param lazy       whether to decode data of outputs in JSON format on first access.
+     */
+    InferResponseConsumer(BufferPool bufferPool, boolean lazy) {
+        this.bufferPool = bufferPool;
+        this.lazy = lazy;
+    }
+
+    long getResponseNanos() {
+        return this.responseNanos;
+    }
+
+    long getDecodeNanos() {
+        return this.decodeNanos;
+    }
+
+    long getReceivedBytes() {
+        return this.receivedBytes;
+    }
+
+    Object getDecodeEvent() {
+        return this.decodeEvent;
+    }
+
+    int getDecodedBytes() {
+        return this.decodedBytes;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse resp) {
+        this.responseNanos = System.nanoTime();
+        this.httpCode = resp.getStatusLine().getStatusCode();
+        Header header = resp.getFirstHeader("Inference-Header-Content-Length");
+        if (header != null && this.httpCode == HttpStatus.SC_OK) {
+            this.headerLen = Integer.parseInt(header.getValue());
+        }
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        this.contentLength = entity.getContentLength();
+        if (this.headerLen >= 0) {
+            this.headerBuf = ByteBuffer.allocate(this.headerLen);
+        } else {
+            int size = this.contentLength >= 0 && this.contentLength <= Integer.MAX_VALUE
+                ? (int)this.contentLength : INIT_BUFFER_SIZE;
+            this.headerBuf = ByteBuffer.allocate(size);
+        }
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        if (this.headerLen < 0) {
+            this.readWholeBody(decoder);
+            return;
+        }
+        if (this.binaryBuf == null) {
+            int n = decoder.read(this.headerBuf);
+            if (n > 0) {
+                this.receivedBytes += n;
+            }
+            if (n < 0 || this.headerBuf.hasRemaining()) {
+                return;
+            }
+            long start = System.nanoTime();
+            this.onHeaderReceived();
+            this.decodeNanos += System.nanoTime() - start;
+        }
+        while (this.binaryBuf.hasRemaining()) {
+            int n = decoder.read(this.binaryBuf);
+            if (n <= 0) {
+                return;
+            }
+            this.receivedBytes += n;
+        }
+        if (!decoder.isCompleted()) {
+            // Everything expected is here, anything more is malformed.
+            ByteBuffer extra = ByteBuffer.allocate(1);
+            if (decoder.read(extra) > 0) {
+                throw new IOException("Response body is longer than its header describes.");
+            }
+        }
+    }
+
+    private void readWholeBody(ContentDecoder decoder) throws IOException {
+        while (true) {
+            if (!this.headerBuf.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(this.headerBuf.capacity() * 2);
+                this.headerBuf.flip();
+                larger.put(this.headerBuf);
+                this.headerBuf = larger;
+            }
+            int n = decoder.read(this.headerBuf);
+            if (n <= 0) {
+                return;
+            }
+            this.receivedBytes += n;
+        }
+    }
+
+    private void onHeaderReceived() throws IOException {
+        Object event = FlightRecorderEvents.beginDecode();
+        this.response = InferResponseDecoder.decode(this.headerBuf.array(), 0, this.headerLen, this.lazy);
+        FlightRecorderEvents.end(event);
+        this.decodeEvent = event;
+        this.decodedBytes = this.headerLen;
+        this.nameToBinaryIdx = new HashMap<>();
+        int binaryLen = InferResult.indexBinaryOutputs(this.response, this.nameToBinaryIdx);
+        if (this.contentLength >= 0 && this.contentLength != (long)this.headerLen + binaryLen) {
+            throw new IOException(String.format("Content length %d does not match header length %d plus binary "
+                + "data length %d.", this.contentLength, this.headerLen, binaryLen));
+        }
+        if (this.bufferPool == null) {
+            this.binaryData = new byte[binaryLen];
+        } else {
+            this.pooledBuffer = this.bufferPool.acquire(binaryLen);
+            this.binaryData = this.pooledBuffer.array();
+        }
+        this.binaryBuf = ByteBuffer.wrap(this.binaryData, 0, binaryLen);
+    }
+
+    @Override
+    protected InferResult buildResult(HttpContext context) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return this.doBuildResult();
+        } finally {
+            this.decodeNanos += System.nanoTime() - start;
+        }
+    }
+
+    private InferResult doBuildResult() throws Exception {
+        if (this.httpCode != HttpStatus.SC_OK) {
+            int len = this.headerBuf == null ? 0 : this.headerBuf.position();
+            throw InferResult.errorFromBody(this.httpCode, len == 0 ? new byte[0] : this.headerBuf.array(), len);
+        }
+        if (this.headerLen < 0) {
+            if (this.headerBuf == null) {
+                throw new InferenceException("Get empty body from HTTP response.");
+            }
+            Object event = FlightRecorderEvents.beginDecode();
+            InferenceResponse resp = InferResponseDecoder.decode(this.headerBuf.array(), 0,
+                this.headerBuf.position(), this.lazy);
+            FlightRecorderEvents.end(event);
+            this.decodeEvent = event;
+            this.decodedBytes = this.headerBuf.position();
+            return new InferResult(resp, new HashMap<>(), null);
+        }
+        if (this.binaryBuf == null || this.binaryBuf.hasRemaining()) {
+            throw new InferenceException("Response body is shorter than its header describes.");
+        }
+        InferResult result = new InferResult(this.response, this.nameToBinaryIdx, this.binaryData,
+            this.pooledBuffer);
+        this.pooledBuffer = null;
+        return result;
+    }
+
+    @Override
+    protected void releaseResources() {
+        this.headerBuf = null;
+        this.binaryBuf = null;
+        if (this.pooledBuffer != null) {
+            this.pooledBuffer.release();
+            this.pooledBuffer = null;
+        }
+    }
+}
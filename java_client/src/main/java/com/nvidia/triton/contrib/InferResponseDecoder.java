@@ -0,0 +1,277 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.nvidia.triton.contrib.pojo.InferenceResponse;
+import com.nvidia.triton.contrib.pojo.Parameters;
+
+/**
+ * Reads the JSON header of a v2 inference response with a streaming {@link JsonParser}. Output data in JSON format is
+ * decoded token by token into a primitive array matching the declared datatype (String[] for BYTES), presized from
+ * the declared shape up to {@link #MAX_INIT_ARRAY_SIZE} elements and grown as data is read, and kept in
+ * {@link IOTensor#getDataArray()}. Nested data arrays are flattened in row-major order. Data appearing before its
+ * datatype is read boxed, as the object mapper does.
+ * <p>
+ * In lazy mode, data arrays are only skipped over and their position in the buffer is recorded, each one is decoded on
+ * first access of its output. Reading one of many outputs then only decodes that one. The buffer must not change while
+ * the response is used.
+ */
+final class InferResponseDecoder {
+
+    private static final int INIT_ARRAY_SIZE = 16;
+    /**
+     * Max elements presized from a declared shape, so that a bogus shape does not allocate more than the data holds.
+     */
+    private static final int MAX_INIT_ARRAY_SIZE = 1 << 16;
+
+    private InferResponseDecoder() {
+    }
+
+    /**
+     * Decode JSON header of an inference response.
+     *
+     * @param bytes  buffer holding JSON.
+     * @param offset offset of JSON in buffer.
+     * @param len    length of JSON in bytes.
+     * @return the response.
+     * @throws IOException if JSON is malformed.
+     */
+    static InferenceResponse decode(byte[] bytes, int offset, int len) throws IOException {
+        return decode(bytes, offset, len, false);
+    }
+
+    /**
+     * Decode JSON header of an inference response.
+     *
+     * @param bytes  buffer holding JSON.
+     * @param offset offset of JSON in buffer.
+     * @param len    length of JSON in bytes.
+     * @param lazy   whether to defer decoding of data arrays until accessed, malformed data is then reported as
+     *               {@link java.io.UncheckedIOException} on access.
+     * @return the response.
+     * @throws IOException if JSON is malformed.
+     */
+    static InferenceResponse decode(byte[] bytes, int offset, int len, boolean lazy) throws IOException {
+        try (JsonParser parser = Util.createJsonParser(bytes, offset, len)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            InferenceResponse response = new InferenceResponse();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "model_name":
+                        response.setModelName(parser.getValueAsString());
+                        break;
+                    case "model_version":
+                        response.setModelVersion(parser.getValueAsString());
+                        break;
+                    case "id":
+                        response.setId(parser.getValueAsString());
+                        break;
+                    case "parameters":
+                        response.setParameters(parser.readValueAs(Parameters.class));
+                        break;
+                    case "outputs":
+                        expect(parser, token, JsonToken.START_ARRAY);
+                        List<IOTensor> outputs = new ArrayList<>();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            outputs.add(decodeOutput(parser, lazy ? bytes : null, offset, response));
+                        }
+                        response.setOutputs(outputs);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * @param bytes    buffer being parsed to defer data decoding, null to decode data now.
+     * @param offset   offset of JSON in buffer.
+     * @param response response being decoded, for the model name of deferred decoding.
+     */
+    private static IOTensor decodeOutput(JsonParser parser, byte[] bytes, int offset, InferenceResponse response)
+        throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        IOTensor tensor = new IOTensor();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    tensor.setName(parser.getValueAsString());
+                    break;
+                case "datatype":
+                    tensor.setDatatype(DataType.valueOf(parser.getValueAsString()));
+                    break;
+                case "shape":
+                    tensor.setShape(parser.readValueAs(long[].class));
+                    break;
+                case "parameters":
+                    tensor.setParameters(parser.readValueAs(Parameters.class));
+                    break;
+                case "data":
+                    if (tensor.getDatatype() == null) {
+                        tensor.setData(parser.readValueAs(Object[].class));
+                    } else if (bytes != null) {
+                        expect(parser, token, JsonToken.START_ARRAY);
+                        int start = offset + (int)parser.getTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        int end = offset + (int)parser.getCurrentLocation().getByteOffset();
+                        tensor.setDataLoader(() -> decodeData(bytes, start, end - start, tensor, response));
+                    } else {
+                        expect(parser, token, JsonToken.START_ARRAY);
+                        tensor.setDataArray(decodeData(parser, tensor.getDatatype(), tensor.getShape()));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return tensor;
+    }
+
+    /**
+     * Decode a deferred JSON data array, on first access of the output from {@link InferResult}.
+     */
+    private static Object decodeData(byte[] bytes, int offset, int len, IOTensor tensor,
+                                     InferenceResponse response) {
+        Object event = FlightRecorderEvents.beginDecode();
+        try (JsonParser parser = Util.createJsonParser(bytes, offset, len)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            Object data = decodeData(parser, tensor.getDatatype(), tensor.getShape());
+            FlightRecorderEvents.commitDecode(event, null, response.getModelName(), null, tensor.getName(), len);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode a JSON data array, the parser is at its START_ARRAY token.
+     *
+     * @return primitive array matching data type.
+     */
+    static Object decodeData(JsonParser parser, DataType dataType, long[] shape) throws IOException {
+        long elemNum = shape == null ? INIT_ARRAY_SIZE : Util.elemNumFromShape(shape);
+        int capacity = (int)Math.max(0, Math.min(elemNum, MAX_INIT_ARRAY_SIZE));
+        Object array = newArray(parser, dataType, capacity);
+        int size = 0;
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                depth++;
+                continue;
+            }
+            if (token == JsonToken.END_ARRAY) {
+                depth--;
+                continue;
+            }
+            if (size == capacity) {
+                capacity = Math.max(INIT_ARRAY_SIZE, capacity * 2);
+                array = resize(array, size, capacity);
+            }
+            switch (dataType) {
+                case BOOL:
+                    if (token != JsonToken.VALUE_TRUE && token != JsonToken.VALUE_FALSE) {
+                        throw new JsonParseException(parser, "Expect boolean but got " + token + ".");
+                    }
+                    ((boolean[])array)[size] = token == JsonToken.VALUE_TRUE;
+                    break;
+                case INT8:
+                case UINT8:
+                    ((byte[])array)[size] = (byte)parser.getIntValue();
+                    break;
+                case INT16:
+                case UINT16:
+                    ((short[])array)[size] = (short)parser.getIntValue();
+                    break;
+                case INT32:
+                    ((int[])array)[size] = parser.getIntValue();
+                    break;
+                case UINT32:
+                    ((int[])array)[size] = (int)parser.getLongValue();
+                    break;
+                case INT64:
+                    ((long[])array)[size] = parser.getLongValue();
+                    break;
+                case UINT64:
+                    ((long[])array)[size] = parser.getNumberType() == NumberType.BIG_INTEGER ?
+                        parser.getBigIntegerValue().longValue() : parser.getLongValue();
+                    break;
+                case FP32:
+                    ((float[])array)[size] = parser.getFloatValue();
+                    break;
+                case FP64:
+                    ((double[])array)[size] = parser.getDoubleValue();
+                    break;
+                case BYTES:
+                    expect(parser, token, JsonToken.VALUE_STRING);
+                    ((String[])array)[size] = parser.getText();
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unsupported JSON data type: " + dataType);
+            }
+            size++;
+        }
+        return size == capacity ? array : resize(array, size, size);
+    }
+
+    private static Object newArray(JsonParser parser, DataType dataType, int size) throws JsonParseException {
+        switch (dataType) {
+            case BOOL:
+                return new boolean[size];
+            case INT8:
+            case UINT8:
+                return new byte[size];
+            case INT16:
+            case UINT16:
+                return new short[size];
+            case INT32:
+            case UINT32:
+                return new int[size];
+            case INT64:
+            case UINT64:
+                return new long[size];
+            case FP32:
+                return new float[size];
+            case FP64:
+                return new double[size];
+            case BYTES:
+                return new String[size];
+            default:
+                throw new JsonParseException(parser, "Unsupported JSON data type: " + dataType);
+        }
+    }
+
+    private static Object resize(Object array, int size, int capacity) {
+        Object ret = Array.newInstance(array.getClass().getComponentType(), capacity);
+        System.arraycopy(array, 0, ret, 0, size);
+        return ret;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, String.format("Expect %s but got %s.", expected, actual));
+        }
+    }
+}
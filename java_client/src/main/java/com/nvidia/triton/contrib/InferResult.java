@@ -5,11 +5,18 @@ import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.annotations.VisibleForTesting;
@@ -29,8 +36,12 @@ import org.apache.http.HttpStatus;
 /**
  * An object of InferResult class holds the response of an inference request and provide methods to retrieve inference
  * results.
+ * <p>
+ * When the client receives responses into pooled arrays, see {@link InferenceServerClient#setBufferPool(BufferPool)},
+ * close the result once its outputs are consumed so that the array is reused. Views returned by getOutputAs*Buffer
+ * must not be used after close. Closing a result not backed by a pool has no effect.
  */
-public class InferResult {
+public class InferResult implements AutoCloseable {
 
     static class Index {
         int start;
@@ -43,10 +54,24 @@ public class InferResult {
     }
 
     private final InferenceResponse response;
+    /**
+     * Outputs by name, so that getters do not scan the output list.
+     */
+    private final Map<String, IOTensor> nameToOutput;
     private final Map<String, Index> nameToBinaryIdx;
     private final byte[] binaryData;
+    /**
+     * Pooled array holding binaryData, null if not pooled.
+     */
+    private final PooledBuffer buffer;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    /**
+     * Views of shared memory regions holding outputs which were not returned in response body.
+     */
+    private Map<String, ByteBuffer> sharedMemoryOutputs = Collections.emptyMap();
 
     public InferResult(HttpResponse resp) throws IOException, InferenceException {
+        this.buffer = null;
         HttpEntity entity = resp.getEntity();
         Preconditions.checkState(entity != null, "Get null entity from HTTP response.");
         InputStream stream = entity.getContent();
@@ -54,17 +79,7 @@ public class InferResult {
         int httpCode = resp.getStatusLine().getStatusCode();
         if (httpCode != HttpStatus.SC_OK) {
             byte[] bodyBytes = IOUtils.toByteArray(stream);
-            if (bodyBytes.length > 0) {
-                String bodyJson = new String(bodyBytes, Charsets.UTF_8);
-                try {
-                    ResponseError err = Util.fromJson(bodyJson, ResponseError.class);
-                    throw new InferenceException(err.getError());
-                } catch (JsonProcessingException e) {
-                    throw new InferenceException("Malformed error response: " + bodyJson);
-                }
-            } else {
-                throw new InferenceException("Inference return status: " + httpCode);
-            }
+            throw errorFromBody(httpCode, bodyBytes, bodyBytes.length);
         }
 
         this.nameToBinaryIdx = new HashMap<>();
@@ -76,35 +91,117 @@ public class InferResult {
             int readLen = stream.read(bodyBytes);
             Preconditions.checkState(readLen == jsonLen,
                 "Expect content length: %d, but got %d.", jsonLen, readLen);
-            String bodyJson = new String(bodyBytes, Charsets.UTF_8);
-            this.response = Util.fromJson(bodyJson, InferenceResponse.class);
+            Object event = FlightRecorderEvents.beginDecode();
+            this.response = InferResponseDecoder.decode(bodyBytes, 0, jsonLen);
+            FlightRecorderEvents.commitDecode(event, null, this.response.getModelName(), null, null, jsonLen);
 
             // Construct name to binary index mapping.
-            int startPos = 0;
-            for (IOTensor output : this.response.getOutputs()) {
-                Parameters param = output.getParameters();
-                if (param == null) { continue; }
-                Integer size = param.getInt(Parameters.KEY_BINARY_DATA_SIZE);
-                if (size == null) { continue; }
-                this.nameToBinaryIdx.put(output.getName(), new Index(startPos, size));
-                startPos += size;
-            }
+            int binaryLen = indexBinaryOutputs(this.response, this.nameToBinaryIdx);
 
             // Read and check binary data.
             this.binaryData = IOUtils.toByteArray(stream);
-            Preconditions.checkState(this.binaryData.length == startPos);
+            Preconditions.checkState(this.binaryData.length == binaryLen);
         } else {
-            String bodyJson = new String(IOUtils.toByteArray(stream), Charsets.UTF_8);
-            this.response = Util.fromJson(bodyJson, InferenceResponse.class);
+            byte[] bodyBytes = IOUtils.toByteArray(stream);
+            Object event = FlightRecorderEvents.beginDecode();
+            this.response = InferResponseDecoder.decode(bodyBytes, 0, bodyBytes.length);
+            FlightRecorderEvents.commitDecode(event, null, this.response.getModelName(), null, null,
+                bodyBytes.length);
             this.binaryData = null;
         }
+        this.nameToOutput = indexOutputs(this.response);
+    }
+
+    private static Map<String, IOTensor> indexOutputs(InferenceResponse response) {
+        List<IOTensor> outputs = response.getOutputs();
+        if (outputs == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, IOTensor> ret = new HashMap<>(outputs.size() * 2);
+        for (IOTensor output : outputs) {
+            // First one wins on duplicate names, like a scan of the list.
+            ret.putIfAbsent(output.getName(), output);
+        }
+        return ret;
+    }
+
+    /**
+     * Create the exception for a response of non-200 status.
+     *
+     * @param httpCode HTTP status code.
+     * @param body     buffer holding response body.
+     * @param length   length of response body in buffer.
+     * @return exception carrying the error message from server if any.
+     */
+    static InferenceException errorFromBody(int httpCode, byte[] body, int length) {
+        if (length > 0) {
+            String bodyJson = new String(body, 0, length, Charsets.UTF_8);
+            try {
+                ResponseError err = Util.fromJson(bodyJson, ResponseError.class);
+                return new InferenceException(httpCode, err.getError());
+            } catch (JsonProcessingException e) {
+                return new InferenceException(httpCode, "Malformed error response: " + bodyJson);
+            }
+        }
+        return new InferenceException(httpCode, "Inference return status: " + httpCode);
+    }
+
+    /**
+     * Locate binary outputs in the binary part of response body, which holds outputs in the order they appear in the
+     * JSON header.
+     *
+     * @param response        JSON header of response.
+     * @param nameToBinaryIdx map to fill with output name to position in the binary part.
+     * @return size of the binary part.
+     */
+    static int indexBinaryOutputs(InferenceResponse response, Map<String, Index> nameToBinaryIdx) {
+        int startPos = 0;
+        for (IOTensor output : response.getOutputs()) {
+            Parameters param = output.getParameters();
+            if (param == null) { continue; }
+            Integer size = param.getInt(Parameters.KEY_BINARY_DATA_SIZE);
+            if (size == null) { continue; }
+            nameToBinaryIdx.put(output.getName(), new Index(startPos, size));
+            startPos += size;
+        }
+        return startPos;
     }
 
     @VisibleForTesting
     InferResult(InferenceResponse response, Map<String, Index> nameToBinaryIdx, byte[] binaryData) {
+        this(response, nameToBinaryIdx, binaryData, null);
+    }
+
+    /**
+     * @param buffer pooled array holding binaryData, this result takes over one reference on it. Null if not pooled.
+     */
+    InferResult(InferenceResponse response, Map<String, Index> nameToBinaryIdx, byte[] binaryData,
+                PooledBuffer buffer) {
         this.response = response;
+        this.nameToOutput = indexOutputs(response);
         this.nameToBinaryIdx = nameToBinaryIdx;
         this.binaryData = binaryData;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Give back the pooled array holding binary outputs if any, only the first call has effect. Binary outputs can
+     * not be read afterwards.
+     */
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true) && this.buffer != null) {
+            this.buffer.release();
+        }
+    }
+
+    /**
+     * Tell where outputs written into shared memory by server are.
+     *
+     * @param sharedMemoryOutputs output name to view of shared memory holding it.
+     */
+    void setSharedMemoryOutputs(Map<String, ByteBuffer> sharedMemoryOutputs) {
+        this.sharedMemoryOutputs = sharedMemoryOutputs;
     }
 
     @VisibleForTesting
@@ -138,13 +235,13 @@ public class InferResult {
      * @return null if output not found or the tensor in boolean array.
      */
     public boolean[] getOutputAsBool(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.BOOL,
             "Could not get boolean[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (boolean[])getOutputImpl(out, boolean.class, buf -> buf.get() != 0);
+        return (boolean[])getOutputImpl(out, boolean.class);
     }
 
     /**
@@ -154,13 +251,13 @@ public class InferResult {
      * @return null if output not found or the tensor in byte array.
      */
     public byte[] getOutputAsByte(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.INT8 || out.getDatatype() == DataType.UINT8,
             "Could not get byte[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (byte[])getOutputImpl(out, byte.class, ByteBuffer::get);
+        return (byte[])getOutputImpl(out, byte.class);
     }
 
     /**
@@ -170,13 +267,13 @@ public class InferResult {
      * @return null if output not found or the tensor in short array.
      */
     public short[] getOutputAsShort(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.INT16 || out.getDatatype() == DataType.UINT16,
             "Could not get short[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (short[])getOutputImpl(out, short.class, ByteBuffer::getShort);
+        return (short[])getOutputImpl(out, short.class);
     }
 
     /**
@@ -186,13 +283,13 @@ public class InferResult {
      * @return null if output not found or the tensor in int array.
      */
     public int[] getOutputAsInt(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.INT32 || out.getDatatype() == DataType.UINT32,
             "Could not get int[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (int[])getOutputImpl(out, int.class, ByteBuffer::getInt);
+        return (int[])getOutputImpl(out, int.class);
     }
 
     /**
@@ -202,13 +299,13 @@ public class InferResult {
      * @return null if output not found or the tensor in long array.
      */
     public long[] getOutputAsLong(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.INT64 || out.getDatatype() == DataType.UINT64,
             "Could not get long[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (long[])getOutputImpl(out, long.class, ByteBuffer::getLong);
+        return (long[])getOutputImpl(out, long.class);
     }
 
     /**
@@ -218,13 +315,97 @@ public class InferResult {
      * @return null if output not found or the tensor in float array.
      */
     public float[] getOutputAsFloat(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.FP32,
             "Could not get float[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (float[])getOutputImpl(out, float.class, ByteBuffer::getFloat);
+        return (float[])getOutputImpl(out, float.class);
+    }
+
+    /**
+     * Get a tensor of DataType.FP16 converted to floats, exactly. The tensor must be in binary format.
+     *
+     * @param output name of output tensor.
+     * @return null if output not found.
+     */
+    public float[] getOutputAsFloatFromFp16(String output) {
+        return this.getHalfOutput(output, DataType.FP16);
+    }
+
+    /**
+     * Get a tensor of DataType.BF16 converted to floats, exactly. The tensor must be in binary format.
+     *
+     * @param output name of output tensor.
+     * @return null if output not found.
+     */
+    public float[] getOutputAsFloatFromBf16(String output) {
+        return this.getHalfOutput(output, DataType.BF16);
+    }
+
+    /**
+     * Get elements of a tensor of DataType.BYTES. Elements in binary format are views of the response body, valid as
+     * long as this result is, see {@link BytesTensor}. Elements in JSON format are encoded to UTF-8 first.
+     *
+     * @param output name of output tensor.
+     * @return null if output not found.
+     */
+    public BytesTensor getOutputAsBytes(String output) {
+        IOTensor out = this.checkOutput(output, "BYTES elements", DataType.BYTES);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer buf = this.getBinaryBuffer(out.getName());
+        if (buf != null) {
+            return BytesTensor.parse(buf, (int)Util.elemNumFromShape(out.getShape()));
+        }
+        String[] strings = this.getJSONStrings(out);
+        return BytesTensor.parse(ByteBuffer.wrap(BinaryProtocol.toBytes(DataType.BYTES, strings)), strings.length);
+    }
+
+    /**
+     * Get a tensor of DataType.BYTES with elements decoded as UTF-8.
+     *
+     * @param output name of output tensor.
+     * @return null if output not found.
+     */
+    public String[] getOutputAsString(String output) {
+        IOTensor out = this.checkOutput(output, "String[]", DataType.BYTES);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer buf = this.getBinaryBuffer(out.getName());
+        if (buf != null) {
+            return BytesTensor.parse(buf, (int)Util.elemNumFromShape(out.getShape())).toStringArray();
+        }
+        return this.getJSONStrings(out);
+    }
+
+    /**
+     * Get a copy of elements of a BYTES output in JSON format.
+     */
+    private String[] getJSONStrings(IOTensor out) {
+        if (out.getDataArray() instanceof String[]) {
+            return ((String[])out.getDataArray()).clone();
+        }
+        Object[] data = out.getData();
+        String[] ret = new String[data.length];
+        for (int i = 0; i < data.length; i++) {
+            ret[i] = String.valueOf(data[i]);
+        }
+        return ret;
+    }
+
+    private float[] getHalfOutput(String output, DataType halfType) {
+        IOTensor out = this.checkOutput(output, "float[] from " + halfType, halfType);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        Preconditions.checkState(view != null, "Output %s of type %s is not in binary format.", out.getName(),
+            halfType);
+        return HalfFloat.decode(halfType, view, view.remaining() / 2);
     }
 
     /**
@@ -234,26 +415,368 @@ public class InferResult {
      * @return null if output not found or the tensor in double array.
      */
     public double[] getOutputAsDouble(String output) {
-        IOTensor out = this.response.getOutputByName(output);
+        IOTensor out = this.nameToOutput.get(output);
         if (out == null) {
             return null;
         }
         Preconditions.checkArgument(out.getDatatype() == DataType.FP64,
             "Could not get double[] from data of type %s on output %s.", out.getDatatype(), out.getName());
-        return (double[])getOutputImpl(out, double.class, ByteBuffer::getDouble);
+        return (double[])getOutputImpl(out, double.class);
     }
 
-    private <T> Object getOutputImpl(IOTensor out, Class<T> clazz, Function<ByteBuffer, T> getter) {
-        Index idx = this.nameToBinaryIdx.get(out.getName());
-        if (idx != null) { // Output in binary format.
+    /**
+     * Get a read-only view of a tensor of DataType.BOOL, DataType.INT8 or DataType.UINT8 without copying it. Binary
+     * outputs are viewed in place, in the response body or in shared memory, so the view is only valid as long as this
+     * result and its shared memory regions are; booleans are viewed as bytes of 0 or 1.
+     *
+     * @param output name of output tensor.
+     * @return null if output not found or the tensor as a read-only little-endian buffer.
+     */
+    public ByteBuffer getOutputAsByteBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "ByteBuffer", DataType.BOOL, DataType.INT8, DataType.UINT8);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        if (view != null) {
+            return view;
+        }
+        Object array = this.getJSONArray(out, out.getDatatype() == DataType.BOOL ? boolean.class : byte.class);
+        byte[] bytes = array instanceof boolean[] ? BinaryProtocol.toBytes(DataType.BOOL, (boolean[])array) :
+            (byte[])array;
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get a read-only view of a tensor of DataType.INT16 or DataType.UINT16 without copying it, see
+     * {@link #getOutputAsByteBuffer(String)}.
+     */
+    public ShortBuffer getOutputAsShortBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "ShortBuffer", DataType.INT16, DataType.UINT16);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        return view != null ? view.asShortBuffer() :
+            ShortBuffer.wrap((short[])this.getJSONArray(out, short.class)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a read-only view of a tensor of DataType.INT32 or DataType.UINT32 without copying it, see
+     * {@link #getOutputAsByteBuffer(String)}.
+     */
+    public IntBuffer getOutputAsIntBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "IntBuffer", DataType.INT32, DataType.UINT32);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        return view != null ? view.asIntBuffer() :
+            IntBuffer.wrap((int[])this.getJSONArray(out, int.class)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a read-only view of a tensor of DataType.INT64 or DataType.UINT64 without copying it, see
+     * {@link #getOutputAsByteBuffer(String)}.
+     */
+    public LongBuffer getOutputAsLongBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "LongBuffer", DataType.INT64, DataType.UINT64);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        return view != null ? view.asLongBuffer() :
+            LongBuffer.wrap((long[])this.getJSONArray(out, long.class)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a read-only view of a tensor of DataType.FP32 without copying it, see
+     * {@link #getOutputAsByteBuffer(String)}.
+     */
+    public FloatBuffer getOutputAsFloatBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "FloatBuffer", DataType.FP32);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        return view != null ? view.asFloatBuffer() :
+            FloatBuffer.wrap((float[])this.getJSONArray(out, float.class)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Get a read-only view of a tensor of DataType.FP64 without copying it, see
+     * {@link #getOutputAsByteBuffer(String)}.
+     */
+    public DoubleBuffer getOutputAsDoubleBuffer(String output) {
+        IOTensor out = this.checkOutput(output, "DoubleBuffer", DataType.FP64);
+        if (out == null) {
+            return null;
+        }
+        ByteBuffer view = this.getBinaryView(out);
+        return view != null ? view.asDoubleBuffer() :
+            DoubleBuffer.wrap((double[])this.getJSONArray(out, double.class)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copy a tensor of DataType.BOOL into a caller owned array.
+     *
+     * @param output name of output tensor.
+     * @param dst    array to copy into.
+     * @param offset position in dst of the first element.
+     * @return number of elements copied, or -1 if output not found.
+     */
+    public int getOutputAsBool(String output, boolean[] dst, int offset) {
+        IOTensor out = this.checkOutput(output, "boolean[]", DataType.BOOL);
+        if (out == null) {
+            return -1;
+        }
+        ByteBuffer src = this.getOutputAsByteBuffer(output);
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        for (int i = 0; i < n; i++) {
+            dst[offset + i] = src.get(src.position() + i) != 0;
+        }
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.INT8 or DataType.UINT8 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsByte(String output, byte[] dst, int offset) {
+        IOTensor out = this.checkOutput(output, "byte[]", DataType.INT8, DataType.UINT8);
+        if (out == null) {
+            return -1;
+        }
+        ByteBuffer src = this.getOutputAsByteBuffer(output);
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.INT16 or DataType.UINT16 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsShort(String output, short[] dst, int offset) {
+        ShortBuffer src = this.getOutputAsShortBuffer(output);
+        if (src == null) {
+            return -1;
+        }
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.INT32 or DataType.UINT32 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsInt(String output, int[] dst, int offset) {
+        IntBuffer src = this.getOutputAsIntBuffer(output);
+        if (src == null) {
+            return -1;
+        }
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.INT64 or DataType.UINT64 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsLong(String output, long[] dst, int offset) {
+        LongBuffer src = this.getOutputAsLongBuffer(output);
+        if (src == null) {
+            return -1;
+        }
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.FP32 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsFloat(String output, float[] dst, int offset) {
+        FloatBuffer src = this.getOutputAsFloatBuffer(output);
+        if (src == null) {
+            return -1;
+        }
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    /**
+     * Copy a tensor of DataType.FP64 into a caller owned array, see
+     * {@link #getOutputAsBool(String, boolean[], int)}.
+     */
+    public int getOutputAsDouble(String output, double[] dst, int offset) {
+        DoubleBuffer src = this.getOutputAsDoubleBuffer(output);
+        if (src == null) {
+            return -1;
+        }
+        int n = checkDestination(output, src.remaining(), dst.length, offset);
+        src.get(dst, offset, n);
+        return n;
+    }
+
+    private static int checkDestination(String output, int numElem, int dstLength, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= dstLength - numElem,
+            "Could not copy %s elements of output %s into array of length %s from offset %s.", numElem, output,
+            dstLength, offset);
+        return numElem;
+    }
+
+    /**
+     * Split a result whose outputs are batched along dimension 0. Rows [rowStart, rowStart + rowCount) of every output
+     * are taken, binary outputs keep pointing into the buffer of this result instead of being copied.
+     *
+     * @param rowStart  first row of the slice.
+     * @param rowCount  number of rows in the slice.
+     * @param totalRows batch size of this result.
+     * @return result holding only the given rows.
+     * @throws InferenceException if some output is not batched along dimension 0.
+     */
+    InferResult slice(long rowStart, long rowCount, long totalRows) throws InferenceException {
+        InferenceResponse sliced = new InferenceResponse();
+        sliced.setModelName(this.response.getModelName());
+        sliced.setModelVersion(this.response.getModelVersion());
+        sliced.setId(this.response.getId());
+        sliced.setParameters(this.response.getParameters());
+        List<IOTensor> outputs = new ArrayList<>(this.response.getOutputs().size());
+        Map<String, Index> indices = new HashMap<>();
+        for (IOTensor out : this.response.getOutputs()) {
+            long[] shape = out.getShape();
+            if (shape == null || shape.length == 0 || shape[0] != totalRows) {
+                throw new InferenceException(String.format("Output %s of shape %s could not be split into %d rows.",
+                    out.getName(), Arrays.toString(shape), totalRows));
+            }
+            long elemPerRow = Util.elemNumFromShape(shape) / totalRows;
+            long[] slicedShape = shape.clone();
+            slicedShape[0] = rowCount;
+            IOTensor tensor = new IOTensor();
+            tensor.setName(out.getName());
+            tensor.setDatatype(out.getDatatype());
+            tensor.setShape(slicedShape);
+            Index idx = this.nameToBinaryIdx.get(out.getName());
+            if (idx != null) {
+                Index slicedIdx = sliceBinary(out.getDatatype(), idx, elemPerRow * rowStart, elemPerRow * rowCount);
+                indices.put(out.getName(), slicedIdx);
+                Parameters param = new Parameters();
+                param.put(Parameters.KEY_BINARY_DATA_SIZE, slicedIdx.length);
+                tensor.setParameters(param);
+            } else if (out.getDataArray() != null) {
+                tensor.setParameters(out.getParameters());
+                Object slicedData = Array.newInstance(out.getDataArray().getClass().getComponentType(),
+                    (int)(elemPerRow * rowCount));
+                System.arraycopy(out.getDataArray(), (int)(elemPerRow * rowStart), slicedData, 0,
+                    (int)(elemPerRow * rowCount));
+                tensor.setDataArray(slicedData);
+            } else {
+                tensor.setParameters(out.getParameters());
+                tensor.setData(Arrays.copyOfRange(out.getData(), (int)(elemPerRow * rowStart),
+                    (int)(elemPerRow * (rowStart + rowCount))));
+            }
+            outputs.add(tensor);
+        }
+        sliced.setOutputs(outputs);
+        Preconditions.checkState(!this.closed.get(), "InferResult is closed.");
+        return new InferResult(sliced, indices, this.binaryData, this.buffer == null ? null : this.buffer.retain());
+    }
+
+    private Index sliceBinary(DataType dataType, Index idx, long elemStart, long elemCount) {
+        if (dataType != DataType.BYTES) {
+            return new Index(idx.start + (int)(elemStart * dataType.numByte), (int)(elemCount * dataType.numByte));
+        }
+        // Elements of BYTES tensors are length prefixed, walk them to find the boundaries.
+        ByteBuffer buf = ByteBuffer.wrap(this.binaryData, idx.start, idx.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (long i = 0; i < elemStart; i++) {
+            buf.position(buf.position() + 4 + buf.getInt(buf.position()));
+        }
+        int start = buf.position();
+        for (long i = 0; i < elemCount; i++) {
+            buf.position(buf.position() + 4 + buf.getInt(buf.position()));
+        }
+        return new Index(start, buf.position() - start);
+    }
+
+    /**
+     * Get binary data of an output, from response body or from shared memory.
+     *
+     * @return little-endian view of output data, or null if the output is in JSON format.
+     */
+    private ByteBuffer getBinaryBuffer(String name) {
+        Index idx = this.nameToBinaryIdx.get(name);
+        if (idx != null) {
             Preconditions.checkState(this.binaryData != null);
-            long numElem = Util.elemNumFromShape(out.getShape());
-            Object array = Array.newInstance(clazz, (int)numElem);
-            ByteBuffer buf = ByteBuffer.wrap(this.binaryData, idx.start, idx.length);
-            buf.order(ByteOrder.LITTLE_ENDIAN);
-            for (int i = 0; i < numElem; i++) {
-                Array.set(array, i, getter.apply(buf));
+            Preconditions.checkState(!this.closed.get(), "InferResult is closed.");
+            return ByteBuffer.wrap(this.binaryData, idx.start, idx.length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer shm = this.sharedMemoryOutputs.get(name);
+        return shm == null ? null : shm.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Find an output and check its data type.
+     *
+     * @return null if output not found.
+     */
+    private IOTensor checkOutput(String output, String javaType, DataType... dataTypes) {
+        IOTensor out = this.nameToOutput.get(output);
+        if (out == null) {
+            return null;
+        }
+        for (DataType dataType : dataTypes) {
+            if (out.getDatatype() == dataType) {
+                return out;
             }
+        }
+        throw new IllegalArgumentException(String.format("Could not get %s from data of type %s on output %s.",
+            javaType, out.getDatatype(), out.getName()));
+    }
+
+    /**
+     * Get a read-only little-endian view of exactly the binary data of an output.
+     *
+     * @return null if the output is in JSON format.
+     */
+    private ByteBuffer getBinaryView(IOTensor out) {
+        ByteBuffer buf = this.getBinaryBuffer(out.getName());
+        if (buf == null) {
+            return null;
+        }
+        int length = (int)Util.elemNumFromShape(out.getShape()) * out.getDatatype().numByte;
+        Preconditions.checkState(buf.remaining() >= length, "Output %s holds %s bytes, expect %s.", out.getName(),
+            buf.remaining(), length);
+        ByteBuffer view = buf.slice();
+        view.limit(length);
+        return view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Get data of an output in JSON format as a primitive array, not copied if it was decoded as one.
+     */
+    private Object getJSONArray(IOTensor out, Class<?> clazz) {
+        Object dataArray = out.getDataArray();
+        if (dataArray != null && dataArray.getClass().getComponentType() == clazz) {
+            return dataArray;
+        }
+        return this.getOutputImpl(out, clazz);
+    }
+
+    private Object getOutputImpl(IOTensor out, Class<?> clazz) {
+        ByteBuffer buf = this.getBinaryBuffer(out.getName());
+        if (buf != null) { // Output in binary format.
+            return BinaryProtocol.fromBytes(out.getDatatype(), buf, (int)Util.elemNumFromShape(out.getShape()));
+        }
+        Object dataArray = out.getDataArray();
+        if (dataArray != null && dataArray.getClass().getComponentType() == clazz) {
+            // Output in json format, decoded into a primitive array already. Copy so callers may modify it.
+            Object array = Array.newInstance(clazz, Array.getLength(dataArray));
+            System.arraycopy(dataArray, 0, array, 0, Array.getLength(dataArray));
             return array;
         } else { // Output in json format.
             Object[] data = out.getData();
@@ -6,6 +6,11 @@ import com.nvidia.triton.contrib.pojo.ResponseError;
  * Universal exceptions of triton client.
  */
 public class InferenceException extends Exception {
+    /**
+     * HTTP status of the response causing this exception, 0 if there was none.
+     */
+    private int statusCode = 0;
+
     public InferenceException(ResponseError err) {
         super(err.getError());
     }
@@ -17,4 +22,18 @@ public class InferenceException extends Exception {
     public InferenceException(Throwable cause) {
         super(cause);
     }
+
+    public InferenceException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Get HTTP status of the response causing this exception.
+     *
+     * @return HTTP status code, 0 if the exception was not caused by a server response.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
 }
@@ -0,0 +1,91 @@
+package com.nvidia.triton.contrib;
+
+/**
+ * Receives measurements of inference calls of an {@link InferenceServerClient}, see
+ * {@link InferenceServerClient#setMetrics(InferenceMetrics)}. A call is one inferAsync, made of one or more attempts,
+ * HTTP exchanges with an endpoint address, when retried or hedged.
+ * <p>
+ * Methods are called on caller and IO threads, concurrently, so implementations must be thread safe, fast and never
+ * throw. All methods do nothing by default, {@link DefaultInferenceMetrics} aggregates them in memory.
+ */
+public interface InferenceMetrics {
+
+    /**
+     * Metrics that discard everything, the default of clients.
+     */
+    InferenceMetrics NOOP = new InferenceMetrics() {
+    };
+
+    /**
+     * Phases of an inference, in order.
+     */
+    enum Phase {
+        /**
+         * Encoding the JSON header and framing the request body, before any attempt.
+         */
+        ENCODE,
+        /**
+         * From handing an attempt to the HTTP client until its request is being written, waiting for a pooled
+         * connection, or connecting a new one.
+         */
+        POOL_LEASE,
+        /**
+         * Writing request body to the connection.
+         */
+        SEND,
+        /**
+         * From the request written until the response status and headers are received.
+         */
+        TIME_TO_FIRST_BYTE,
+        /**
+         * Parsing the JSON header of response and building the {@link InferResult}. Data decoded later on access, like
+         * binary outputs or lazily decoded JSON outputs, is not included.
+         */
+        DECODE
+    }
+
+    /**
+     * Record the time spent in a phase.
+     *
+     * @param model    model name.
+     * @param endpoint endpoint address of the attempt, null for {@link Phase#ENCODE}.
+     * @param phase    phase.
+     * @param nanos    time spent.
+     */
+    default void recordPhase(String model, String endpoint, Phase phase, long nanos) {
+    }
+
+    /**
+     * Record a finished attempt. Attempts cancelled because another attempt won or the call was cancelled are not
+     * recorded.
+     *
+     * @param model         model name.
+     * @param endpoint      endpoint address.
+     * @param requestBytes  size of request body, 0 if it was not written.
+     * @param responseBytes size of response body received, 0 if none.
+     * @param nanos         time from sending to completion.
+     * @param error         cause of failure, null if succeeded.
+     */
+    default void recordAttempt(String model, String endpoint, long requestBytes, long responseBytes, long nanos,
+                               Throwable error) {
+    }
+
+    /**
+     * Record that a failed attempt is retried.
+     *
+     * @param model    model name.
+     * @param endpoint endpoint address of the failed attempt, null if no address was available.
+     */
+    default void recordRetry(String model, String endpoint) {
+    }
+
+    /**
+     * Record a finished call. Calls cancelled by the caller are not recorded.
+     *
+     * @param model model name.
+     * @param nanos time from the call until its result is available, encoding and retries included.
+     * @param error cause of failure, null if succeeded.
+     */
+    default void recordCall(String model, long nanos, Throwable error) {
+    }
+}
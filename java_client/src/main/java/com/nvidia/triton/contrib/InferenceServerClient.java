@@ -5,49 +5,70 @@ package com.nvidia.triton.contrib;
  * @date 2021/4/13
  */
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.nvidia.triton.contrib.endpoint.AbstractEndpoint;
 import com.nvidia.triton.contrib.endpoint.FixedEndpoint;
+import com.nvidia.triton.contrib.endpoint.HealthConfig;
+import com.nvidia.triton.contrib.pojo.DataType;
 import com.nvidia.triton.contrib.pojo.IOTensor;
-import com.nvidia.triton.contrib.pojo.Parameters;
+import com.nvidia.triton.contrib.pojo.ModelMetadata;
+import com.nvidia.triton.contrib.shm.SystemSharedMemoryRegion;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
-import org.apache.http.impl.nio.client.HttpAsyncClients;
-import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
-import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
-import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.nio.entity.NByteArrayEntity;
-import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.util.EntityUtils;
 
 /**
  * An InferenceServerClient object is used to perform any kind of communication with the InferenceServer using http
- * protocol. None of the methods are thread safe. The object is intended to be used by a single thread and
- * simultaneously calling different methods with different threads is not supported and will cause undefined behavior.
+ * protocol. All methods are thread safe: a single object may be shared by any number of threads, and several objects
+ * may share one {@link TransportRuntime} so that they run on the same IO threads and connection pool.
  */
 public class InferenceServerClient implements AutoCloseable {
 
     private static final Log LOG = LogFactory.getLog(InferenceServerClient.class);
 
-    private static class HttpConfig {
+    /**
+     * How long a failed fetch of model metadata is cached, requests meanwhile send their inputs as they are.
+     */
+    private static final long METADATA_FAILURE_TTL_MS = 30_000;
+
+    /**
+     * Configuration of a {@link TransportRuntime}.
+     */
+    public static class HttpConfig {
         private int ioThreadNum;
         private int readTimeout;
         private int connectTimeout;
@@ -145,12 +166,56 @@ public class InferenceServerClient implements AutoCloseable {
 
     private final int requestTimeout;
 
+    /**
+     * Shared reactor, connection pool and scheduler. This client holds one reference on it.
+     */
+    private final TransportRuntime runtime;
+
     private final CloseableHttpAsyncClient httpClient;
 
-    private int retryCnt = 3;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Readiness prober of endpoint addresses, null if the endpoint has no health checking or probing.
+     */
+    private final HealthChecker healthChecker;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private volatile int retryCnt = 3;
+
+    private volatile RetryPolicy retryPolicy = new RetryPolicy();
+
+    /**
+     * Pool of arrays receiving binary outputs, null to allocate a new array for each response.
+     */
+    private volatile BufferPool bufferPool;
+
+    /**
+     * Whether FP32 inputs are converted for models declaring FP16 or BF16 inputs.
+     */
+    private volatile boolean autoDowncast = false;
+
+    /**
+     * Whether data of outputs in JSON format is decoded on first access.
+     */
+    private volatile boolean lazyDecode = false;
+
+    private volatile InferenceMetrics metrics = InferenceMetrics.NOOP;
+
+    /**
+     * Metadata of models by request path, fetched on first use when inputs may be downcast. Failed fetches stay for
+     * {@link #METADATA_FAILURE_TTL_MS}.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<ModelMetadata>> modelMetadata =
+        new ConcurrentHashMap<>();
 
     /**
-     * Create an InferenceServerClient object.
+     * Parsed endpoint addresses.
+     */
+    private final ConcurrentHashMap<String, InferRequestProducer.Target> targets = new ConcurrentHashMap<>();
+
+    /**
+     * Create an InferenceServerClient object with its own transport runtime.
      *
      * @param endpoint          The endpoint to connect with.
      * @param connectionTimeout The timeout value for the connection. Default value is 5 sec.
@@ -158,12 +223,7 @@ public class InferenceServerClient implements AutoCloseable {
      */
     public InferenceServerClient(AbstractEndpoint endpoint, int connectionTimeout, int networkTimeout)
         throws IOException {
-        this.endpoint = endpoint;
-        this.requestTimeout = networkTimeout;
-        HttpConfig httpConfig = new HttpConfig();
-        httpConfig.setConnectTimeout(connectionTimeout);
-        httpConfig.setReadTimeout(networkTimeout);
-        this.httpClient = createHttpClient(httpConfig);
+        this(endpoint, TransportRuntime.create(createHttpConfig(connectionTimeout, networkTimeout)), networkTimeout);
     }
 
     public InferenceServerClient(String ipPort, int connectionTimeout, int networkTimeout) throws IOException {
@@ -171,32 +231,41 @@ public class InferenceServerClient implements AutoCloseable {
     }
 
     public InferenceServerClient(AbstractEndpoint endpoint, HttpConfig httpConfig) throws IOException {
+        this(endpoint, TransportRuntime.create(httpConfig), httpConfig.getRequestTimeout());
+    }
+
+    /**
+     * Create an InferenceServerClient object on a shared transport runtime. Any number of clients, for the same or for
+     * different endpoints, may share one runtime and therefore one set of IO threads and pooled connections.
+     *
+     * @param endpoint The endpoint to connect with.
+     * @param runtime  The transport runtime, a reference on it is taken until this client is closed.
+     */
+    public InferenceServerClient(AbstractEndpoint endpoint, TransportRuntime runtime) {
+        this(endpoint, runtime.retain(), runtime.getHttpConfig().getRequestTimeout());
+    }
+
+    private InferenceServerClient(AbstractEndpoint endpoint, TransportRuntime runtime, int requestTimeout) {
+        Preconditions.checkArgument(endpoint != null, "endpoint should not be null.");
         this.endpoint = endpoint;
-        this.requestTimeout = httpConfig.getRequestTimeout();
-        this.httpClient = createHttpClient(httpConfig);
-    }
-
-    private static CloseableHttpAsyncClient createHttpClient(HttpConfig httpConfig) throws IOException {
-        ConnectingIOReactor ioReactor = new DefaultConnectingIOReactor();
-        PoolingNHttpClientConnectionManager cm = new PoolingNHttpClientConnectionManager(
-            ioReactor);
-        cm.setMaxTotal(httpConfig.getMaxConnectionCount());
-        cm.setDefaultMaxPerRoute(httpConfig.getMaxConnectionPerRoute());
-        IOReactorConfig config = IOReactorConfig.custom()
-            .setTcpNoDelay(true)
-            .setSoTimeout(httpConfig.getReadTimeout())
-            .setSoReuseAddress(true)
-            .setConnectTimeout(httpConfig.getConnectTimeout())
-            .setIoThreadCount(httpConfig.getIoThreadNum())
-            .setSoKeepAlive(httpConfig.isKeepAlive()).build();
-        final RequestConfig requestConfig = RequestConfig.custom()
-            .setConnectTimeout(httpConfig.getConnectTimeout())
-            .setSocketTimeout(httpConfig.getReadTimeout()).build();
-        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom().setConnectionManager(cm)
-            .setDefaultIOReactorConfig(config)
-            .setDefaultRequestConfig(requestConfig).build();
-        httpClient.start();
-        return httpClient;
+        this.requestTimeout = requestTimeout;
+        this.runtime = runtime;
+        this.httpClient = runtime.getHttpClient();
+        this.scheduler = runtime.getScheduler();
+        HealthConfig healthConfig = endpoint.getHealthConfig();
+        this.healthChecker = healthConfig == null || healthConfig.getProbeIntervalMs() == 0 ? null
+            : new HealthChecker(endpoint, healthConfig, this.httpClient, this.scheduler);
+    }
+
+    private static HttpConfig createHttpConfig(int connectionTimeout, int networkTimeout) {
+        HttpConfig httpConfig = new HttpConfig();
+        httpConfig.setConnectTimeout(connectionTimeout);
+        httpConfig.setReadTimeout(networkTimeout);
+        return httpConfig;
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
     }
 
     public void setRetryCnt(int retryCnt) {
@@ -204,101 +273,914 @@ public class InferenceServerClient implements AutoCloseable {
         this.retryCnt = retryCnt;
     }
 
+    /**
+     * Set how failed attempts are classified, backed off and budgeted. By default HTTP 4xx errors are not retried,
+     * retries back off from 10ms up to 1s and are capped at 10% of requests.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        Preconditions.checkArgument(retryPolicy != null, "retryPolicy should not be null.");
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Receive binary outputs into arrays from a pool. Results then hold a pooled array until closed, close each
+     * {@link InferResult} once its outputs are consumed, for example with try-with-resources. Results never closed
+     * are garbage collected as usual but their arrays are not reused.
+     *
+     * @param bufferPool pool of arrays, null to allocate a new array for each response, which is the default.
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Convert FP32 inputs to FP16 or BF16 when the model declares them so, which halves their size in request body.
+     * Model metadata is fetched once per model and version on first use, that request waits for it. Converted inputs
+     * are new objects, inputs of the caller are never modified. Prepared inferences are not converted.
+     *
+     * @param autoDowncast true to convert, false to send inputs as they are, which is the default.
+     */
+    public void setAutoDowncast(boolean autoDowncast) {
+        this.autoDowncast = autoDowncast;
+    }
+
+    /**
+     * Decode data of outputs in JSON format only when an output is first read from {@link InferResult}. Response headers
+     * are still parsed on arrival, but data arrays are only skipped over, so reading a few of many outputs only pays
+     * for those. Malformed data is then reported as {@link java.io.UncheckedIOException} by the getter instead of
+     * failing the inference. Outputs in binary format are always read on access.
+     *
+     * @param lazyDecode true to defer decoding, false to decode all outputs on arrival, which is the default.
+     */
+    public void setLazyDecode(boolean lazyDecode) {
+        this.lazyDecode = lazyDecode;
+    }
+
+    /**
+     * Report phase timings, bytes, retries and errors of inference calls, for example to a
+     * {@link DefaultInferenceMetrics}. Calls already started keep reporting to the metrics they started with.
+     *
+     * @param metrics receiver of measurements, {@link InferenceMetrics#NOOP} by default.
+     */
+    public void setMetrics(InferenceMetrics metrics) {
+        Preconditions.checkArgument(metrics != null, "metrics should not be null.");
+        this.metrics = metrics;
+    }
+
+    /**
+     * Run inference and block until the result is available. Equivalent to {@code inferAsync(arg).get()}, with failures
+     * unwrapped into {@link InferenceException}.
+     *
+     * @param arg inference arguments.
+     * @return inference result.
+     * @throws InferenceException if all attempts failed or the calling thread was interrupted.
+     */
     public InferResult infer(InferArguments arg)
         throws InferenceException {
+        return await(this.inferAsync(arg));
+    }
+
+    /**
+     * Block until an inference future completes, the future is cancelled if the calling thread is interrupted.
+     */
+    static InferResult await(CompletableFuture<InferResult> future) throws InferenceException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InferenceException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InferenceException) {
+                throw (InferenceException)cause;
+            }
+            throw new InferenceException(cause);
+        }
+    }
+
+    /**
+     * Run inference without blocking the calling thread. The request is sent by the IO reactor, the response is parsed
+     * in the completion callback, and failed attempts (including timeouts) are retried up to retryCnt times as the
+     * {@link RetryPolicy} allows. Cancelling the returned future aborts the in-flight HTTP request.
+     *
+     * @param arg inference arguments.
+     * @return future completed with the inference result, or exceptionally with an {@link InferenceException}.
+     */
+    public CompletableFuture<InferResult> inferAsync(InferArguments arg) {
         Preconditions.checkArgument(arg != null, "arguments should not be null.");
-        Map<String, Object> inferReq = new HashMap<>();
-        Parameters param = new Parameters();
-        if (!Util.isEmpty(arg.requestId)) {
-            inferReq.put("id", arg.requestId);
+        if (!this.autoDowncast || arg.inputs.stream().noneMatch(input -> input.getDataType() == DataType.FP32)) {
+            return this.inferAsyncImpl(arg);
         }
-        if (arg.sequenceId != 0) {
-            param.put("sequence_id", arg.sequenceId);
-            param.put("sequence_start", arg.sequenceStart);
-            param.put("sequence_end", arg.sequenceEnd);
+        CompletableFuture<ModelMetadata> metadata = this.getModelMetadataAsync(arg.modelName, arg.modelVersion);
+        if (metadata.isDone()) {
+            // Usual case, cancelling the result still aborts the HTTP request.
+            return this.downcastAndInfer(arg, metadata.isCompletedExceptionally() ? null : metadata.join());
         }
-        if (arg.priority != 0) {
-            param.put("priority", arg.priority);
+        return metadata.handle((m, e) -> m).thenCompose(m -> this.downcastAndInfer(arg, m));
+    }
+
+    /**
+     * Send inference with FP32 inputs converted as declared by model metadata.
+     *
+     * @param metadata metadata of the model, null to send inputs as they are.
+     */
+    private CompletableFuture<InferResult> downcastAndInfer(InferArguments arg, ModelMetadata metadata) {
+        if (metadata == null) {
+            return this.inferAsyncImpl(arg);
         }
-        if (arg.timeout > 0) {
-            param.put("timeout", arg.timeout);
+        List<InferInput> inputs = new ArrayList<>(arg.inputs.size());
+        List<InferInput> converted = new ArrayList<>();
+        for (InferInput input : arg.inputs) {
+            IOTensor declared = metadata.getInputByName(input.getName());
+            InferInput half = declared == null || (declared.getDatatype() != DataType.FP16
+                && declared.getDatatype() != DataType.BF16) ? null : input.toHalf(declared.getDatatype());
+            if (half == null) {
+                inputs.add(input);
+            } else {
+                inputs.add(half);
+                converted.add(half);
+            }
         }
-        List<IOTensor> inputs = Lists.transform(arg.inputs, InferInput::getTensor);
-        inferReq.put("inputs", inputs);
-        if (!Util.isEmpty(arg.outputs)) {
-            List<IOTensor> outputs = Lists.transform(arg.outputs, InferRequestedOutput::getTensor);
-            inferReq.put("outputs", outputs);
-        } else {
-            // Looks strange, just do as in Triton's python SDK.
-            param.put("binary_data_output", true);
+        if (converted.isEmpty()) {
+            return this.inferAsyncImpl(arg);
         }
-        if (!param.isEmpty()) {
-            inferReq.put("parameters", param);
+        try {
+            return this.inferAsyncImpl(arg.withInputs(inputs));
+        } finally {
+            // The request holds its own references on pooled data.
+            converted.forEach(InferInput::release);
+        }
+    }
+
+    private CompletableFuture<InferResult> inferAsyncImpl(InferArguments arg) {
+        InferenceMetrics metrics = this.metrics;
+        long startNanos = System.nanoTime();
+        Object callEvent = FlightRecorderEvents.beginRequest(arg.modelName, arg.requestId);
+        Object encodeEvent = FlightRecorderEvents.beginEncode();
+        InferRequestProducer request;
+        try {
+            request = createRequest(arg);
+        } catch (Exception e) {
+            InferenceException error = new InferenceException(e);
+            metrics.recordCall(arg.modelName, System.nanoTime() - startNanos, error);
+            FlightRecorderEvents.commitRequest(callEvent, error);
+            CompletableFuture<InferResult> result = new CompletableFuture<>();
+            result.completeExceptionally(error);
+            return result;
         }
+        metrics.recordPhase(arg.modelName, null, InferenceMetrics.Phase.ENCODE, System.nanoTime() - startNanos);
+        FlightRecorderEvents.commitEncode(encodeEvent, callEvent, arg.modelName, arg.requestId,
+            request.getContentLength());
+        Map<String, ByteBuffer> shmOutputs = sharedMemoryOutputs(arg);
+        return this.send(arg.modelName, request, shmOutputs, hedgePolicyOf(arg, shmOutputs), startNanos, callEvent);
+    }
 
-        HttpPost post;
+    /**
+     * Prepare inference requests for a model whose input names, shapes and data types do not change between calls.
+     * Request path, headers and JSON header are computed once from the template, each call of the returned object
+     * only sends new tensor data.
+     *
+     * @param template arguments of the requests, all inputs must hold binary data.
+     * @return the prepared inference, thread safe.
+     * @throws InferenceException if the JSON header could not be created.
+     */
+    public PreparedInference prepare(InferArguments template) throws InferenceException {
+        Preconditions.checkArgument(template != null, "arguments should not be null.");
+        for (InferInput input : template.inputs) {
+            Preconditions.checkArgument(input.getBinaryBuffer() != null,
+                "Input %s of a prepared inference should hold binary data.", input.getName());
+        }
         try {
-            post = createHttpPost(arg, inferReq);
+            byte[] jsonBytes = InferRequestEncoder.encode(template);
+            Map<String, ByteBuffer> shmOutputs = sharedMemoryOutputs(template);
+            return new PreparedInference(this, template, jsonBytes, requestUri(template),
+                requestHeaders(template, jsonBytes.length, !template.inputs.isEmpty()), shmOutputs,
+                hedgePolicyOf(template, shmOutputs));
         } catch (Exception e) {
             throw new InferenceException(e);
         }
+    }
+
+    /**
+     * Send a request and retry, hedge as configured.
+     *
+     * @param modelName  model name, for metrics.
+     * @param startNanos when the call started, before encoding the request.
+     * @param callEvent  flight recorder event of the call, see {@link FlightRecorderEvents#beginRequest}.
+     */
+    CompletableFuture<InferResult> send(String modelName, InferRequestProducer request,
+                                        Map<String, ByteBuffer> shmOutputs, HedgePolicy hedgePolicy,
+                                        long startNanos, Object callEvent) {
+        CompletableFuture<InferResult> result = new CompletableFuture<>();
+        new InferCall(modelName, request, shmOutputs, result, hedgePolicy, startNanos, callEvent).start();
+        return result;
+    }
+
+    /**
+     * Duplicates of sequence requests or requests writing shared memory are not safe to send.
+     */
+    private static HedgePolicy hedgePolicyOf(InferArguments arg, Map<String, ByteBuffer> shmOutputs) {
+        return arg.sequenceId != 0 || !shmOutputs.isEmpty() ? null : arg.hedgePolicy;
+    }
 
-        for (int i = 0; i <= this.retryCnt; i++) {
+    private InferRequestProducer.Target resolve(String addr) {
+        InferRequestProducer.Target target = this.targets.get(addr);
+        if (target == null) {
+            target = InferRequestProducer.Target.parse(addr);
+            this.targets.putIfAbsent(addr, target);
+        }
+        return target;
+    }
+
+    private static Map<String, ByteBuffer> sharedMemoryOutputs(InferArguments arg) {
+        if (Util.isEmpty(arg.outputs)) {
+            return Collections.emptyMap();
+        }
+        Map<String, ByteBuffer> ret = null;
+        for (InferRequestedOutput output : arg.outputs) {
+            if (output.getSharedMemory() != null) {
+                if (ret == null) {
+                    ret = new HashMap<>();
+                }
+                ret.put(output.getName(), output.getSharedMemory());
+            }
+        }
+        return ret == null ? Collections.emptyMap() : ret;
+    }
+
+    /**
+     * State of one asynchronous inference call across all of its attempts. Without hedging at most one attempt is in
+     * flight, with hedging a duplicate attempt may run next to it and the first response wins.
+     */
+    private final class InferCall {
+        private final String modelName;
+        private final InferRequestProducer request;
+        private final Map<String, ByteBuffer> sharedMemoryOutputs;
+        private final CompletableFuture<InferResult> result;
+        private final HedgePolicy hedgePolicy;
+        private final RetryPolicy retryPolicy = InferenceServerClient.this.retryPolicy;
+        private final InferenceMetrics metrics = InferenceServerClient.this.metrics;
+        private final long startNanos;
+        /**
+         * Flight recorder event of this call, null if disabled. Its fields are guarded by the monitor of this call.
+         */
+        private final Object callEvent;
+        /**
+         * Attempts in flight, guarded by the monitor of this call.
+         */
+        private final List<Attempt> inflight = new ArrayList<>(2);
+        /**
+         * Number of retries so far, guarded by the monitor of this call.
+         */
+        private int retries = 0;
+        /**
+         * Whether an attempt succeeded, guarded by the monitor of this call. Set before the result is completed, so
+         * that an attempt failing meanwhile neither fails the call nor retries it.
+         */
+        private boolean succeeded = false;
+        /**
+         * Whether completion of the result was claimed, guarded by the monitor of this call.
+         */
+        private boolean completing = false;
+        private volatile ScheduledFuture<?> hedgeTask;
+
+        InferCall(String modelName, InferRequestProducer request, Map<String, ByteBuffer> sharedMemoryOutputs,
+                  CompletableFuture<InferResult> result, HedgePolicy hedgePolicy, long startNanos,
+                  Object callEvent) {
+            this.modelName = modelName;
+            this.request = request;
+            this.sharedMemoryOutputs = sharedMemoryOutputs;
+            this.result = result;
+            this.hedgePolicy = hedgePolicy;
+            this.startNanos = startNanos;
+            this.callEvent = callEvent;
+        }
+
+        void start() {
+            this.result.whenComplete((r, e) -> {
+                // Attempts still writing the body hold their own references on pooled arrays.
+                this.request.close();
+                ScheduledFuture<?> task = this.hedgeTask;
+                if (task != null) {
+                    task.cancel(false);
+                }
+                // Cancel attempts that lost the race, or all of them if the caller cancelled.
+                List<Attempt> attempts;
+                synchronized (this) {
+                    attempts = new ArrayList<>(this.inflight);
+                }
+                attempts.forEach(Attempt::abort);
+            });
+            this.retryPolicy.onRequest();
+            this.send(0, null);
+            if (this.hedgePolicy != null && !this.result.isDone()) {
+                this.hedgePolicy.onRequest();
+                this.hedgeTask = scheduler.schedule(this::hedge, this.hedgePolicy.getDelayNanos(),
+                    TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Send a duplicate of the attempt in flight, preferably to another address, if the budget allows.
+         */
+        private void hedge() {
+            String avoid;
+            synchronized (this) {
+                if (this.result.isDone() || this.succeeded || this.inflight.size() != 1) {
+                    return;
+                }
+                avoid = this.inflight.get(0).endpoint;
+            }
+            if (this.hedgePolicy.tryAcquireHedge()) {
+                this.send(0, avoid);
+            }
+        }
+
+        /**
+         * Send a new attempt.
+         *
+         * @param attemptNo number of the attempt among retries.
+         * @param avoid     address to avoid if the endpoint has others, null if any address is fine.
+         */
+        void send(int attemptNo, String avoid) {
+            if (this.result.isDone()) {
+                return;
+            }
+            Attempt attempt = new Attempt(this, attemptNo);
+            synchronized (this) {
+                this.inflight.add(attempt);
+            }
+            String addr;
             try {
-                Future<HttpResponse> future = this.httpClient.execute(post, null);
-                HttpResponse resp = this.requestTimeout > 0
-                    ? future.get(this.requestTimeout, TimeUnit.MILLISECONDS) : future.get();
-                return new InferResult(resp);
+                addr = endpoint.getEndpoint(avoid);
             } catch (Exception e) {
-                if (i == this.retryCnt) {
-                    LOG.error(String.format("Inference failed on %dth retry, url: %s", i, post.getURI().toString()), e);
-                    throw new InferenceException(e);
-                } else if (LOG.isDebugEnabled()) {
-                    LOG.debug(String.format("Inference failed on %dth retry, url: %s", i, post.getURI().toString()), e);
+                attempt.failed(e);
+                return;
+            }
+            attempt.endpoint = addr;
+            attempt.startNanos = System.nanoTime();
+            endpoint.onRequestStart(addr);
+            InferRequestProducer producer = null;
+            try {
+                producer = this.request.toTarget(resolve(addr));
+                producer.setLeaseEvent(FlightRecorderEvents.beginPoolLease());
+                InferResponseConsumer consumer = new InferResponseConsumer(bufferPool, lazyDecode);
+                attempt.producer = producer;
+                attempt.consumer = consumer;
+                attempt.httpFuture = httpClient.execute(producer, consumer, attempt);
+            } catch (Exception e) {
+                if (producer != null) {
+                    producer.close();
+                }
+                attempt.failed(e);
+                return;
+            }
+            if (requestTimeout > 0) {
+                attempt.timeoutTask = scheduler.schedule(attempt::timeout, requestTimeout, TimeUnit.MILLISECONDS);
+            }
+            if (this.result.isDone()) {
+                // Lost the race with completion of the call, which may not have seen this attempt.
+                attempt.abort();
+            }
+        }
+
+        /**
+         * Report how an attempt went to the endpoint, so that load aware endpoints see real load and health checking
+         * sees failing addresses.
+         */
+        void onAttemptFinished(Attempt attempt, Exception error, boolean cancelled) {
+            synchronized (this) {
+                this.inflight.remove(attempt);
+                if (error == null && !cancelled) {
+                    this.succeeded = true;
+                }
+            }
+            String addr = attempt.endpoint;
+            if (addr == null) {
+                return;
+            }
+            if (cancelled) {
+                endpoint.onRequestCancelled(addr);
+            } else {
+                long latencyNanos = System.nanoTime() - attempt.startNanos;
+                endpoint.onRequestComplete(addr, latencyNanos, error == null || isServedByEndpoint(error));
+                if (error == null && this.hedgePolicy != null) {
+                    this.hedgePolicy.recordLatency(latencyNanos);
+                }
+                this.recordAttempt(attempt, error, latencyNanos);
+                this.recordEvents(attempt);
+            }
+        }
+
+        /**
+         * Commit flight recorder events of a finished attempt, and note it in the event of this call.
+         */
+        private void recordEvents(Attempt attempt) {
+            InferRequestProducer producer = attempt.producer;
+            InferResponseConsumer consumer = attempt.consumer;
+            if (producer == null || consumer == null) {
+                return;
+            }
+            FlightRecorderEvents.commitPoolLease(producer.getLeaseEvent(), this.callEvent, attempt.endpoint,
+                attempt.attemptNo);
+            FlightRecorderEvents.commitDecode(consumer.getDecodeEvent(), this.callEvent, this.modelName,
+                attempt.endpoint, null, consumer.getDecodedBytes());
+            if (this.callEvent != null) {
+                synchronized (this) {
+                    FlightRecorderEvents.onAttempt(this.callEvent, attempt.endpoint,
+                        producer.getSendStartNanos() != 0 ? producer.getContentLength() : 0,
+                        consumer.getReceivedBytes());
+                }
+            }
+        }
+
+        /**
+         * Report phases and bytes of a finished attempt from timestamps taken by its producer and consumer. Phases not
+         * reached, like the response of a request that failed to be written, are not reported.
+         */
+        private void recordAttempt(Attempt attempt, Exception error, long latencyNanos) {
+            if (this.metrics == InferenceMetrics.NOOP) {
+                return;
+            }
+            InferRequestProducer producer = attempt.producer;
+            InferResponseConsumer consumer = attempt.consumer;
+            if (producer == null || consumer == null) {
+                this.metrics.recordAttempt(this.modelName, attempt.endpoint, 0, 0, latencyNanos, error);
+                return;
+            }
+            long sendStart = producer.getSendStartNanos();
+            long sendEnd = producer.getSendEndNanos();
+            long response = consumer.getResponseNanos();
+            if (sendStart != 0) {
+                this.metrics.recordPhase(this.modelName, attempt.endpoint, InferenceMetrics.Phase.POOL_LEASE,
+                    sendStart - attempt.startNanos);
+                if (sendEnd != 0) {
+                    this.metrics.recordPhase(this.modelName, attempt.endpoint, InferenceMetrics.Phase.SEND,
+                        sendEnd - sendStart);
+                }
+            }
+            if (sendEnd != 0 && response != 0) {
+                this.metrics.recordPhase(this.modelName, attempt.endpoint,
+                    InferenceMetrics.Phase.TIME_TO_FIRST_BYTE, response - sendEnd);
+            }
+            if (error == null) {
+                this.metrics.recordPhase(this.modelName, attempt.endpoint, InferenceMetrics.Phase.DECODE,
+                    consumer.getDecodeNanos());
+            }
+            this.metrics.recordAttempt(this.modelName, attempt.endpoint,
+                sendStart != 0 ? producer.getContentLength() : 0, consumer.getReceivedBytes(), latencyNanos, error);
+        }
+
+        /**
+         * Claim completion of the result and report the call, before completing it so that callers waiting for it see
+         * it reported. Only the first claim wins, so a call finished by two attempts at once is reported once.
+         *
+         * @return false if the result was claimed or cancelled already.
+         */
+        private boolean claimCompletion(Throwable error) {
+            synchronized (this) {
+                if (this.completing || this.result.isDone()) {
+                    return false;
+                }
+                this.completing = true;
+                FlightRecorderEvents.commitRequest(this.callEvent, error);
+            }
+            this.metrics.recordCall(this.modelName, System.nanoTime() - this.startNanos, error);
+            return true;
+        }
+
+        void onSuccess(InferResult inferResult) {
+            if (!this.sharedMemoryOutputs.isEmpty()) {
+                inferResult.setSharedMemoryOutputs(this.sharedMemoryOutputs);
+            }
+            if (!this.claimCompletion(null) || !this.result.complete(inferResult)) {
+                // Call was completed or cancelled meanwhile.
+                inferResult.close();
+            }
+        }
+
+        void onFailure(Attempt attempt, Exception e) {
+            int attemptNo = attempt.attemptNo;
+            RetryPolicy.FailureType type = RetryPolicy.classify(e);
+            int retry = -1;
+            synchronized (this) {
+                if (this.result.isDone() || this.succeeded || !this.inflight.isEmpty()) {
+                    // Another attempt succeeded, or is still running and may succeed.
+                    return;
+                }
+                if (this.retries < retryCnt && this.retryPolicy.isRetryable(type)
+                    && this.retryPolicy.tryAcquireRetry()) {
+                    retry = ++this.retries;
+                }
+            }
+            if (retry < 0) {
+                LOG.error(String.format("Inference failed with %s on %dth retry, url: %s", type, attemptNo,
+                    this.request.getRequestUri()), e);
+                Exception error = e instanceof InferenceException ? e : new InferenceException(e);
+                if (this.claimCompletion(error)) {
+                    this.result.completeExceptionally(error);
+                }
+                return;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Inference failed with %s on %dth retry, url: %s", type, attemptNo,
+                    this.request.getRequestUri()), e);
+            }
+            this.metrics.recordRetry(this.modelName, attempt.endpoint);
+            FlightRecorderEvents.retry(this.callEvent, this.modelName, attempt.endpoint, retry, e);
+            long backoffNanos = this.retryPolicy.backoffNanos(retry);
+            final int next = retry;
+            if (backoffNanos == 0) {
+                this.send(next, null);
+            } else {
+                try {
+                    scheduler.schedule(() -> this.send(next, null), backoffNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException re) {
+                    // Transport runtime is closed.
+                    InferenceException error = new InferenceException(re);
+                    if (this.claimCompletion(error)) {
+                        this.result.completeExceptionally(error);
+                    }
                 }
             }
         }
-        // Should never reach here.
-        return null;
     }
 
-    private HttpPost createHttpPost(InferArguments arg, Map<String, Object> inferReq)
-        throws Exception {
-        // Create post body in binary format:
+    /**
+     * A single HTTP exchange of an {@link InferCall}. Exactly one of the callbacks or the timeout wins, later
+     * notifications of the same attempt are ignored.
+     */
+    private static final class Attempt implements FutureCallback<InferResult> {
+        private final InferCall call;
+        private final int attemptNo;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile Future<InferResult> httpFuture;
+        private volatile ScheduledFuture<?> timeoutTask;
+        private volatile String endpoint;
+        private volatile long startNanos;
+        private volatile InferRequestProducer producer;
+        private volatile InferResponseConsumer consumer;
+
+        Attempt(InferCall call, int attemptNo) {
+            this.call = call;
+            this.attemptNo = attemptNo;
+        }
+
+        private boolean finish(Exception error, boolean cancelled) {
+            if (!this.finished.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> task = this.timeoutTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            this.call.onAttemptFinished(this, error, cancelled);
+            return true;
+        }
+
+        @Override
+        public void completed(InferResult inferResult) {
+            if (this.finish(null, false)) {
+                this.call.onSuccess(inferResult);
+            } else {
+                // Lost the race with another attempt, or timed out.
+                inferResult.close();
+            }
+        }
+
+        @Override
+        public void failed(Exception e) {
+            if (this.finish(e, false)) {
+                this.call.onFailure(this, e);
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            CancellationException e = new CancellationException("HTTP request cancelled.");
+            if (this.finish(e, true)) {
+                this.call.onFailure(this, e);
+            }
+        }
+
+        void timeout() {
+            TimeoutException e = new TimeoutException("Inference request timed out.");
+            if (this.finish(e, false)) {
+                this.cancelHttp();
+                this.call.onFailure(this, e);
+            }
+        }
+
+        void abort() {
+            if (this.finish(null, true)) {
+                this.cancelHttp();
+            }
+        }
+
+        private void cancelHttp() {
+            Future<InferResult> future = this.httpFuture;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Whether a failed request was still served by its endpoint, like a request rejected with HTTP 4xx.
+     */
+    private static boolean isServedByEndpoint(Exception error) {
+        if (!(error instanceof InferenceException)) {
+            return false;
+        }
+        int statusCode = ((InferenceException)error).getStatusCode();
+        return statusCode > 0 && statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    private InferRequestProducer createRequest(InferArguments arg) throws Exception {
+        // Post body in binary format:
         //    <json body><optional_binary_tensor>...
-        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
-        byte[] jsonBytes = Util.toJson(inferReq).getBytes(StandardCharsets.UTF_8);
-        boolean hasBinaryInput = false;
-        bodyBytes.write(jsonBytes);
+        // Segments are written to the connection one after another without being concatenated.
+        byte[] jsonBytes = InferRequestEncoder.encode(arg);
+        String requestUri = requestUri(arg);
+        List<ByteBuffer> body = new ArrayList<>(1 + arg.inputs.size());
+        body.add(ByteBuffer.wrap(jsonBytes));
+        List<PooledBuffer> buffers = new ArrayList<>();
         for (InferInput input : arg.inputs) {
-            byte[] binInput = input.getBinaryData();
+            ByteBuffer binInput = input.getBinaryBuffer();
             if (binInput != null) {
-                bodyBytes.write(binInput);
-                hasBinaryInput = true;
+                body.add(binInput);
+                if (input.getPooledBuffer() != null) {
+                    buffers.add(input.getPooledBuffer());
+                }
             }
         }
-        if (hasBinaryInput) {
-            arg.headers.put("Inference-Header-Content-Length", String.valueOf(jsonBytes.length));
+        Map<String, String> headers = requestHeaders(arg, jsonBytes.length, body.size() > 1);
+        retainAll(buffers);
+        return new InferRequestProducer(requestUri, headers, body, buffers);
+    }
+
+    /**
+     * Take a reference on each pooled array, or on none of them if one was released already.
+     */
+    static void retainAll(List<PooledBuffer> buffers) {
+        for (int i = 0; i < buffers.size(); i++) {
+            try {
+                buffers.get(i).retain();
+            } catch (IllegalStateException e) {
+                for (int j = 0; j < i; j++) {
+                    buffers.get(j).release();
+                }
+                throw e;
+            }
         }
+    }
 
-        // Create target URI.
-        URIBuilder ub = new URIBuilder(this.getUrl());
+    /**
+     * Create request path and query, the endpoint is chosen for each attempt.
+     */
+    private static String requestUri(InferArguments arg) throws Exception {
+        URIBuilder ub = new URIBuilder();
         String safeModelName = URLEncoder.encode(arg.modelName, Charsets.UTF_8.toString());
         String requestUri = Util.isEmpty(arg.modelVersion) ?
             String.format("/v2/models/%s/infer", safeModelName) :
             String.format("/v2/models/%s/versions/%s/infer", safeModelName, arg.modelVersion);
-        ub.setPath(ub.getPath() + requestUri);
+        ub.setPath(requestUri);
         arg.queryParams.forEach(ub::addParameter);
+        return ub.build().toString();
+    }
+
+    private static Map<String, String> requestHeaders(InferArguments arg, int jsonLength, boolean hasBinaryInput) {
+        Map<String, String> headers = new HashMap<>(arg.headers);
+        if (hasBinaryInput) {
+            headers.put("Inference-Header-Content-Length", String.valueOf(jsonLength));
+        }
+        return headers;
+    }
+
+    /**
+     * Register a system shared memory region on server.
+     *
+     * @param name     name of the region.
+     * @param key      key of the shared memory object in "/name" format.
+     * @param byteSize size of the region in bytes.
+     * @param offset   offset of the region in the shared memory object.
+     * @throws InferenceException if the server rejected the request.
+     */
+    public void registerSystemSharedMemory(String name, String key, long byteSize, long offset)
+        throws InferenceException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("key", key);
+        body.put("offset", offset);
+        body.put("byte_size", byteSize);
+        this.post(String.format("/v2/systemsharedmemory/region/%s/register", encode(name)), body);
+    }
+
+    /**
+     * Register a mapped region as a whole on server.
+     *
+     * @param region the region.
+     * @throws InferenceException if the server rejected the request.
+     */
+    public void registerSystemSharedMemory(SystemSharedMemoryRegion region) throws InferenceException {
+        this.registerSystemSharedMemory(region.getName(), region.getKey(), region.getByteSize(), 0);
+    }
 
-        // Crete HttpPost, uri, body and headers.
-        HttpPost post = new HttpPost(ub.build());
-        arg.headers.forEach(post::setHeader);
-        post.setEntity(new NByteArrayEntity(bodyBytes.toByteArray()));
-        return post;
+    /**
+     * Unregister a system shared memory region on server.
+     *
+     * @param name name of the region, all regions are unregistered if it's null or empty.
+     * @throws InferenceException if the server rejected the request.
+     */
+    public void unregisterSystemSharedMemory(String name) throws InferenceException {
+        this.post(Util.isEmpty(name) ? "/v2/systemsharedmemory/unregister"
+            : String.format("/v2/systemsharedmemory/region/%s/unregister", encode(name)), null);
     }
 
+    /**
+     * Get status of system shared memory regions registered on server.
+     *
+     * @param name name of the region, status of all regions is returned if it's null or empty.
+     * @return status in JSON format.
+     * @throws InferenceException if the server rejected the request.
+     */
+    public String getSystemSharedMemoryStatus(String name) throws InferenceException {
+        String path = Util.isEmpty(name) ? "/v2/systemsharedmemory/status"
+            : String.format("/v2/systemsharedmemory/region/%s/status", encode(name));
+        return new String(this.execute(new HttpGet(this.getUrlOrThrow() + path)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get metadata of a model, including names, data types and shapes of its inputs and outputs.
+     *
+     * @param modelName    name of the model.
+     * @param modelVersion version of the model, the server chooses if it's null or empty.
+     * @return the metadata.
+     * @throws InferenceException if the server rejected the request.
+     */
+    public ModelMetadata getModelMetadata(String modelName, String modelVersion) throws InferenceException {
+        byte[] body = this.execute(new HttpGet(this.getUrlOrThrow() + modelPath(modelName, modelVersion)));
+        try {
+            return Util.fromJson(body, 0, body.length, ModelMetadata.class);
+        } catch (IOException e) {
+            throw new InferenceException(e);
+        }
+    }
+
+    /**
+     * Get metadata of a model from cache, or fetch it without blocking. A failed fetch is cached too, for
+     * {@link #METADATA_FAILURE_TTL_MS}, so that requests meanwhile do not pay another round trip before inference.
+     */
+    private CompletableFuture<ModelMetadata> getModelMetadataAsync(String modelName, String modelVersion) {
+        String path = modelPath(modelName, modelVersion);
+        CompletableFuture<ModelMetadata> cached = this.modelMetadata.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<ModelMetadata> future = new CompletableFuture<>();
+        cached = this.modelMetadata.putIfAbsent(path, future);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<byte[]> body;
+        try {
+            body = this.executeAsync(new HttpGet(this.getUrlOrThrow() + path));
+        } catch (InferenceException e) {
+            body = new CompletableFuture<>();
+            body.completeExceptionally(e);
+        }
+        body.whenComplete((bytes, err) -> {
+            if (err == null) {
+                try {
+                    future.complete(Util.fromJson(bytes, 0, bytes.length, ModelMetadata.class));
+                    return;
+                } catch (IOException e) {
+                    err = e;
+                }
+            }
+            LOG.warn(String.format("Failed to get metadata of model %s, inputs are not downcast for %ds.", modelName,
+                METADATA_FAILURE_TTL_MS / 1000), err);
+            future.completeExceptionally(err);
+            try {
+                this.scheduler.schedule(() -> this.modelMetadata.remove(path, future), METADATA_FAILURE_TTL_MS,
+                    TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Transport runtime is closed.
+                this.modelMetadata.remove(path, future);
+            }
+        });
+        return future;
+    }
+
+    private static String modelPath(String modelName, String modelVersion) {
+        return Util.isEmpty(modelVersion) ? String.format("/v2/models/%s", encode(modelName))
+            : String.format("/v2/models/%s/versions/%s", encode(modelName), encode(modelVersion));
+    }
+
+    private byte[] post(String path, Object body) throws InferenceException {
+        HttpPost post = new HttpPost(this.getUrlOrThrow() + path);
+        if (body != null) {
+            try {
+                post.setEntity(new NByteArrayEntity(Util.toJson(body).getBytes(StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                throw new InferenceException(e);
+            }
+        }
+        return this.execute(post);
+    }
+
+    /**
+     * Send a request other than inference and block until its response body is received.
+     *
+     * @param request the request.
+     * @return response body.
+     * @throws InferenceException if the request failed or the server returned non-200 status.
+     */
+    private byte[] execute(HttpUriRequest request) throws InferenceException {
+        Future<HttpResponse> future = this.httpClient.execute(request, null);
+        try {
+            HttpResponse resp = this.requestTimeout > 0
+                ? future.get(this.requestTimeout, TimeUnit.MILLISECONDS) : future.get();
+            return readBody(resp);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InferenceException(e);
+        } catch (InferenceException e) {
+            throw e;
+        } catch (Exception e) {
+            future.cancel(true);
+            throw new InferenceException(e);
+        }
+    }
+
+    /**
+     * Send a request other than inference without blocking, see {@link #execute(HttpUriRequest)}.
+     */
+    private CompletableFuture<byte[]> executeAsync(HttpUriRequest request) {
+        CompletableFuture<byte[]> ret = new CompletableFuture<>();
+        this.httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse resp) {
+                try {
+                    ret.complete(readBody(resp));
+                } catch (InferenceException e) {
+                    ret.completeExceptionally(e);
+                } catch (Exception e) {
+                    ret.completeExceptionally(new InferenceException(e));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                ret.completeExceptionally(new InferenceException(e));
+            }
+
+            @Override
+            public void cancelled() {
+                ret.cancel(false);
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Read the whole body of a response.
+     *
+     * @throws InferenceException if the server returned non-200 status.
+     */
+    private static byte[] readBody(HttpResponse resp) throws IOException, InferenceException {
+        HttpEntity entity = resp.getEntity();
+        byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+        int httpCode = resp.getStatusLine().getStatusCode();
+        if (httpCode != HttpStatus.SC_OK) {
+            throw InferResult.errorFromBody(httpCode, body, body.length);
+        }
+        return body;
+    }
+
+    private static String encode(String s) {
+        try {
+            return URLEncoder.encode(s, Charsets.UTF_8.toString());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String getUrlOrThrow() throws InferenceException {
+        try {
+            return this.getUrl();
+        } catch (Exception e) {
+            throw new InferenceException(e);
+        }
+    }
+
+    /**
+     * Address for requests other than inference, which do not report their outcome to the endpoint and therefore
+     * must not take the trial request of an address coming back.
+     */
     private String getUrl() throws Exception {
-        return "http://" + this.endpoint.getEndpoint();
+        return "http://" + this.endpoint.peekEndpoint();
     }
 
     public InferResult infer(String modelName, List<InferInput> inputs, List<InferRequestedOutput> outputs)
@@ -306,9 +1188,24 @@ public class InferenceServerClient implements AutoCloseable {
         return this.infer(new InferArguments(modelName, inputs, outputs));
     }
 
+    public CompletableFuture<InferResult> inferAsync(String modelName, List<InferInput> inputs,
+                                                     List<InferRequestedOutput> outputs) {
+        return this.inferAsync(new InferArguments(modelName, inputs, outputs));
+    }
+
+    /**
+     * Release this client's reference on its transport runtime, only the first call has effect, so that closing twice
+     * does not drop the reference of another client sharing the runtime.
+     */
     @Override
     public void close() throws Exception {
-        this.httpClient.close();
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (this.healthChecker != null) {
+            this.healthChecker.close();
+        }
+        this.runtime.close();
     }
 
     public static class InferArguments {
@@ -324,6 +1221,7 @@ public class InferenceServerClient implements AutoCloseable {
         int timeout = -1;
         Map<String, String> headers = new HashMap<>();
         Map<String, String> queryParams = new HashMap<>();
+        HedgePolicy hedgePolicy = null;
 
         public InferArguments(String modelName, List<InferInput> inputs, List<InferRequestedOutput> outputs) {
             this.modelName = modelName;
@@ -387,5 +1285,32 @@ public class InferenceServerClient implements AutoCloseable {
             this.queryParams.put(key, value);
             return this;
         }
+
+        /**
+         * Create a copy of these arguments with other inputs.
+         */
+        InferArguments withInputs(List<InferInput> newInputs) {
+            InferArguments ret = new InferArguments(this.modelName, newInputs, this.outputs);
+            ret.modelVersion = this.modelVersion;
+            ret.requestId = this.requestId;
+            ret.sequenceId = this.sequenceId;
+            ret.sequenceStart = this.sequenceStart;
+            ret.sequenceEnd = this.sequenceEnd;
+            ret.priority = this.priority;
+            ret.timeout = this.timeout;
+            ret.headers = this.headers;
+            ret.queryParams = this.queryParams;
+            ret.hedgePolicy = this.hedgePolicy;
+            return ret;
+        }
+
+        /**
+         * Hedge this request with the policy, null to disable hedging. Sequence requests and requests with shared
+         * memory outputs are never hedged.
+         */
+        public InferArguments setHedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
     }
 }
@@ -0,0 +1,109 @@
+package com.nvidia.triton.contrib;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, for recording from many threads at little cost. Each power of 2 is
+ * split into 8 buckets, so percentiles are reported within 12.5% of the recorded value, as the upper bound of its
+ * bucket. Count, sum and max are exact. Buckets are {@link LongAdder}s, created when first hit so that unused ranges
+ * cost nothing.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int)Math.max(value, 0);
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Largest value of a bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        long lower = (long)(SUB_COUNT + bucket % SUB_COUNT) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Record a duration, negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int bucket = bucketOf(value);
+        LongAdder adder = this.buckets.get(bucket);
+        if (adder == null) {
+            this.buckets.compareAndSet(bucket, null, new LongAdder());
+            adder = this.buckets.get(bucket);
+        }
+        adder.increment();
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getSum() {
+        return this.sum.sum();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public double getMean() {
+        long n = this.getCount();
+        return n == 0 ? 0 : (double)this.getSum() / n;
+    }
+
+    /**
+     * Get the value at a percentile, reading concurrently with recording gives a value of some recent state.
+     *
+     * @param percentile percentile in [0, 100], like 99.9.
+     * @return upper bound of the bucket holding the percentile, capped by max; 0 if nothing is recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "Invalid percentile: %s", percentile);
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            LongAdder adder = this.buckets.get(i);
+            counts[i] = adder == null ? 0 : adder.sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.getMax());
+            }
+        }
+        return this.getMax();
+    }
+}
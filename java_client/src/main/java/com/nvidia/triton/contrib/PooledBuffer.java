@@ -0,0 +1,63 @@
+package com.nvidia.triton.contrib;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A reference counted array from a {@link BufferPool}. It starts with one reference held by whoever acquired it, every
+ * additional holder calls {@link #retain()} and every holder calls {@link #release()} once when done. The array goes
+ * back to the pool with the last release and must not be touched by anyone afterwards.
+ */
+final class PooledBuffer {
+
+    private final BufferPool pool;
+    private final byte[] array;
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    /**
+     * @param pool  pool to return array to, null if array is not pooled.
+     * @param array the array, may be larger than requested.
+     */
+    PooledBuffer(BufferPool pool, byte[] array) {
+        this.pool = pool;
+        this.array = array;
+    }
+
+    byte[] array() {
+        return this.array;
+    }
+
+    /**
+     * Take another reference.
+     *
+     * @return this buffer.
+     * @throws IllegalStateException if the buffer was released already.
+     */
+    PooledBuffer retain() {
+        while (true) {
+            int current = this.refCnt.get();
+            Preconditions.checkState(current > 0, "Buffer is released already.");
+            if (this.refCnt.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Drop a reference, the last one returns the array to the pool.
+     *
+     * @throws IllegalStateException if the buffer was released already.
+     */
+    void release() {
+        int remaining = this.refCnt.decrementAndGet();
+        Preconditions.checkState(remaining >= 0, "Buffer is released already.");
+        if (remaining == 0 && this.pool != null) {
+            this.pool.recycle(this.array);
+        }
+    }
+
+    int refCnt() {
+        return this.refCnt.get();
+    }
+}
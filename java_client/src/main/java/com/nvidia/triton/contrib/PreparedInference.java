@@ -0,0 +1,132 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+
+/**
+ * Inference requests of a model whose inputs keep their names, shapes and data types from call to call, created by
+ * {@link InferenceServerClient#prepare(InferArguments)}. Request path, headers and the serialized JSON header are
+ * computed once, a call only wraps the binary data of the new inputs and sends it after the cached JSON header.
+ * <p>
+ * Inputs that do not match the template, like BYTES tensors of another size, are sent as a regular request built
+ * from the template with the new inputs. All methods are thread safe.
+ */
+public final class PreparedInference {
+
+    private final InferenceServerClient client;
+    private final InferArguments template;
+    private final ByteBuffer jsonHeader;
+    private final String requestUri;
+    private final Map<String, String> headers;
+    private final Map<String, ByteBuffer> sharedMemoryOutputs;
+    private final HedgePolicy hedgePolicy;
+
+    private final String[] names;
+    private final DataType[] dataTypes;
+    private final long[][] shapes;
+    private final int[] binarySizes;
+
+    PreparedInference(InferenceServerClient client, InferArguments template, byte[] jsonHeader, String requestUri,
+                      Map<String, String> headers, Map<String, ByteBuffer> sharedMemoryOutputs,
+                      HedgePolicy hedgePolicy) {
+        this.client = client;
+        this.template = template;
+        this.jsonHeader = ByteBuffer.wrap(jsonHeader).asReadOnlyBuffer();
+        this.requestUri = requestUri;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.sharedMemoryOutputs = sharedMemoryOutputs;
+        this.hedgePolicy = hedgePolicy;
+        int n = template.inputs.size();
+        this.names = new String[n];
+        this.dataTypes = new DataType[n];
+        this.shapes = new long[n][];
+        this.binarySizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            InferInput input = template.inputs.get(i);
+            this.names[i] = input.getName();
+            this.dataTypes[i] = input.getDataType();
+            this.shapes[i] = input.getShape().clone();
+            this.binarySizes[i] = input.getBinaryBuffer().remaining();
+        }
+    }
+
+    /**
+     * Run inference with new inputs and block until the result is available.
+     *
+     * @param inputs inputs in the order of the template.
+     * @return inference result.
+     * @throws InferenceException if all attempts failed or the calling thread was interrupted.
+     */
+    public InferResult infer(List<InferInput> inputs) throws InferenceException {
+        return InferenceServerClient.await(this.inferAsync(inputs));
+    }
+
+    public InferResult infer(InferInput... inputs) throws InferenceException {
+        return this.infer(Arrays.asList(inputs));
+    }
+
+    /**
+     * Run inference with new inputs without blocking the calling thread.
+     *
+     * @param inputs inputs in the order of the template.
+     * @return future completed with the inference result, or exceptionally with an {@link InferenceException}.
+     */
+    public CompletableFuture<InferResult> inferAsync(List<InferInput> inputs) {
+        Preconditions.checkArgument(inputs != null, "inputs should not be null.");
+        long startNanos = System.nanoTime();
+        if (!this.matches(inputs)) {
+            return this.client.inferAsync(this.template.withInputs(inputs));
+        }
+        List<ByteBuffer> body = new ArrayList<>(1 + inputs.size());
+        body.add(this.jsonHeader.duplicate());
+        List<PooledBuffer> buffers = new ArrayList<>();
+        for (InferInput input : inputs) {
+            body.add(input.getBinaryBuffer());
+            if (input.getPooledBuffer() != null) {
+                buffers.add(input.getPooledBuffer());
+            }
+        }
+        try {
+            InferenceServerClient.retainAll(buffers);
+        } catch (IllegalStateException e) {
+            CompletableFuture<InferResult> result = new CompletableFuture<>();
+            result.completeExceptionally(new InferenceException(e));
+            return result;
+        }
+        return this.client.send(this.template.modelName,
+            new InferRequestProducer(this.requestUri, this.headers, body, buffers), this.sharedMemoryOutputs,
+            this.hedgePolicy, startNanos, FlightRecorderEvents.beginRequest(this.template.modelName,
+                this.template.requestId));
+    }
+
+    public CompletableFuture<InferResult> inferAsync(InferInput... inputs) {
+        return this.inferAsync(Arrays.asList(inputs));
+    }
+
+    /**
+     * Whether inputs are described by the cached JSON header.
+     */
+    private boolean matches(List<InferInput> inputs) {
+        if (inputs.size() != this.names.length) {
+            return false;
+        }
+        for (int i = 0; i < this.names.length; i++) {
+            InferInput input = inputs.get(i);
+            ByteBuffer data = input.getBinaryBuffer();
+            if (data == null || data.remaining() != this.binarySizes[i] || input.getDataType() != this.dataTypes[i]
+                || !this.names[i].equals(input.getName()) || !Arrays.equals(this.shapes[i], input.getShape())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
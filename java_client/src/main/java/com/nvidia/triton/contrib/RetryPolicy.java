@@ -0,0 +1,168 @@
+package com.nvidia.triton.contrib;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.endpoint.EndpointUnavailableException;
+import org.apache.http.conn.ConnectTimeoutException;
+
+/**
+ * Decides whether and when a failed inference attempt is retried, see
+ * {@link InferenceServerClient#setRetryPolicy(RetryPolicy)}. The max number of retries of a request is set by
+ * {@link InferenceServerClient#setRetryCnt(int)}.
+ * <ul>
+ * <li>Failures are classified, by default only client errors (HTTP 4xx) are not retried, as sending the same request
+ * again would fail the same way.</li>
+ * <li>Retries wait for an exponential backoff with full jitter: a random time between 0 and
+ * min(maxBackoff, baseBackoff * 2^retry).</li>
+ * <li>Retries are paid from a budget shared by all requests of a client. Every request deposits budgetPercent / 100 of
+ * a token and a retry costs one, so during an outage retries stay at most budgetPercent of the traffic, once the
+ * tokens saved up for bursts are spent.</li>
+ * </ul>
+ * All methods are thread safe.
+ */
+public class RetryPolicy {
+
+    /**
+     * Kinds of failure of an attempt.
+     */
+    public enum FailureType {
+        /**
+         * Connection could not be established, or the endpoint had no available address.
+         */
+        CONNECT,
+        /**
+         * No response within the timeout.
+         */
+        TIMEOUT,
+        /**
+         * Server responded with HTTP 5xx.
+         */
+        SERVER_ERROR,
+        /**
+         * Server responded with HTTP 4xx.
+         */
+        CLIENT_ERROR,
+        /**
+         * Any other failure, like a connection reset or a malformed response.
+         */
+        OTHER
+    }
+
+    private volatile Set<FailureType> retryOn = EnumSet.of(FailureType.CONNECT, FailureType.TIMEOUT,
+        FailureType.SERVER_ERROR, FailureType.OTHER);
+    private volatile long baseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(10);
+    private volatile long maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(1000);
+    private volatile TokenBucket budget = new TokenBucket(10, 10, 10);
+
+    /**
+     * Set kinds of failure that are retried.
+     */
+    public RetryPolicy setRetryOn(FailureType... types) {
+        Set<FailureType> set = EnumSet.noneOf(FailureType.class);
+        for (FailureType type : types) {
+            set.add(type);
+        }
+        this.retryOn = set;
+        return this;
+    }
+
+    /**
+     * Set exponential backoff between attempts.
+     *
+     * @param baseBackoffMs backoff before the first retry, 0 to retry right away.
+     * @param maxBackoffMs  upper bound of backoff.
+     */
+    public RetryPolicy setBackoff(long baseBackoffMs, long maxBackoffMs) {
+        Preconditions.checkArgument(baseBackoffMs >= 0, "Invalid baseBackoffMs: %s", baseBackoffMs);
+        Preconditions.checkArgument(maxBackoffMs >= baseBackoffMs, "Invalid maxBackoffMs: %s", maxBackoffMs);
+        this.baseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(baseBackoffMs);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMs);
+        return this;
+    }
+
+    /**
+     * Set retry budget.
+     *
+     * @param budgetPercent max retries, in percent of requests.
+     * @param maxTokens     max retries saved up for bursts, the budget starts full.
+     */
+    public RetryPolicy setBudget(double budgetPercent, int maxTokens) {
+        Preconditions.checkArgument(budgetPercent > 0 && budgetPercent <= 100, "Invalid budgetPercent: %s",
+            budgetPercent);
+        Preconditions.checkArgument(maxTokens >= 0, "Invalid maxTokens: %s", maxTokens);
+        this.budget = new TokenBucket(budgetPercent, maxTokens, maxTokens);
+        return this;
+    }
+
+    /**
+     * Classify failure of an attempt.
+     */
+    public static FailureType classify(Throwable e) {
+        if (e instanceof InferenceException) {
+            int statusCode = ((InferenceException)e).getStatusCode();
+            if (statusCode >= 500) {
+                return FailureType.SERVER_ERROR;
+            } else if (statusCode >= 400) {
+                return FailureType.CLIENT_ERROR;
+            }
+        }
+        if (e instanceof ConnectException || e instanceof ConnectTimeoutException
+            || e instanceof NoRouteToHostException || e instanceof UnknownHostException
+            || e instanceof EndpointUnavailableException) {
+            return FailureType.CONNECT;
+        }
+        if (e instanceof TimeoutException || e instanceof SocketTimeoutException) {
+            return FailureType.TIMEOUT;
+        }
+        if (e != null && e.getCause() != null && e.getCause() != e) {
+            return classify(e.getCause());
+        }
+        return FailureType.OTHER;
+    }
+
+    boolean isRetryable(FailureType type) {
+        return this.retryOn.contains(type);
+    }
+
+    /**
+     * Called once for every request, deposits its share of the retry budget.
+     */
+    void onRequest() {
+        this.budget.deposit();
+    }
+
+    /**
+     * Take one retry from the budget.
+     *
+     * @return false if the budget is used up.
+     */
+    boolean tryAcquireRetry() {
+        return this.budget.tryAcquire();
+    }
+
+    /**
+     * Get a jittered backoff before a retry.
+     *
+     * @param retry number of the retry, starting from 1.
+     */
+    long backoffNanos(int retry) {
+        long base = this.baseBackoffNanos;
+        if (base == 0) {
+            return 0;
+        }
+        long cap = base << Math.min(retry - 1, 30);
+        if (cap <= 0 || cap > this.maxBackoffNanos) {
+            cap = this.maxBackoffNanos;
+        }
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nvidia.triton.contrib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free budget of extra requests, like hedges or retries. Every request deposits a fraction of a token and every
+ * extra request takes a whole one, so extra requests stay below that fraction of all requests once the tokens saved up
+ * for bursts are spent.
+ */
+class TokenBucket {
+
+    private static final long TOKEN = 1000;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    /**
+     * @param percent       extra requests allowed, in percent of all requests.
+     * @param maxTokens     max number of tokens saved up for bursts.
+     * @param initialTokens number of tokens to start with.
+     */
+    TokenBucket(double percent, int maxTokens, int initialTokens) {
+        this.depositPerRequest = Math.max(1, Math.round(percent * TOKEN / 100));
+        this.maxTokens = maxTokens * TOKEN;
+        this.tokens = new AtomicLong(Math.min(initialTokens, maxTokens) * TOKEN);
+    }
+
+    void deposit() {
+        while (true) {
+            long current = this.tokens.get();
+            long updated = Math.min(this.maxTokens, current + this.depositPerRequest);
+            if (current == updated || this.tokens.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if there is no whole token left.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            long current = this.tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (this.tokens.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.InferenceServerClient.HttpConfig;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+
+/**
+ * The transport shared by {@link InferenceServerClient} objects: one IO reactor with a fixed number of IO threads, one
+ * connection pool and one scheduler for timeouts. All methods are thread safe.
+ * <p>
+ * A runtime is reference counted. {@link #create(HttpConfig)} returns a runtime holding one reference, every client
+ * built on it takes another one, and {@link #close()} drops one. The IO threads and pooled connections are released
+ * when the last reference is dropped, so the creator may close its reference as soon as the clients are built.
+ */
+public final class TransportRuntime implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(TransportRuntime.class);
+
+    private final HttpConfig httpConfig;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    private TransportRuntime(HttpConfig httpConfig, CloseableHttpAsyncClient httpClient,
+                             ScheduledExecutorService scheduler) {
+        this.httpConfig = httpConfig;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Create and start a transport runtime.
+     *
+     * @param httpConfig configuration of reactor, connection pool and timeouts.
+     * @return a started runtime holding one reference.
+     * @throws IOException if the IO reactor could not be created.
+     */
+    public static TransportRuntime create(HttpConfig httpConfig) throws IOException {
+        Preconditions.checkArgument(httpConfig != null, "httpConfig should not be null.");
+        IOReactorConfig config = IOReactorConfig.custom()
+            .setTcpNoDelay(true)
+            .setSoTimeout(httpConfig.getReadTimeout())
+            .setSoReuseAddress(true)
+            .setConnectTimeout(httpConfig.getConnectTimeout())
+            .setIoThreadCount(httpConfig.getIoThreadNum())
+            .setSoKeepAlive(httpConfig.isKeepAlive()).build();
+        ConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(config);
+        PoolingNHttpClientConnectionManager cm = new PoolingNHttpClientConnectionManager(ioReactor);
+        cm.setMaxTotal(httpConfig.getMaxConnectionCount());
+        cm.setDefaultMaxPerRoute(httpConfig.getMaxConnectionPerRoute());
+        final RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(httpConfig.getConnectTimeout())
+            .setSocketTimeout(httpConfig.getReadTimeout()).build();
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom().setConnectionManager(cm)
+            .setDefaultIOReactorConfig(config)
+            .setDefaultRequestConfig(requestConfig).build();
+        httpClient.start();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "triton-client-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        return new TransportRuntime(httpConfig, httpClient, scheduler);
+    }
+
+    /**
+     * Take one more reference on this runtime.
+     *
+     * @return this runtime.
+     * @throws IllegalStateException if the runtime has already been released.
+     */
+    TransportRuntime retain() {
+        while (true) {
+            int cnt = this.refCnt.get();
+            Preconditions.checkState(cnt > 0, "TransportRuntime has already been closed.");
+            if (this.refCnt.compareAndSet(cnt, cnt + 1)) {
+                return this;
+            }
+        }
+    }
+
+    HttpConfig getHttpConfig() {
+        return httpConfig;
+    }
+
+    CloseableHttpAsyncClient getHttpClient() {
+        return httpClient;
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Drop one reference, shutting the runtime down when no reference is left.
+     */
+    @Override
+    public void close() throws IOException {
+        int cnt = this.refCnt.decrementAndGet();
+        if (cnt == 0) {
+            this.scheduler.shutdownNow();
+            this.httpClient.close();
+        } else if (cnt < 0) {
+            LOG.warn("TransportRuntime closed more times than it was retained.");
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.nvidia.triton.contrib;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
 import java.util.Collection;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.primitives.UnsignedLong;
+import com.nvidia.triton.contrib.pojo.DataType;
 
 public class Util {
 
@@ -80,6 +88,73 @@ public class Util {
         return jsonMapper.readValue(text, clazz);
     }
 
+    /**
+     * Parse UTF-8 encoded JSON to object without decoding it to a string first.
+     *
+     * @param bytes  buffer holding JSON.
+     * @param offset offset of JSON in buffer.
+     * @param len    length of JSON in bytes.
+     * @param clazz  Class of target object.
+     * @param <T>
+     * @return Parsed object.
+     */
+    public static <T> T fromJson(byte[] bytes, int offset, int len, Class<T> clazz) throws IOException {
+        return jsonMapper.readValue(bytes, offset, len, clazz);
+    }
+
+    /**
+     * Create a streaming UTF-8 JSON generator writing to a stream, it can write any object the JSON mapper could.
+     *
+     * @param out stream to write to.
+     * @return the generator, close it to flush.
+     */
+    public static JsonGenerator createJsonGenerator(OutputStream out) throws IOException {
+        return jsonMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    /**
+     * Create a streaming JSON parser over UTF-8 encoded JSON, it can read any object the JSON mapper could.
+     *
+     * @param bytes  buffer holding JSON.
+     * @param offset offset of JSON in buffer.
+     * @param len    length of JSON in bytes.
+     * @return the parser.
+     */
+    public static JsonParser createJsonParser(byte[] bytes, int offset, int len) throws IOException {
+        return jsonMapper.getFactory().createParser(bytes, offset, len);
+    }
+
+    /**
+     * Box a primitive array of tensor data, unsigned values are converted to their numeric value.
+     *
+     * @param dataType data type of tensor.
+     * @param array    primitive array matching data type, or String[] for BYTES.
+     * @return boxed elements.
+     */
+    public static Object[] boxArray(DataType dataType, Object array) {
+        int len = Array.getLength(array);
+        Object[] ret = new Object[len];
+        for (int i = 0; i < len; i++) {
+            switch (dataType) {
+                case UINT8:
+                    ret[i] = Byte.toUnsignedInt(((byte[])array)[i]);
+                    break;
+                case UINT16:
+                    ret[i] = Short.toUnsignedInt(((short[])array)[i]);
+                    break;
+                case UINT32:
+                    ret[i] = Integer.toUnsignedLong(((int[])array)[i]);
+                    break;
+                case UINT64:
+                    ret[i] = UnsignedLong.fromLongBits(((long[])array)[i]).bigIntegerValue();
+                    break;
+                default:
+                    ret[i] = Array.get(array, i);
+            }
+        }
+        return ret;
+    }
+
     public static Object numericCast(Object input, Class<?> clazz) {
         if (clazz == boolean.class || clazz == Boolean.class) {
             if (input.getClass() != Boolean.class) {
@@ -1,6 +1,10 @@
 package com.nvidia.triton.contrib.endpoint;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.nvidia.triton.contrib.InferenceServerClient;
 import com.nvidia.triton.contrib.Util;
@@ -13,12 +17,55 @@ import com.google.common.base.Preconditions;
 public abstract class AbstractEndpoint {
 
     private static final int RETRY_COUNT = 10;
-    private String lastResult = "";
+    /**
+     * Last address handed out, shared by all threads using this endpoint.
+     */
+    private volatile String lastResult = "";
+    /**
+     * Health checking settings, null if health checking is disabled.
+     */
+    private volatile HealthConfig healthConfig;
+    private final ConcurrentHashMap<String, EndpointHealth> health = new ConcurrentHashMap<>();
 
     abstract String getEndpointImpl() throws Exception;
 
     abstract int getEndpointNum() throws Exception;
 
+    /**
+     * Whether {@link #getEndpoint()} should avoid handing out the same address twice in a row when there are more
+     * than one. Load aware endpoints pick addresses on their own and return false.
+     */
+    boolean avoidLastEndpoint() {
+        return true;
+    }
+
+    /**
+     * Get all addresses this endpoint hands out, which are probed when health checking is enabled. Empty if they are
+     * not known in advance.
+     */
+    public List<String> getAddresses() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Enable health checking of addresses of this endpoint. An address is ejected for a backoff period when its
+     * requests keep failing, its latency is an outlier among all addresses, or it fails a readiness probe. Requests
+     * to an ejected address fail fast with {@link EndpointUnavailableException}, unless the endpoint could pick
+     * another address. Readiness probes are sent by {@link InferenceServerClient} created after this call.
+     *
+     * @param healthConfig health checking settings, null to disable health checking.
+     */
+    public void setHealthConfig(HealthConfig healthConfig) {
+        this.healthConfig = healthConfig;
+        if (healthConfig == null) {
+            this.health.clear();
+        }
+    }
+
+    public HealthConfig getHealthConfig() {
+        return this.healthConfig;
+    }
+
     /**
      * Get string in ip:port[/path] format.
      *
@@ -26,14 +73,158 @@ public abstract class AbstractEndpoint {
      * @throws Exception
      */
     public String getEndpoint() throws Exception {
+        return this.getEndpoint(null);
+    }
+
+    /**
+     * Get string in ip:port[/path] format, other than a given address if this endpoint has more than one.
+     *
+     * @param avoid address to avoid, like the one a request to hedge was sent to. Null to accept any address.
+     * @return
+     * @throws Exception
+     */
+    public String getEndpoint(String avoid) throws Exception {
+        return this.pick(avoid, true);
+    }
+
+    /**
+     * Get string in ip:port[/path] format for a request whose outcome is not reported to this endpoint, like model
+     * metadata or shared memory registration. Ejected addresses are skipped as by {@link #getEndpoint()}, but the
+     * trial request of an address coming back is never reserved: only a request reporting its outcome through
+     * {@link #onRequestComplete(String, long, boolean)} may decide whether the address is healthy.
+     *
+     * @return
+     * @throws Exception
+     */
+    public String peekEndpoint() throws Exception {
+        return this.pick(null, false);
+    }
+
+    /**
+     * @param reserve whether to reserve the address, which then takes the trial request of an address coming back.
+     */
+    private String pick(String avoid, boolean reserve) throws Exception {
+        String unavailable = null;
         for (int i = 0; i < RETRY_COUNT; i++) {
             String url = this.getEndpointImpl();
             Preconditions.checkState(!Util.isEmpty(url), "getEndpointImpl should not return null or empty string!");
-            if (!Objects.equals(this.lastResult, url) || this.getEndpointNum() < 2) {
-                this.lastResult = url;
-                return url;
+            boolean repeated = Objects.equals(avoid, url)
+                || (this.avoidLastEndpoint() && Objects.equals(this.lastResult, url));
+            if (repeated && this.getEndpointNum() >= 2) {
+                continue;
+            }
+            if (reserve ? !this.tryAcquire(url) : !this.isAvailable(url)) {
+                unavailable = url;
+                continue;
             }
+            this.lastResult = url;
+            return url;
+        }
+        if (unavailable != null) {
+            throw new EndpointUnavailableException(unavailable);
         }
         throw new RuntimeException(String.format("Failed to get endpoint address after trying %d times.", RETRY_COUNT));
     }
+
+    private EndpointHealth healthOf(String endpoint) {
+        return this.health.computeIfAbsent(endpoint, k -> new EndpointHealth());
+    }
+
+    /**
+     * Whether a request could be sent to an address now. Implementations should prefer available addresses.
+     */
+    boolean isAvailable(String endpoint) {
+        if (this.healthConfig == null) {
+            return true;
+        }
+        EndpointHealth h = this.health.get(endpoint);
+        return h == null || h.isAvailable(System.nanoTime());
+    }
+
+    private boolean tryAcquire(String endpoint) {
+        return this.healthConfig == null || this.healthOf(endpoint).tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Called by {@link InferenceServerClient} when a request is sent to an address got from this endpoint.
+     *
+     * @param endpoint address the request is sent to.
+     */
+    public void onRequestStart(String endpoint) {
+    }
+
+    /**
+     * Called by {@link InferenceServerClient} when a request started by {@link #onRequestStart(String)} completes.
+     * Exactly one of this method and {@link #onRequestCancelled(String)} is called for every start. Subclasses
+     * overriding it must call this method.
+     *
+     * @param endpoint     address the request was sent to.
+     * @param latencyNanos time from start to completion.
+     * @param success      whether the address served the request, client errors like HTTP 4xx count as success.
+     */
+    public void onRequestComplete(String endpoint, long latencyNanos, boolean success) {
+        HealthConfig config = this.healthConfig;
+        if (config == null) {
+            return;
+        }
+        EndpointHealth h = this.healthOf(endpoint);
+        long now = System.nanoTime();
+        if (!success) {
+            h.onFailure(now, latencyNanos, config);
+            return;
+        }
+        h.onSuccess(latencyNanos, now);
+        if (config.getOutlierLatencyFactor() > 0 && h.getState() == EndpointHealth.State.CLOSED
+            && this.isLatencyOutlier(endpoint, h, config)) {
+            h.ejectIfClosed(now, config);
+        }
+    }
+
+    /**
+     * Whether latency of an address is far above the average of other available addresses. The last available
+     * address is never an outlier.
+     */
+    private boolean isLatencyOutlier(String endpoint, EndpointHealth h, HealthConfig config) {
+        if (h.getLatencySamples() < config.getOutlierMinRequests()) {
+            return false;
+        }
+        double sum = 0;
+        int n = 0;
+        for (Map.Entry<String, EndpointHealth> e : this.health.entrySet()) {
+            EndpointHealth other = e.getValue();
+            if (e.getKey().equals(endpoint) || other.getState() != EndpointHealth.State.CLOSED
+                || other.getLatencySamples() < config.getOutlierMinRequests()) {
+                continue;
+            }
+            sum += other.getEwmaLatencyNanos();
+            n++;
+        }
+        return n > 0 && h.getEwmaLatencyNanos() > config.getOutlierLatencyFactor() * sum / n;
+    }
+
+    /**
+     * Called by {@link InferenceServerClient} instead of {@link #onRequestComplete(String, long, boolean)} when a
+     * started request is cancelled by the caller. Subclasses overriding it must call this method.
+     *
+     * @param endpoint address the request was sent to.
+     */
+    public void onRequestCancelled(String endpoint) {
+        EndpointHealth h = this.healthConfig == null ? null : this.health.get(endpoint);
+        if (h != null) {
+            h.onCancelled();
+        }
+    }
+
+    /**
+     * Called by {@link InferenceServerClient} with the result of a readiness probe of an address.
+     *
+     * @param endpoint address probed.
+     * @param ready    whether the server and all probed models are ready.
+     */
+    public void onProbeResult(String endpoint, boolean ready) {
+        HealthConfig config = this.healthConfig;
+        if (config != null) {
+            this.healthOf(endpoint).onProbe(ready, System.nanoTime(), config);
+        }
+    }
 }
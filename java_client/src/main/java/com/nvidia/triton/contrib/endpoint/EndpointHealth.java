@@ -0,0 +1,181 @@
+package com.nvidia.triton.contrib.endpoint;
+
+/**
+ * Circuit breaker of one address.
+ * <ul>
+ * <li>CLOSED: requests flow, consecutive failures are counted.</li>
+ * <li>OPEN: the address is ejected until its backoff expires, requests to it fail fast.</li>
+ * <li>HALF_OPEN: backoff expired, a single trial request decides whether to close or open again.</li>
+ * </ul>
+ * Requests sent before an ejection keep completing afterwards, their outcome is recorded but only the trial request
+ * moves the breaker out of HALF_OPEN. The trial is told apart by its start time: while HALF_OPEN no other request is
+ * handed out, so it is the only one started since it was reserved.
+ * The state is read without locking on the request path, transitions are guarded by the monitor of this object.
+ */
+class EndpointHealth {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    /**
+     * Number of ejections since the address was last healthy, drives exponential backoff.
+     */
+    private int ejections = 0;
+    private long openUntilNanos = 0;
+    private boolean trialInFlight = false;
+    private long trialStartNanos = 0;
+    private volatile double ewmaLatencyNanos = 0;
+    private volatile int latencySamples = 0;
+
+    State getState() {
+        return this.state;
+    }
+
+    double getEwmaLatencyNanos() {
+        return this.ewmaLatencyNanos;
+    }
+
+    int getLatencySamples() {
+        return this.latencySamples;
+    }
+
+    /**
+     * Whether a request could be sent to this address now, without reserving it.
+     */
+    boolean isAvailable(long nowNanos) {
+        if (this.state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (this.state) {
+                case OPEN:
+                    return nowNanos - this.openUntilNanos >= 0;
+                case HALF_OPEN:
+                    return !this.trialInFlight;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Reserve a request to this address, an expired OPEN state turns HALF_OPEN and the request becomes its trial.
+     *
+     * @return false if the request should fail fast.
+     */
+    boolean tryAcquire(long nowNanos) {
+        if (this.state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (this.state) {
+                case OPEN:
+                    if (nowNanos - this.openUntilNanos < 0) {
+                        return false;
+                    }
+                    this.state = State.HALF_OPEN;
+                    this.trialInFlight = true;
+                    this.trialStartNanos = nowNanos;
+                    return true;
+                case HALF_OPEN:
+                    if (this.trialInFlight) {
+                        return false;
+                    }
+                    this.trialInFlight = true;
+                    this.trialStartNanos = nowNanos;
+                    return true;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Whether a request completing now after latencyNanos is the trial, rather than one sent before the ejection.
+     */
+    private boolean isTrial(long nowNanos, long latencyNanos) {
+        return this.state == State.HALF_OPEN && this.trialInFlight
+            && nowNanos - latencyNanos - this.trialStartNanos >= 0;
+    }
+
+    synchronized void onSuccess(long latencyNanos, long nowNanos) {
+        if (this.isTrial(nowNanos, latencyNanos)) {
+            this.close();
+            // Latency is learned again from the trial, not from requests sent before the ejection.
+            this.latencySamples = 0;
+        }
+        this.recordLatency(latencyNanos);
+        if (this.state == State.CLOSED) {
+            this.consecutiveFailures = 0;
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        double old = this.ewmaLatencyNanos;
+        this.ewmaLatencyNanos = this.latencySamples == 0 ? latencyNanos : old + EWMA_ALPHA * (latencyNanos - old);
+        this.latencySamples++;
+    }
+
+    synchronized void onFailure(long nowNanos, long latencyNanos, HealthConfig config) {
+        this.consecutiveFailures++;
+        if (this.isTrial(nowNanos, latencyNanos)
+            || (this.state == State.CLOSED && this.consecutiveFailures >= config.getFailureThreshold())) {
+            this.eject(nowNanos, config);
+        }
+    }
+
+    /**
+     * Eject a latency outlier, unless it is ejected already.
+     */
+    synchronized void ejectIfClosed(long nowNanos, HealthConfig config) {
+        if (this.state == State.CLOSED) {
+            this.eject(nowNanos, config);
+        }
+    }
+
+    /**
+     * A reserved request was cancelled by the caller, it tells nothing about the address.
+     */
+    synchronized void onCancelled() {
+        this.trialInFlight = false;
+    }
+
+    synchronized void onProbe(boolean ready, long nowNanos, HealthConfig config) {
+        if (!ready) {
+            if (this.state != State.OPEN) {
+                this.eject(nowNanos, config);
+            }
+        } else if (this.state == State.OPEN) {
+            // Server reports ready again, let a trial request through right away.
+            this.openUntilNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Open the breaker for a backoff doubled on every consecutive ejection.
+     */
+    synchronized void eject(long nowNanos, HealthConfig config) {
+        long backoffMs = (long)config.getBaseEjectionMs() << Math.min(this.ejections, 20);
+        backoffMs = Math.min(backoffMs, config.getMaxEjectionMs());
+        this.ejections++;
+        this.openUntilNanos = nowNanos + backoffMs * 1_000_000L;
+        this.trialInFlight = false;
+        // Latency has to be learned again after coming back.
+        this.latencySamples = 0;
+        this.ewmaLatencyNanos = 0;
+        this.state = State.OPEN;
+    }
+
+    private void close() {
+        this.ejections = 0;
+        this.trialInFlight = false;
+        this.state = State.CLOSED;
+    }
+}
@@ -0,0 +1,13 @@
+package com.nvidia.triton.contrib.endpoint;
+
+/**
+ * Thrown by {@link AbstractEndpoint#getEndpoint()} when every address it could hand out is ejected by health
+ * checking, so that requests fail fast instead of waiting for a dead server to time out.
+ */
+public class EndpointUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public EndpointUnavailableException(String endpoint) {
+        super(String.format("Endpoint %s is unavailable, circuit breaker is open.", endpoint));
+    }
+}
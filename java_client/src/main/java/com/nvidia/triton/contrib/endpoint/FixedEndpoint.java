@@ -1,5 +1,8 @@
 package com.nvidia.triton.contrib.endpoint;
 
+import java.util.Collections;
+import java.util.List;
+
 import com.nvidia.triton.contrib.Util;
 import com.google.common.base.Preconditions;
 
@@ -31,4 +34,9 @@ public class FixedEndpoint extends AbstractEndpoint {
     int getEndpointNum() {
         return 1;
     }
+
+    @Override
+    public List<String> getAddresses() {
+        return Collections.singletonList(this.addr);
+    }
 }
@@ -0,0 +1,126 @@
+package com.nvidia.triton.contrib.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Settings of endpoint health checking, see {@link AbstractEndpoint#setHealthConfig(HealthConfig)}.
+ */
+public class HealthConfig {
+    private int failureThreshold;
+    private int baseEjectionMs;
+    private int maxEjectionMs;
+    private double outlierLatencyFactor;
+    private int outlierMinRequests;
+    private int probeIntervalMs;
+    private int probeTimeoutMs;
+    private List<String> probeModels;
+
+    public HealthConfig() {
+        this.failureThreshold = 5;
+        this.baseEjectionMs = 1000;
+        this.maxEjectionMs = 30000;
+        this.outlierLatencyFactor = 3.0;
+        this.outlierMinRequests = 20;
+        this.probeIntervalMs = 5000;
+        this.probeTimeoutMs = 1000;
+        this.probeModels = new ArrayList<>();
+    }
+
+    /**
+     * Number of consecutive failed requests that opens the circuit breaker of an address.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        Preconditions.checkArgument(failureThreshold > 0, "Invalid failureThreshold: %s", failureThreshold);
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Time an address is ejected for the first time, doubled on each consecutive ejection.
+     */
+    public int getBaseEjectionMs() {
+        return baseEjectionMs;
+    }
+
+    public void setBaseEjectionMs(int baseEjectionMs) {
+        Preconditions.checkArgument(baseEjectionMs > 0, "Invalid baseEjectionMs: %s", baseEjectionMs);
+        this.baseEjectionMs = baseEjectionMs;
+    }
+
+    /**
+     * Upper bound of ejection time.
+     */
+    public int getMaxEjectionMs() {
+        return maxEjectionMs;
+    }
+
+    public void setMaxEjectionMs(int maxEjectionMs) {
+        Preconditions.checkArgument(maxEjectionMs > 0, "Invalid maxEjectionMs: %s", maxEjectionMs);
+        this.maxEjectionMs = maxEjectionMs;
+    }
+
+    /**
+     * An address whose average latency exceeds this factor times the average of other addresses is ejected, 0 to
+     * disable latency outlier detection.
+     */
+    public double getOutlierLatencyFactor() {
+        return outlierLatencyFactor;
+    }
+
+    public void setOutlierLatencyFactor(double outlierLatencyFactor) {
+        Preconditions.checkArgument(outlierLatencyFactor == 0 || outlierLatencyFactor > 1,
+            "Invalid outlierLatencyFactor: %s", outlierLatencyFactor);
+        this.outlierLatencyFactor = outlierLatencyFactor;
+    }
+
+    /**
+     * Number of successful requests an address needs before its latency is compared with others.
+     */
+    public int getOutlierMinRequests() {
+        return outlierMinRequests;
+    }
+
+    public void setOutlierMinRequests(int outlierMinRequests) {
+        Preconditions.checkArgument(outlierMinRequests > 0, "Invalid outlierMinRequests: %s", outlierMinRequests);
+        this.outlierMinRequests = outlierMinRequests;
+    }
+
+    /**
+     * Interval of background readiness probes, 0 to disable probing.
+     */
+    public int getProbeIntervalMs() {
+        return probeIntervalMs;
+    }
+
+    public void setProbeIntervalMs(int probeIntervalMs) {
+        Preconditions.checkArgument(probeIntervalMs >= 0, "Invalid probeIntervalMs: %s", probeIntervalMs);
+        this.probeIntervalMs = probeIntervalMs;
+    }
+
+    public int getProbeTimeoutMs() {
+        return probeTimeoutMs;
+    }
+
+    public void setProbeTimeoutMs(int probeTimeoutMs) {
+        Preconditions.checkArgument(probeTimeoutMs > 0, "Invalid probeTimeoutMs: %s", probeTimeoutMs);
+        this.probeTimeoutMs = probeTimeoutMs;
+    }
+
+    /**
+     * Models that must be ready on an address, besides the server itself, for the address to pass a probe.
+     */
+    public List<String> getProbeModels() {
+        return probeModels;
+    }
+
+    public void setProbeModels(List<String> probeModels) {
+        Preconditions.checkArgument(probeModels != null, "probeModels should not be null.");
+        this.probeModels = probeModels;
+    }
+}
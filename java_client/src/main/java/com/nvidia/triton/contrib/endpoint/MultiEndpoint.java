@@ -0,0 +1,259 @@
+package com.nvidia.triton.contrib.endpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.Util;
+
+/**
+ * Endpoint that balances requests over several server replicas. Each replica keeps its number of in-flight requests
+ * and an exponentially weighted moving average (EWMA) of its latency, both updated lock free from the completions
+ * reported by {@link com.nvidia.triton.contrib.InferenceServerClient}, so load aware policies route around busy or
+ * slow replicas.
+ */
+public class MultiEndpoint extends AbstractEndpoint {
+
+    /**
+     * How a replica is chosen for a request.
+     */
+    public enum Policy {
+        /**
+         * Replicas in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * Replica with fewest in-flight requests, ties broken by lower EWMA latency.
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Better of two replicas chosen at random, by in-flight requests weighted with EWMA latency.
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
+    /**
+     * Weight of the newest sample in EWMA latency.
+     */
+    private static final double EWMA_ALPHA = 0.2;
+    /**
+     * A failed request counts as a sample of this many times the EWMA latency, and at least
+     * {@link #FAILURE_MIN_NANOS}, so a replica failing fast looks slower rather than faster.
+     */
+    private static final double FAILURE_PENALTY = 2;
+    private static final double FAILURE_MIN_NANOS = 10_000_000;
+
+    /**
+     * Load statistics of one replica.
+     */
+    static class Replica {
+        final String addr;
+        final AtomicInteger inflight = new AtomicInteger(0);
+        /**
+         * Bits of the double EWMA latency in nanoseconds, 0 before the first sample.
+         */
+        final AtomicLong ewmaNanosBits = new AtomicLong(Double.doubleToLongBits(0));
+
+        Replica(String addr) {
+            this.addr = addr;
+        }
+
+        double ewmaNanos() {
+            return Double.longBitsToDouble(this.ewmaNanosBits.get());
+        }
+
+        /**
+         * @param latencyNanos latency of a completed request.
+         * @param success      whether the replica served the request, a failure is sampled as a penalty instead.
+         */
+        void updateLatency(long latencyNanos, boolean success) {
+            while (true) {
+                long bits = this.ewmaNanosBits.get();
+                double old = Double.longBitsToDouble(bits);
+                double sample = success ? latencyNanos
+                    : Math.max(latencyNanos, Math.max(old * FAILURE_PENALTY, FAILURE_MIN_NANOS));
+                double updated = old == 0 ? sample : old + EWMA_ALPHA * (sample - old);
+                if (this.ewmaNanosBits.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Expected wait of one more request on this replica, lower is better.
+         */
+        double cost() {
+            double ewma = this.ewmaNanos();
+            return (this.inflight.get() + 1) * (ewma == 0 ? 1 : ewma);
+        }
+    }
+
+    private final Policy policy;
+    private final Replica[] replicas;
+    private final Map<String, Replica> byAddr;
+    private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    /**
+     * Create an endpoint balancing over several addresses.
+     *
+     * @param endpoints addresses in host:port[/path] format without schema part.
+     * @param policy    how to choose an address for each request.
+     */
+    public MultiEndpoint(List<String> endpoints, Policy policy) {
+        Preconditions.checkArgument(!Util.isEmpty(endpoints), "endpoints should not be null or empty.");
+        Preconditions.checkArgument(policy != null, "policy should not be null.");
+        this.policy = policy;
+        this.replicas = new Replica[endpoints.size()];
+        Map<String, Replica> map = new HashMap<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            String endpoint = endpoints.get(i);
+            Preconditions.checkArgument(!Util.isEmpty(endpoint), "endpoint should not be null or empty.");
+            Preconditions.checkArgument(!endpoint.contains("://"),
+                "endpoint should be in host:port[/path] format without scheme.");
+            Preconditions.checkArgument(!map.containsKey(endpoint), "Duplicated endpoint: %s", endpoint);
+            this.replicas[i] = new Replica(endpoint);
+            map.put(endpoint, this.replicas[i]);
+        }
+        this.byAddr = Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public List<String> getAddresses() {
+        List<String> ret = new ArrayList<>(this.replicas.length);
+        for (Replica replica : this.replicas) {
+            ret.add(replica.addr);
+        }
+        return ret;
+    }
+
+    @Override
+    String getEndpointImpl() {
+        return this.choose().addr;
+    }
+
+    @Override
+    int getEndpointNum() {
+        return this.replicas.length;
+    }
+
+    @Override
+    boolean avoidLastEndpoint() {
+        return false;
+    }
+
+    /**
+     * Choose a replica by policy, among replicas available by health checking if there are any.
+     */
+    Replica choose() {
+        int n = this.replicas.length;
+        if (n == 1) {
+            return this.replicas[0];
+        }
+        switch (this.policy) {
+            case ROUND_ROBIN: {
+                int start = this.nextIndex.getAndIncrement();
+                for (int i = 0; i < n; i++) {
+                    Replica r = this.replicas[Math.floorMod(start + i, n)];
+                    if (this.isAvailable(r.addr)) {
+                        return r;
+                    }
+                }
+                return this.replicas[Math.floorMod(start, n)];
+            }
+            case LEAST_OUTSTANDING: {
+                // Start from a random replica so that ties do not all go to the first one.
+                int start = ThreadLocalRandom.current().nextInt(n);
+                Replica best = null;
+                boolean bestAvailable = false;
+                for (int i = 0; i < n; i++) {
+                    Replica r = this.replicas[(start + i) % n];
+                    boolean available = this.isAvailable(r.addr);
+                    if (best == null || (available && !bestAvailable)
+                        || (available == bestAvailable && (r.inflight.get() < best.inflight.get()
+                        || (r.inflight.get() == best.inflight.get() && r.ewmaNanos() < best.ewmaNanos())))) {
+                        best = r;
+                        bestAvailable = available;
+                    }
+                }
+                return best;
+            }
+            case POWER_OF_TWO_CHOICES: {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int a = random.nextInt(n);
+                int b = random.nextInt(n - 1);
+                if (b >= a) {
+                    b++;
+                }
+                Replica ra = this.replicas[a];
+                Replica rb = this.replicas[b];
+                boolean aAvailable = this.isAvailable(ra.addr);
+                boolean bAvailable = this.isAvailable(rb.addr);
+                if (aAvailable != bAvailable) {
+                    return aAvailable ? ra : rb;
+                }
+                if (!aAvailable) {
+                    // Both are ejected, take any available replica in turn.
+                    int start = this.nextIndex.getAndIncrement();
+                    for (int i = 0; i < n; i++) {
+                        Replica r = this.replicas[Math.floorMod(start + i, n)];
+                        if (this.isAvailable(r.addr)) {
+                            return r;
+                        }
+                    }
+                }
+                return ra.cost() <= rb.cost() ? ra : rb;
+            }
+            default:
+                throw new IllegalStateException("Unknown policy: " + this.policy);
+        }
+    }
+
+    @Override
+    public void onRequestStart(String endpoint) {
+        Replica replica = this.byAddr.get(endpoint);
+        if (replica != null) {
+            replica.inflight.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onRequestComplete(String endpoint, long latencyNanos, boolean success) {
+        Replica replica = this.byAddr.get(endpoint);
+        if (replica != null) {
+            replica.inflight.decrementAndGet();
+            replica.updateLatency(latencyNanos, success);
+        }
+        super.onRequestComplete(endpoint, latencyNanos, success);
+    }
+
+    @Override
+    public void onRequestCancelled(String endpoint) {
+        Replica replica = this.byAddr.get(endpoint);
+        if (replica != null) {
+            replica.inflight.decrementAndGet();
+        }
+        super.onRequestCancelled(endpoint);
+    }
+
+    /**
+     * Get number of in-flight requests on an address.
+     */
+    public int getInflight(String endpoint) {
+        Replica replica = this.byAddr.get(endpoint);
+        return replica == null ? 0 : replica.inflight.get();
+    }
+
+    /**
+     * Get EWMA latency of an address in nanoseconds, 0 if no request has completed on it.
+     */
+    public double getEwmaLatencyNanos(String endpoint) {
+        Replica replica = this.byAddr.get(endpoint);
+        return replica == null ? 0 : replica.ewmaNanos();
+    }
+}
@@ -1,20 +1,56 @@
 package com.nvidia.triton.contrib.example;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import com.nvidia.triton.contrib.InferInput;
 import com.nvidia.triton.contrib.InferRequestedOutput;
 import com.nvidia.triton.contrib.InferResult;
 import com.nvidia.triton.contrib.InferenceServerClient;
 import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.Util;
 import com.nvidia.triton.contrib.endpoint.FixedEndpoint;
+import com.nvidia.triton.contrib.mock.Latency;
+import com.nvidia.triton.contrib.mock.MockModel;
+import com.nvidia.triton.contrib.mock.MockTritonServer;
 import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import com.google.common.util.concurrent.AtomicDouble;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
 
 /**
- * Do inference via a stand-alone (which is not hosted inside EAS) triton server.
+ * Load generator of a stand-alone (which is not hosted inside EAS) triton server, reporting latency percentiles.
+ * <p>
+ * Two kinds of load are supported, each level of a sweep runs a warmup and then a measured period:
+ * <ul>
+ * <li>Open loop, {@code --rate=100,200,400}: requests are sent at constant rate regardless of responses, as real
+ * clients do. Latency is measured from the time a request was scheduled to be sent, so a stalled server or client is
+ * charged for every request it delayed, instead of hiding them (coordinated omission).</li>
+ * <li>Closed loop, {@code --concurrency=1,4,16}: each of N workers sends a request once its previous one completes,
+ * which finds the throughput limit but understates latency under load.</li>
+ * </ul>
+ * Latency of each request is broken down into phases as seen by the caller: serialize (building inputs and the
+ * request), network (until the response is received and its header parsed) and parse (reading all outputs, decoding is
+ * deferred until then). Percentiles are recorded in HdrHistogram with 3 significant digits, and can be exported as CSV,
+ * one row per level and phase, or JSON.
+ * <p>
+ * Usage: {@code TritonPerf [--model=roberta] [--url=0.0.0.0:8000] [--rate=..|--concurrency=..] [--duration=30]
+ * [--warmup=5] [--json-data] [--csv=perf.csv] [--json=perf.json] [--mock[=1]]}. The former form
+ * {@code TritonPerf roberta 8} is a closed loop of 8 workers. With {@code --mock}, requests are served by an in-process
+ * {@link MockTritonServer} instead, whose roberta takes log-normal time of the given median in milliseconds.
  *
  * @author xiafei.qiuxf
  * @date 2021/5/7
@@ -53,47 +89,201 @@ public class TritonPerf {
          }
      }
 
-    public static void main(String[] args) throws Exception {
-        final String name = args[0];
-        final int nThreads = Integer.parseInt(args[1]);
+    private static final String[] PHASES = {"total", "serialize", "network", "parse"};
+
+    private static class Options {
+        private String model = "roberta";
+        private String url = "0.0.0.0:8000";
+        private boolean binary = true;
+        private long[] rates;
+        private long[] concurrency;
+        private int durationSec = 30;
+        private int warmupSec = 5;
+        private String csv;
+        private String json;
+        private Double mockLatencyMs;
+
+        private static Options parse(String[] args) {
+            Options opts = new Options();
+            List<String> positional = new ArrayList<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    positional.add(arg);
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                String key = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+                String value = eq < 0 ? null : arg.substring(eq + 1);
+                switch (key) {
+                    case "model": opts.model = value; break;
+                    case "url": opts.url = value; break;
+                    case "json-data": opts.binary = false; break;
+                    case "rate": opts.rates = parseLevels(value); break;
+                    case "concurrency": opts.concurrency = parseLevels(value); break;
+                    case "duration": opts.durationSec = Integer.parseInt(value); break;
+                    case "warmup": opts.warmupSec = Integer.parseInt(value); break;
+                    case "csv": opts.csv = value; break;
+                    case "json": opts.json = value; break;
+                    case "mock": opts.mockLatencyMs = value == null ? 1.0 : Double.parseDouble(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (positional.size() > 0) {
+                opts.model = positional.get(0);
+            }
+            if (positional.size() > 1) {
+                opts.concurrency = parseLevels(positional.get(1));
+            }
+            if (opts.rates == null && opts.concurrency == null) {
+                opts.concurrency = new long[] {1};
+            }
+            return opts;
+        }
+
+        private static long[] parseLevels(String value) {
+            long[] levels = Arrays.stream(value.split(",")).mapToLong(Long::parseLong).toArray();
+            for (long level : levels) {
+                Preconditions.checkArgument(level > 0 && level <= 1_000_000, "Invalid level: %s", level);
+            }
+            return levels;
+        }
+    }
+
+    /**
+     * Latency of one level, in microseconds.
+     */
+    private static class LevelStats {
+        private final String mode;
+        private final long level;
+        private final Map<String, Histogram> phases = new LinkedHashMap<>();
+        private final AtomicLong errors = new AtomicLong();
+        private long elapsedNanos;
+
+        private LevelStats(String mode, long level) {
+            this.mode = mode;
+            this.level = level;
+            for (String phase : PHASES) {
+                // Auto-resizing, values are recorded concurrently from IO threads.
+                this.phases.put(phase, new ConcurrentHistogram(3));
+            }
+        }
+
+        private void record(long intended, long start, long sent, long received, long parsed) {
+            this.phases.get("total").recordValue(TimeUnit.NANOSECONDS.toMicros(parsed - intended));
+            this.phases.get("serialize").recordValue(TimeUnit.NANOSECONDS.toMicros(sent - start));
+            this.phases.get("network").recordValue(TimeUnit.NANOSECONDS.toMicros(received - sent));
+            this.phases.get("parse").recordValue(TimeUnit.NANOSECONDS.toMicros(parsed - received));
+        }
 
-        System.out.printf("Testing %s with %d threads.%n", name, nThreads);
+        private long requests() {
+            return this.phases.get("total").getTotalCount();
+        }
+
+        private double throughput() {
+            return this.elapsedNanos == 0 ? 0 : this.requests() * 1e9 / this.elapsedNanos;
+        }
+    }
+
+    private final Options opts;
+    private final InferenceServerClient client;
+    private final List<InferRequestedOutput> outputs;
+
+    private TritonPerf(Options opts, InferenceServerClient client) {
+        this.opts = opts;
+        this.client = client;
+        this.outputs = getOutputs(opts.model, opts.binary);
+    }
 
-        List<InferInput> inputs = getInputs(name, true);
-        List<InferRequestedOutput> outputs = getOutputs(name, true);
+    /**
+     * Send one request, scheduled at intended, and record its latency when it completes.
+     */
+    private CompletableFuture<Void> send(long intended, LevelStats stats) {
+        long start = System.nanoTime();
+        CompletableFuture<InferResult> future;
+        try {
+            future = this.client.inferAsync(new InferArguments(opts.model, getInputs(opts.model, opts.binary),
+                this.outputs));
+        } catch (RuntimeException e) {
+            stats.errors.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        long sent = System.nanoTime();
+        return future.handle((result, error) -> {
+            long received = System.nanoTime();
+            if (error != null) {
+                stats.errors.incrementAndGet();
+                return null;
+            }
+            try (InferResult r = result) {
+                readOutputs(r);
+            } catch (RuntimeException e) {
+                stats.errors.incrementAndGet();
+                return null;
+            }
+            stats.record(intended, start, sent, received, System.nanoTime());
+            return null;
+        });
+    }
+
+    private static void readOutputs(InferResult result) {
+        for (IOTensor output : result.getResponse().getOutputs()) {
+            String name = output.getName();
+            switch (output.getDatatype()) {
+                case BOOL: result.getOutputAsBool(name); break;
+                case INT8:
+                case UINT8: result.getOutputAsByte(name); break;
+                case INT16:
+                case UINT16: result.getOutputAsShort(name); break;
+                case INT32:
+                case UINT32: result.getOutputAsInt(name); break;
+                case INT64:
+                case UINT64: result.getOutputAsLong(name); break;
+                case FP16: result.getOutputAsFloatFromFp16(name); break;
+                case BF16: result.getOutputAsFloatFromBf16(name); break;
+                case FP32: result.getOutputAsFloat(name); break;
+                case FP64: result.getOutputAsDouble(name); break;
+                case BYTES: result.getOutputAsBytes(name); break;
+                default: throw new UnsupportedOperationException(output.getDatatype().toString());
+            }
+        }
+    }
+
+    /**
+     * Send requests at constant rate for a period, without waiting for responses.
+     */
+    private void runOpenLoop(long rate, long periodNanos, LevelStats stats) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        Preconditions.checkArgument(interval > 0, "Rate %s is over one request per nanosecond.", rate);
+        AtomicInteger inFlight = new AtomicInteger();
+        long begin = System.nanoTime();
+        long sends = 0;
+        for (; sends * interval < periodNanos; sends++) {
+            long intended = begin + sends * interval;
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.incrementAndGet();
+            this.send(intended, stats).whenComplete((v, e) -> inFlight.decrementAndGet());
+        }
+        // Throughput is over the sending schedule, or longer if sends fell behind it. Waiting for responses below is
+        // left out, so that the latency of the last requests does not lower the rate reported.
+        stats.elapsedNanos = Math.max(System.nanoTime() - begin, sends * interval);
+        while (inFlight.get() > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
 
+    /**
+     * Keep a fixed number of requests outstanding for a period.
+     */
+    private void runClosedLoop(long concurrency, long periodNanos, LevelStats stats) throws InterruptedException {
+        long begin = System.nanoTime();
+        long deadline = begin + periodNanos;
         List<Thread> threads = Lists.newArrayList();
-        AtomicDouble totalQps = new AtomicDouble(0);
-        AtomicDouble avgLatency = new AtomicDouble(0);
-        for (int t = 0; t < nThreads; t++) {
+        for (int t = 0; t < concurrency; t++) {
             Thread thread = new Thread(() -> {
-                long tid = Thread.currentThread().getId();
-                // For a stand-alone triton server, FixedEndpoint is used to connected to it.
-                FixedEndpoint endpoint = new FixedEndpoint("0.0.0.0:8000");
-                try (InferenceServerClient client = new InferenceServerClient(endpoint, 5000, 5000)) {
-                    InferArguments inferArg = new InferArguments("roberta", inputs, outputs);
-                    final int N = 1000;
-                    final int GAP = 100;
-                    long start = System.currentTimeMillis();
-                    long lastGapStart = start;
-                    for (int i = 0; i < N; i++) {
-                        InferResult result = client.infer(inferArg);
-                        if ((i + 1) % GAP == 0) {
-                            long now = System.currentTimeMillis();
-                            long gapElapsedMs = now - lastGapStart;
-                            double latency = 1.0 * gapElapsedMs / GAP;
-                            System.out.printf("[%d][GAP] Requests: %d, avg latency(ms): %.2f%n", tid, i + 1, latency);
-                            lastGapStart = now;
-                        }
-                    }
-                    long totalMs = System.currentTimeMillis() - start;
-                    double latency = 1.0 * totalMs / N;
-                    double qps = 1000.0 * N / totalMs;
-                    System.out.printf("[%d][TOTAL] avg latency(ms): %.2f, qps: %.2f%n", tid, latency, qps);
-                    totalQps.addAndGet(qps);
-                    avgLatency.addAndGet(latency);
-                } catch (Exception e) {
-                    e.printStackTrace();
+                for (long now = System.nanoTime(); now < deadline; now = System.nanoTime()) {
+                    this.send(now, stats).join();
                 }
             });
             thread.start();
@@ -102,10 +292,140 @@ public class TritonPerf {
         for (Thread thread : threads) {
             thread.join();
         }
-        System.out.println("==================================");
-        System.out.printf("[ALL]         QPS: %.2f\n", totalQps.get());
-        System.out.printf("[ALL] Latency(ms): %.2f\n", avgLatency.get() / nThreads);
-        System.out.println("==================================");
+        stats.elapsedNanos = System.nanoTime() - begin;
+    }
+
+    private LevelStats runLevel(String mode, long level) throws InterruptedException {
+        List<LevelStats> runs = new ArrayList<>(2);
+        for (int period : new int[] {opts.warmupSec, opts.durationSec}) {
+            LevelStats stats = new LevelStats(mode, level);
+            long periodNanos = TimeUnit.SECONDS.toNanos(period);
+            if ("rate".equals(mode)) {
+                this.runOpenLoop(level, periodNanos, stats);
+            } else {
+                this.runClosedLoop(level, periodNanos, stats);
+            }
+            runs.add(stats);
+        }
+        // Only the measured period is reported, the warmup is thrown away.
+        return runs.get(runs.size() - 1);
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-12s %8s %8s %6s %10s %9s %9s %9s %9s %9s %11s %11s %11s%n", "mode", "level", "requests",
+            "errors", "qps", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)", "serialize99", "network99",
+            "parse99");
+    }
+
+    private static void print(LevelStats stats) {
+        Histogram total = stats.phases.get("total");
+        System.out.printf("%-12s %8d %8d %6d %10.1f %9d %9d %9d %9d %9d %11d %11d %11d%n", stats.mode, stats.level,
+            stats.requests(), stats.errors.get(), stats.throughput(), total.getValueAtPercentile(50),
+            total.getValueAtPercentile(90), total.getValueAtPercentile(99), total.getValueAtPercentile(99.9),
+            total.getMaxValue(), stats.phases.get("serialize").getValueAtPercentile(99),
+            stats.phases.get("network").getValueAtPercentile(99), stats.phases.get("parse").getValueAtPercentile(99));
+    }
+
+    private static void writeCsv(String path, List<LevelStats> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("mode,level,requests,errors,throughput,phase,mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+            for (LevelStats stats : results) {
+                for (Map.Entry<String, Histogram> phase : stats.phases.entrySet()) {
+                    Histogram h = phase.getValue();
+                    out.printf("%s,%d,%d,%d,%.1f,%s,%.1f,%d,%d,%d,%d,%d%n", stats.mode, stats.level, stats.requests(),
+                        stats.errors.get(), stats.throughput(), phase.getKey(), h.getMean(),
+                        h.getValueAtPercentile(50), h.getValueAtPercentile(90), h.getValueAtPercentile(99),
+                        h.getValueAtPercentile(99.9), h.getMaxValue());
+                }
+            }
+        }
+    }
+
+    private static void writeJson(String path, Options opts, List<LevelStats> results) throws IOException {
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (LevelStats stats : results) {
+            Map<String, Object> level = new LinkedHashMap<>();
+            level.put("mode", stats.mode);
+            level.put("level", stats.level);
+            level.put("requests", stats.requests());
+            level.put("errors", stats.errors.get());
+            level.put("throughput", stats.throughput());
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Map.Entry<String, Histogram> phase : stats.phases.entrySet()) {
+                Histogram h = phase.getValue();
+                Map<String, Object> latency = new LinkedHashMap<>();
+                latency.put("mean", h.getMean());
+                latency.put("p50", h.getValueAtPercentile(50));
+                latency.put("p90", h.getValueAtPercentile(90));
+                latency.put("p99", h.getValueAtPercentile(99));
+                latency.put("p99.9", h.getValueAtPercentile(99.9));
+                latency.put("max", h.getMaxValue());
+                phases.put(phase.getKey(), latency);
+            }
+            level.put("latencyUs", phases);
+            levels.add(level);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("model", opts.model);
+        report.put("url", opts.url);
+        report.put("binary", opts.binary);
+        report.put("durationSec", opts.durationSec);
+        report.put("warmupSec", opts.warmupSec);
+        report.put("levels", levels);
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println(Util.toJson(report));
+        }
+    }
+
+    private static MockTritonServer startMock(double medianMs) throws IOException {
+        MockTritonServer.enableNoDelay();
+        return new MockTritonServer().addModel(MockModel.synthetic("roberta")
+            .addInput("input_ids", DataType.INT32, -1, 32)
+            .addInput("input_mask", DataType.INT32, -1, 32)
+            .addInput("segment_ids", DataType.INT32, -1, 32)
+            .addOutput("logits", DataType.FP32, -1, 2)
+            .setMaxBatchSize(8)
+            .setLatency(Latency.logNormal(medianMs, 0.5)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = Options.parse(args);
+        MockTritonServer mock = opts.mockLatencyMs == null ? null : startMock(opts.mockLatencyMs);
+        if (mock != null) {
+            opts.url = mock.getAddress();
+        }
+
+        // For a stand-alone triton server, FixedEndpoint is used to connected to it. The client is thread safe, so all
+        // requests share its IO threads and connection pool.
+        FixedEndpoint endpoint = new FixedEndpoint(opts.url);
+        List<LevelStats> results = new ArrayList<>();
+        try (InferenceServerClient client = new InferenceServerClient(endpoint, 5000, 5000)) {
+            // Outputs in JSON format are decoded when read, so that decoding is accounted to the parse phase.
+            client.setLazyDecode(true);
+            TritonPerf perf = new TritonPerf(opts, client);
+            System.out.printf("Testing %s at %s, warmup %ds, duration %ds per level.%n", opts.model, opts.url,
+                opts.warmupSec, opts.durationSec);
+            printHeader();
+            for (long rate : opts.rates == null ? new long[0] : opts.rates) {
+                LevelStats stats = perf.runLevel("rate", rate);
+                print(stats);
+                results.add(stats);
+            }
+            for (long concurrency : opts.concurrency == null ? new long[0] : opts.concurrency) {
+                LevelStats stats = perf.runLevel("concurrency", concurrency);
+                print(stats);
+                results.add(stats);
+            }
+        }
+        if (mock != null) {
+            mock.close();
+        }
+        if (opts.csv != null) {
+            writeCsv(opts.csv, results);
+        }
+        if (opts.json != null) {
+            writeJson(opts.json, opts, results);
+        }
     }
 
 }
@@ -0,0 +1,59 @@
+package com.nvidia.triton.contrib.mock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Distribution of latency injected by {@link MockTritonServer}, sampled once per request.
+ */
+@FunctionalInterface
+public interface Latency {
+
+    /**
+     * Sample a latency, called concurrently by request handling threads.
+     *
+     * @return latency in nanoseconds, not negative.
+     */
+    long nextNanos();
+
+    static Latency none() {
+        return () -> 0;
+    }
+
+    static Latency fixed(long ms) {
+        Preconditions.checkArgument(ms >= 0, "Invalid latency: %s", ms);
+        long nanos = TimeUnit.MILLISECONDS.toNanos(ms);
+        return () -> nanos;
+    }
+
+    static Latency uniform(long minMs, long maxMs) {
+        Preconditions.checkArgument(minMs >= 0 && maxMs >= minMs, "Invalid latency range: [%s, %s]", minMs, maxMs);
+        long min = TimeUnit.MILLISECONDS.toNanos(minMs);
+        long max = TimeUnit.MILLISECONDS.toNanos(maxMs);
+        return () -> min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+
+    /**
+     * Log-normal latency, a common fit of service time with a long tail.
+     *
+     * @param medianMs median latency.
+     * @param sigma    standard deviation of the log of latency, p99 is about medianMs * exp(2.33 * sigma).
+     */
+    static Latency logNormal(double medianMs, double sigma) {
+        Preconditions.checkArgument(medianMs > 0 && sigma >= 0, "Invalid log-normal latency: median %s, sigma %s",
+            medianMs, sigma);
+        double mu = Math.log(TimeUnit.MILLISECONDS.toNanos(1) * medianMs);
+        return () -> (long)Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+    /**
+     * Sample from outlier with the given probability, from base otherwise. For example, a replica with occasional
+     * stalls is {@code mix(Latency.fixed(2), 0.01, Latency.fixed(200))}.
+     */
+    static Latency mix(Latency base, double probability, Latency outlier) {
+        Preconditions.checkArgument(probability >= 0 && probability <= 1, "Invalid probability: %s", probability);
+        return () -> ThreadLocalRandom.current().nextDouble() < probability ? outlier.nextNanos() : base.nextNanos();
+    }
+}
@@ -0,0 +1,119 @@
+package com.nvidia.triton.contrib.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.google.common.base.Preconditions;
+
+/**
+ * A model served by {@link MockTritonServer}. An echo model returns each input as an output of the same name, a
+ * synthetic model returns its declared outputs filled with zeros (empty strings for BYTES), where -1 dimensions are
+ * replaced by the batch size, the first dimension of the first input.
+ */
+public class MockModel {
+
+    private final String name;
+    private final boolean echo;
+    private final List<IOTensor> inputs = new ArrayList<>();
+    private final List<IOTensor> outputs = new ArrayList<>();
+    private String version = "1";
+    private int maxBatchSize = 0;
+    private Latency latency = Latency.none();
+
+    private MockModel(String name, boolean echo) {
+        Preconditions.checkArgument(name != null && !name.isEmpty(), "Model name should not be empty.");
+        this.name = name;
+        this.echo = echo;
+    }
+
+    public static MockModel echo(String name) {
+        return new MockModel(name, true);
+    }
+
+    public static MockModel synthetic(String name) {
+        return new MockModel(name, false);
+    }
+
+    private static IOTensor tensor(String name, DataType dataType, long[] shape) {
+        IOTensor tensor = new IOTensor();
+        tensor.setName(name);
+        tensor.setDatatype(dataType);
+        tensor.setShape(shape);
+        return tensor;
+    }
+
+    /**
+     * Declare an input, reported by model metadata and config. Inputs are not validated against declarations.
+     */
+    public MockModel addInput(String name, DataType dataType, long... shape) {
+        this.inputs.add(tensor(name, dataType, shape));
+        return this;
+    }
+
+    /**
+     * Declare an output, returned by a synthetic model and reported by model metadata and config. Outputs of an echo
+     * model are reported as its inputs if none is declared.
+     */
+    public MockModel addOutput(String name, DataType dataType, long... shape) {
+        this.outputs.add(tensor(name, dataType, shape));
+        return this;
+    }
+
+    /**
+     * Set the only version of the model, "1" by default.
+     */
+    public MockModel setVersion(String version) {
+        Preconditions.checkArgument(version != null && !version.isEmpty(), "Model version should not be empty.");
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Set max_batch_size of model config, 0 by default. Declared shapes include the batch dimension as -1 when the
+     * model batches, as in model metadata.
+     */
+    public MockModel setMaxBatchSize(int maxBatchSize) {
+        Preconditions.checkArgument(maxBatchSize >= 0, "Invalid maxBatchSize: %s", maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Set the compute time of each inference, none by default.
+     */
+    public MockModel setLatency(Latency latency) {
+        Preconditions.checkArgument(latency != null, "latency should not be null.");
+        this.latency = latency;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    boolean isEcho() {
+        return echo;
+    }
+
+    List<IOTensor> getInputs() {
+        return inputs;
+    }
+
+    List<IOTensor> getOutputs() {
+        return echo && outputs.isEmpty() ? inputs : outputs;
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    Latency getLatency() {
+        return latency;
+    }
+}
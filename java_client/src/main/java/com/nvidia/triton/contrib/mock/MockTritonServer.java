@@ -0,0 +1,531 @@
+package com.nvidia.triton.contrib.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nvidia.triton.contrib.BinaryProtocol;
+import com.nvidia.triton.contrib.BytesTensor;
+import com.nvidia.triton.contrib.Util;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.nvidia.triton.contrib.pojo.ModelMetadata;
+import com.nvidia.triton.contrib.pojo.Parameters;
+import com.google.common.base.Preconditions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * In-process stand-in of a Triton server speaking the v2 HTTP protocol, for tests and benchmarks without a GPU. It
+ * serves on a loopback port:
+ * <ul>
+ * <li>/v2/health/live and /v2/health/ready.</li>
+ * <li>/v2/models/{model}[/versions/{version}] for model metadata, with /ready and /config.</li>
+ * <li>/v2/models/{model}[/versions/{version}]/infer, inputs and outputs in JSON or binary format of the binary data
+ * extension, as requested. Shared memory is not supported.</li>
+ * </ul>
+ * Models are {@link MockModel}s with their own compute latency. Faults of the whole server, as a bad replica, are
+ * injected with {@link #setExtraLatency(Latency)}, {@link #setErrorRate(double, int)} and {@link #setReady(boolean)}.
+ * Requests are handled by a thread each, so latency never limits throughput.
+ * <p>
+ * The JDK server writes headers and body separately, with Nagle's algorithm the body of a small response waits for
+ * the delayed ACK of the client, about 40ms. Programs measuring latency against a mock should call
+ * {@link #enableNoDelay()} first.
+ */
+public class MockTritonServer implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(MockTritonServer.class);
+
+    private static final String MODELS_PATH = "/v2/models/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, MockModel> models = new ConcurrentHashMap<>();
+    private final AtomicLong inferCount = new AtomicLong();
+    private volatile boolean ready = true;
+    private volatile Latency extraLatency = Latency.none();
+    private volatile double errorRate = 0;
+    private volatile int errorStatus = 500;
+
+    /**
+     * Set system property sun.net.httpserver.nodelay unless already set, so that sockets of every JDK HTTP server in
+     * this JVM disable Nagle's algorithm, not only those of mocks. The property is read once, when the first server of
+     * the JVM is created, so this must be called before that to take effect.
+     */
+    public static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Start a server on an ephemeral port, see {@link #getAddress()}.
+     */
+    public MockTritonServer() throws IOException {
+        this(0);
+    }
+
+    public MockTritonServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mock-triton-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/v2", this::handle);
+        this.server.start();
+    }
+
+    public MockTritonServer addModel(MockModel model) {
+        this.models.put(model.getName(), model);
+        return this;
+    }
+
+    /**
+     * Address to connect to, in "ip:port" format of {@link com.nvidia.triton.contrib.endpoint.FixedEndpoint}.
+     */
+    public String getAddress() {
+        return "127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * Number of inference requests received, failed ones included.
+     */
+    public long getInferCount() {
+        return inferCount.get();
+    }
+
+    /**
+     * Set whether /v2/health/ready and model readiness succeed, true by default.
+     */
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Delay every inference request by a latency on top of the latency of its model, as a slow replica does.
+     */
+    public void setExtraLatency(Latency extraLatency) {
+        Preconditions.checkArgument(extraLatency != null, "extraLatency should not be null.");
+        this.extraLatency = extraLatency;
+    }
+
+    /**
+     * Fail a fraction of inference requests, after the extra latency of this server and before running the model.
+     *
+     * @param errorRate   probability of failing a request, 0 to never fail which is the default.
+     * @param errorStatus HTTP status of failures, like 500 or 503.
+     */
+    public void setErrorRate(double errorRate, int errorStatus) {
+        Preconditions.checkArgument(errorRate >= 0 && errorRate <= 1, "Invalid errorRate: %s", errorRate);
+        Preconditions.checkArgument(errorStatus >= 400 && errorStatus < 600, "Invalid errorStatus: %s", errorStatus);
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/v2/health/live")) {
+                respond(exchange, 200, null);
+            } else if (path.equals("/v2/health/ready")) {
+                respond(exchange, this.ready ? 200 : 503, null);
+            } else if (path.startsWith(MODELS_PATH)) {
+                this.handleModel(exchange, path.substring(MODELS_PATH.length()));
+            } else {
+                respondError(exchange, 404, "Not found: " + path);
+            }
+        } catch (RuntimeException | IOException e) {
+            respondError(exchange, 400, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param path path after /v2/models/, like "m/versions/1/infer".
+     */
+    private void handleModel(HttpExchange exchange, String path) throws IOException {
+        String[] parts = path.split("/");
+        String name = URLDecoder.decode(parts[0], StandardCharsets.UTF_8.name());
+        String version = null;
+        int pos = 1;
+        if (parts.length > 2 && parts[1].equals("versions")) {
+            version = parts[2];
+            pos = 3;
+        }
+        String action = parts.length > pos ? parts[pos] : "";
+        MockModel model = this.models.get(name);
+        if (model == null || version != null && !version.equals(model.getVersion())) {
+            respondError(exchange, 400, String.format("Request for unknown model: '%s' version %s is not found", name,
+                version));
+            return;
+        }
+        switch (action) {
+            case "":
+                respond(exchange, 200, Util.toJson(metadata(model)).getBytes(StandardCharsets.UTF_8));
+                break;
+            case "ready":
+                respond(exchange, this.ready ? 200 : 400, null);
+                break;
+            case "config":
+                respond(exchange, 200, Util.toJson(config(model)).getBytes(StandardCharsets.UTF_8));
+                break;
+            case "infer":
+                this.infer(exchange, model);
+                break;
+            default:
+                respondError(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private static ModelMetadata metadata(MockModel model) {
+        ModelMetadata metadata = new ModelMetadata();
+        metadata.setName(model.getName());
+        metadata.setVersions(Collections.singletonList(model.getVersion()));
+        metadata.setPlatform("mock");
+        metadata.setInputs(model.getInputs());
+        metadata.setOutputs(model.getOutputs());
+        return metadata;
+    }
+
+    private static ObjectNode config(MockModel model) {
+        ObjectNode config = JsonNodeFactory.instance.objectNode();
+        config.put("name", model.getName());
+        config.put("platform", "mock");
+        config.put("max_batch_size", model.getMaxBatchSize());
+        configTensors(config.putArray("input"), model.getInputs(), model.getMaxBatchSize() > 0);
+        configTensors(config.putArray("output"), model.getOutputs(), model.getMaxBatchSize() > 0);
+        return config;
+    }
+
+    private static void configTensors(ArrayNode dst, List<IOTensor> tensors, boolean batching) {
+        for (IOTensor tensor : tensors) {
+            ObjectNode node = dst.addObject();
+            node.put("name", tensor.getName());
+            DataType dataType = tensor.getDatatype();
+            node.put("data_type", "TYPE_" + (dataType == DataType.BYTES ? "STRING" : dataType.name()));
+            ArrayNode dims = node.putArray("dims");
+            // Config dims exclude the batch dimension.
+            long[] shape = tensor.getShape();
+            for (int i = batching ? 1 : 0; i < shape.length; i++) {
+                dims.add(shape[i]);
+            }
+        }
+    }
+
+    private void infer(HttpExchange exchange, MockModel model) throws IOException {
+        this.inferCount.incrementAndGet();
+        byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+        sleep(this.extraLatency.nextNanos());
+        if (this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+            respondError(exchange, this.errorStatus, "Injected failure");
+            return;
+        }
+        String headerLength = exchange.getRequestHeaders().getFirst("Inference-Header-Content-Length");
+        int jsonLength = headerLength == null ? body.length : Integer.parseInt(headerLength);
+        Preconditions.checkArgument(jsonLength <= body.length, "Inference header of %s bytes exceeds body of %s bytes.",
+            jsonLength, body.length);
+        JsonNode request = Util.fromJson(body, 0, jsonLength, JsonNode.class);
+        List<Tensor> inputs = readInputs(request.path("inputs"), body, jsonLength);
+        sleep(model.getLatency().nextNanos());
+        List<Tensor> outputs = run(model, inputs);
+
+        boolean binaryByDefault = request.path("parameters").path("binary_data_output").asBoolean(false);
+        List<Tensor> selected = new ArrayList<>();
+        List<Boolean> binary = new ArrayList<>();
+        JsonNode requested = request.path("outputs");
+        if (requested.size() == 0) {
+            selected.addAll(outputs);
+            binary.addAll(Collections.nCopies(outputs.size(), binaryByDefault));
+        }
+        for (JsonNode output : requested) {
+            String name = output.path("name").asText();
+            Tensor tensor = outputs.stream().filter(t -> t.name.equals(name)).findFirst().orElseThrow(
+                () -> new IllegalArgumentException("Unexpected inference output '" + name + "' for model '"
+                    + model.getName() + "'"));
+            selected.add(tensor);
+            binary.add(output.path("parameters").path("binary_data").asBoolean(binaryByDefault));
+        }
+
+        ObjectNode response = JsonNodeFactory.instance.objectNode();
+        response.put("model_name", model.getName());
+        response.put("model_version", model.getVersion());
+        if (request.hasNonNull("id")) {
+            response.put("id", request.get("id").asText());
+        }
+        ArrayNode outputNodes = response.putArray("outputs");
+        ByteArrayOutputStream binaryData = new ByteArrayOutputStream();
+        for (int i = 0; i < selected.size(); i++) {
+            Tensor tensor = selected.get(i);
+            ObjectNode node = outputNodes.addObject();
+            node.put("name", tensor.name);
+            node.put("datatype", tensor.dataType.name());
+            ArrayNode shape = node.putArray("shape");
+            Arrays.stream(tensor.shape).forEach(shape::add);
+            if (binary.get(i)) {
+                node.putObject("parameters").put(Parameters.KEY_BINARY_DATA_SIZE, tensor.data.length);
+                binaryData.write(tensor.data);
+            } else {
+                node.set("data", toJson(tensor));
+            }
+        }
+        byte[] header = Util.toJson(response).getBytes(StandardCharsets.UTF_8);
+        if (binaryData.size() > 0) {
+            exchange.getResponseHeaders().set("Inference-Header-Content-Length", String.valueOf(header.length));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, header.length + binaryData.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(header);
+            binaryData.writeTo(os);
+        }
+    }
+
+    /**
+     * Tensor with data in binary format.
+     */
+    private static class Tensor {
+        private final String name;
+        private final DataType dataType;
+        private final long[] shape;
+        private final byte[] data;
+
+        private Tensor(String name, DataType dataType, long[] shape, byte[] data) {
+            this.name = name;
+            this.dataType = dataType;
+            this.shape = shape;
+            this.data = data;
+        }
+    }
+
+    private static List<Tensor> readInputs(JsonNode inputs, byte[] body, int binaryStart) {
+        List<Tensor> ret = new ArrayList<>();
+        int pos = binaryStart;
+        for (JsonNode input : inputs) {
+            String name = input.path("name").asText();
+            DataType dataType = DataType.valueOf(input.path("datatype").asText());
+            long[] shape = new long[input.path("shape").size()];
+            for (int i = 0; i < shape.length; i++) {
+                shape[i] = input.path("shape").get(i).asLong();
+            }
+            JsonNode parameters = input.path("parameters");
+            Preconditions.checkArgument(!parameters.has(Parameters.KEY_SHARED_MEMORY_REGION),
+                "Shared memory is not supported by mock server.");
+            byte[] data;
+            if (parameters.has(Parameters.KEY_BINARY_DATA_SIZE)) {
+                int size = parameters.get(Parameters.KEY_BINARY_DATA_SIZE).asInt();
+                Preconditions.checkArgument(size >= 0 && pos + size <= body.length,
+                    "Binary data of input '%s' exceeds request body.", name);
+                data = Arrays.copyOfRange(body, pos, pos + size);
+                pos += size;
+            } else {
+                data = BinaryProtocol.toBytes(dataType, fromJson(dataType, input.path("data")));
+            }
+            ret.add(new Tensor(name, dataType, shape, data));
+        }
+        Preconditions.checkArgument(pos == body.length, "Request body has %s bytes of unexpected binary data.",
+            body.length - pos);
+        return ret;
+    }
+
+    private static List<Tensor> run(MockModel model, List<Tensor> inputs) {
+        if (model.isEcho()) {
+            return inputs;
+        }
+        long batchSize = inputs.isEmpty() || inputs.get(0).shape.length == 0 ? 1 : inputs.get(0).shape[0];
+        List<Tensor> ret = new ArrayList<>();
+        for (IOTensor output : model.getOutputs()) {
+            long[] shape = output.getShape().clone();
+            for (int i = 0; i < shape.length; i++) {
+                shape[i] = shape[i] < 0 ? batchSize : shape[i];
+            }
+            // Zeros, or zero lengths of empty strings.
+            long numElem = Util.elemNumFromShape(shape);
+            int width = output.getDatatype() == DataType.BYTES ? 4 : output.getDatatype().numByte;
+            ret.add(new Tensor(output.getName(), output.getDatatype(), shape, new byte[(int)(numElem * width)]));
+        }
+        return ret;
+    }
+
+    /**
+     * Convert JSON data, flat or nested, into an array accepted by {@link BinaryProtocol#toBytes(DataType, Object)}.
+     */
+    private static Object fromJson(DataType dataType, JsonNode data) {
+        List<JsonNode> values = new ArrayList<>();
+        flatten(data, values);
+        int n = values.size();
+        switch (dataType) {
+            case BOOL: {
+                boolean[] ret = new boolean[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = values.get(i).asBoolean();
+                }
+                return ret;
+            }
+            case INT8:
+            case UINT8: {
+                byte[] ret = new byte[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = (byte)values.get(i).asInt();
+                }
+                return ret;
+            }
+            case INT16:
+            case UINT16: {
+                short[] ret = new short[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = (short)values.get(i).asInt();
+                }
+                return ret;
+            }
+            case INT32:
+            case UINT32: {
+                int[] ret = new int[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = (int)values.get(i).asLong();
+                }
+                return ret;
+            }
+            case INT64:
+            case UINT64: {
+                long[] ret = new long[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = values.get(i).bigIntegerValue().longValue();
+                }
+                return ret;
+            }
+            case FP32: {
+                float[] ret = new float[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = (float)values.get(i).asDouble();
+                }
+                return ret;
+            }
+            case FP64: {
+                double[] ret = new double[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = values.get(i).asDouble();
+                }
+                return ret;
+            }
+            case BYTES: {
+                String[] ret = new String[n];
+                for (int i = 0; i < n; i++) {
+                    ret[i] = values.get(i).asText();
+                }
+                return ret;
+            }
+            default:
+                throw new IllegalArgumentException(dataType + " data is not supported in JSON format.");
+        }
+    }
+
+    private static void flatten(JsonNode node, List<JsonNode> dst) {
+        if (node.isArray()) {
+            node.forEach(child -> flatten(child, dst));
+        } else if (!node.isMissingNode()) {
+            dst.add(node);
+        }
+    }
+
+    private static ArrayNode toJson(Tensor tensor) {
+        ArrayNode ret = JsonNodeFactory.instance.arrayNode();
+        int numElem = (int)Util.elemNumFromShape(tensor.shape);
+        ByteBuffer buf = ByteBuffer.wrap(tensor.data);
+        if (tensor.dataType == DataType.BYTES) {
+            Arrays.stream(BytesTensor.parse(buf, numElem).toStringArray()).forEach(ret::add);
+            return ret;
+        }
+        Preconditions.checkArgument(tensor.dataType != DataType.FP16 && tensor.dataType != DataType.BF16,
+            "%s data is not supported in JSON format.", tensor.dataType);
+        Object data = BinaryProtocol.fromBytes(tensor.dataType, buf, numElem);
+        for (int i = 0; i < numElem; i++) {
+            switch (tensor.dataType) {
+                case BOOL: ret.add(((boolean[])data)[i]); break;
+                case INT8: ret.add(((byte[])data)[i]); break;
+                case UINT8: ret.add(((byte[])data)[i] & 0xFF); break;
+                case INT16: ret.add(((short[])data)[i]); break;
+                case UINT16: ret.add(((short[])data)[i] & 0xFFFF); break;
+                case INT32: ret.add(((int[])data)[i]); break;
+                case UINT32: ret.add(((int[])data)[i] & 0xFFFFFFFFL); break;
+                case INT64: ret.add(((long[])data)[i]); break;
+                case UINT64: ret.add(new BigInteger(Long.toUnsignedString(((long[])data)[i]))); break;
+                case FP32: ret.add(((float[])data)[i]); break;
+                case FP64: ret.add(((double[])data)[i]); break;
+                default: throw new IllegalArgumentException("Unsupported data type: " + tensor.dataType);
+            }
+        }
+        return ret;
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            // Failed while writing a response, the client sees a broken response.
+            LOG.debug("Failed to respond to " + exchange.getRequestURI() + ": " + message);
+            return;
+        }
+        try {
+            ObjectNode error = JsonNodeFactory.instance.objectNode();
+            error.put("error", message);
+            respond(exchange, status, Util.toJson(error).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.debug("Failed to respond to " + exchange.getRequestURI(), e);
+        }
+    }
+}
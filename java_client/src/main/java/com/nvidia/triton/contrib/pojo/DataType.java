@@ -15,6 +15,7 @@ public enum DataType {
     UINT32(4, false),
     UINT64(8, false),
     FP16(2, false),
+    BF16(2, false),
     FP32(4, false),
     FP64(8, false),
     BYTES(-1, false);
@@ -1,7 +1,11 @@
 package com.nvidia.triton.contrib.pojo;
 
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.nvidia.triton.contrib.Util;
 
 /**
  * This class represent
@@ -18,6 +22,15 @@ public class IOTensor {
     private DataType datatype;
     private Parameters parameters;
     private Object[] data;
+    /**
+     * Data decoded straight into a primitive array matching datatype (String[] for BYTES), set instead of data by the
+     * streaming response decoder.
+     */
+    private Object dataArray;
+    /**
+     * Decodes dataArray on first access, set instead of dataArray by the response decoder in lazy mode.
+     */
+    private volatile Supplier<Object> dataLoader;
 
     public IOTensor() {
     }
@@ -55,10 +68,48 @@ public class IOTensor {
     }
 
     public Object[] getData() {
+        if (data == null && getDataArray() != null) {
+            data = Util.boxArray(datatype, dataArray);
+        }
         return data;
     }
 
     public void setData(Object[] data) {
         this.data = data;
     }
+
+    /**
+     * Get data decoded into a primitive array, decoding it now if it was deferred.
+     *
+     * @throws java.io.UncheckedIOException if deferred data is malformed.
+     */
+    @JsonIgnore
+    public Object getDataArray() {
+        if (dataLoader != null) {
+            synchronized (this) {
+                Supplier<Object> loader = dataLoader;
+                if (loader != null) {
+                    dataArray = loader.get();
+                    dataLoader = null;
+                }
+            }
+        }
+        return dataArray;
+    }
+
+    @JsonIgnore
+    public void setDataArray(Object dataArray) {
+        this.dataArray = dataArray;
+        this.dataLoader = null;
+    }
+
+    /**
+     * Defer decoding of data until first access of {@link #getDataArray()} or {@link #getData()}.
+     *
+     * @param dataLoader decodes data into a primitive array, called at most once.
+     */
+    @JsonIgnore
+    public void setDataLoader(Supplier<Object> dataLoader) {
+        this.dataLoader = dataLoader;
+    }
 }
@@ -0,0 +1,84 @@
+package com.nvidia.triton.contrib.pojo;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * JSON object for
+ * <a href="https://github.com/kubeflow/kfserving/blob/master/docs/predict-api/v2/rest_predict_v2.yaml#L196">metadata_model_response</a>
+ * object in kfserving's v2 rest schema. Inputs and outputs only carry name, datatype and shape, dynamic dimensions are
+ * -1.
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ModelMetadata {
+
+    private String name;
+    private List<String> versions;
+    private String platform;
+    private List<IOTensor> inputs;
+    private List<IOTensor> outputs;
+
+    public ModelMetadata() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getVersions() {
+        return versions;
+    }
+
+    public void setVersions(List<String> versions) {
+        this.versions = versions;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public void setPlatform(String platform) {
+        this.platform = platform;
+    }
+
+    public List<IOTensor> getInputs() {
+        return inputs;
+    }
+
+    public void setInputs(List<IOTensor> inputs) {
+        this.inputs = inputs;
+    }
+
+    public List<IOTensor> getOutputs() {
+        return outputs;
+    }
+
+    public void setOutputs(List<IOTensor> outputs) {
+        this.outputs = outputs;
+    }
+
+    /**
+     * Get input by its name.
+     *
+     * @return null if not found.
+     */
+    public IOTensor getInputByName(String name) {
+        if (this.inputs == null) {
+            return null;
+        }
+        for (IOTensor input : this.inputs) {
+            if (input.getName().equals(name)) {
+                return input;
+            }
+        }
+        return null;
+    }
+}
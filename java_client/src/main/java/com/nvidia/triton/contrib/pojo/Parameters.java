@@ -1,15 +1,16 @@
 package com.nvidia.triton.contrib.pojo;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -27,6 +28,9 @@ import com.nvidia.triton.contrib.pojo.Parameters.ParamSerializer;
 public class Parameters {
 
     public final static String KEY_BINARY_DATA_SIZE = "binary_data_size";
+    public final static String KEY_SHARED_MEMORY_REGION = "shared_memory_region";
+    public final static String KEY_SHARED_MEMORY_BYTE_SIZE = "shared_memory_byte_size";
+    public final static String KEY_SHARED_MEMORY_OFFSET = "shared_memory_offset";
 
     private Map<String, Object> params;
 
@@ -68,6 +72,15 @@ public class Parameters {
         return this.params.isEmpty();
     }
 
+    /**
+     * Get all parameters.
+     *
+     * @return read only view of parameter key-values.
+     */
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableMap(this.params).entrySet();
+    }
+
     /**
      * Get an parameter value as bool. Some conversions are done under the hood.
      *
@@ -181,9 +194,10 @@ public class Parameters {
         @Override
         public Parameters deserialize(JsonParser p, DeserializationContext ctx)
             throws IOException {
-            ObjectMapper mapper = new ObjectMapper();
-            final Map<String, Object> obj = mapper.readValue(p,
-                new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
+            // Read with the context deserializing the enclosing value, a new ObjectMapper per call costs more than
+            // the parameters themselves.
+            final Map<String, Object> obj = ctx.readValue(p,
+                ctx.getTypeFactory().constructMapType(HashMap.class, String.class, Object.class));
             return new Parameters(obj);
         }
     }
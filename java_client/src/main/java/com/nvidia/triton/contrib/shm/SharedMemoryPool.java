@@ -0,0 +1,134 @@
+package com.nvidia.triton.contrib.shm;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.InferenceException;
+import com.nvidia.triton.contrib.InferenceServerClient;
+import com.nvidia.triton.contrib.Util;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A pool of system shared memory regions registered on one server. Regions are created and registered on first use,
+ * then recycled by size class, so that in steady state requests neither create nor register regions. All methods are
+ * thread safe.
+ */
+public class SharedMemoryPool implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(SharedMemoryPool.class);
+
+    /**
+     * Smallest region size, one page.
+     */
+    private static final int MIN_REGION_SIZE = 4096;
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    private final InferenceServerClient client;
+    private final String namePrefix;
+    private final AtomicInteger regionSeq = new AtomicInteger(0);
+    private final ConcurrentHashMap<Integer, Queue<SystemSharedMemoryRegion>> freeRegions = new ConcurrentHashMap<>();
+    private final Set<SystemSharedMemoryRegion> allRegions = ConcurrentHashMap.newKeySet();
+    /**
+     * Regions handed out by acquire and not released yet.
+     */
+    private final Set<SystemSharedMemoryRegion> acquiredRegions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a shared memory pool.
+     *
+     * @param client     client of the server to register regions on.
+     * @param namePrefix prefix of region names and shared memory keys, must be unique among processes sharing the
+     *                   server.
+     */
+    public SharedMemoryPool(InferenceServerClient client, String namePrefix) {
+        Preconditions.checkArgument(client != null, "client should not be null.");
+        Preconditions.checkArgument(!Util.isEmpty(namePrefix) && namePrefix.indexOf('/') < 0,
+            "Invalid namePrefix: %s", namePrefix);
+        this.client = client;
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * Get a registered region of at least byteSize bytes, creating one if no free region is left.
+     *
+     * @param byteSize minimum size of region.
+     * @return a region, which should be given back by {@link #release(SystemSharedMemoryRegion)}.
+     * @throws IOException        if the shared memory object could not be created.
+     * @throws InferenceException if the region could not be registered on server.
+     */
+    public SystemSharedMemoryRegion acquire(int byteSize) throws IOException, InferenceException {
+        Preconditions.checkArgument(byteSize > 0 && byteSize <= MAX_REGION_SIZE, "Invalid byteSize: %s", byteSize);
+        int sizeClass = sizeClass(byteSize);
+        SystemSharedMemoryRegion region = this.freeList(sizeClass).poll();
+        if (region != null) {
+            this.acquiredRegions.add(region);
+            return region;
+        }
+        String name = this.namePrefix + "_" + this.regionSeq.getAndIncrement();
+        region = SystemSharedMemoryRegion.create(name, "/" + name, sizeClass);
+        try {
+            this.client.registerSystemSharedMemory(region);
+        } catch (InferenceException e) {
+            region.close();
+            throw e;
+        }
+        this.allRegions.add(region);
+        this.acquiredRegions.add(region);
+        return region;
+    }
+
+    /**
+     * Give a region back to the pool.
+     *
+     * @param region region got from {@link #acquire(int)}.
+     * @throws IllegalStateException if the region was released already, as two later acquisitions would then share it.
+     */
+    public void release(SystemSharedMemoryRegion region) {
+        Preconditions.checkArgument(this.allRegions.contains(region), "Region %s is not from this pool.",
+            region.getName());
+        Preconditions.checkState(this.acquiredRegions.remove(region), "Region %s is released already.",
+            region.getName());
+        this.freeList(region.getByteSize()).offer(region);
+    }
+
+    private Queue<SystemSharedMemoryRegion> freeList(int sizeClass) {
+        return this.freeRegions.computeIfAbsent(sizeClass, k -> new ConcurrentLinkedQueue<>());
+    }
+
+    private static int sizeClass(int byteSize) {
+        if (byteSize <= MIN_REGION_SIZE) {
+            return MIN_REGION_SIZE;
+        }
+        int highest = Integer.highestOneBit(byteSize);
+        return highest == byteSize ? byteSize : highest << 1;
+    }
+
+    /**
+     * Unregister all regions from server and remove their shared memory objects. Regions must not be used afterwards,
+     * their mappings are reclaimed by garbage collection once no view of them is left.
+     */
+    @Override
+    public void close() {
+        for (SystemSharedMemoryRegion region : this.allRegions) {
+            try {
+                this.client.unregisterSystemSharedMemory(region.getName());
+            } catch (InferenceException e) {
+                LOG.warn("Failed to unregister shared memory region " + region.getName(), e);
+            }
+            try {
+                region.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to remove shared memory object " + region.getKey(), e);
+            }
+        }
+        this.allRegions.clear();
+        this.acquiredRegions.clear();
+        this.freeRegions.clear();
+    }
+}
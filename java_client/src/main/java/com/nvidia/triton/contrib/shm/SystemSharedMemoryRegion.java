@@ -0,0 +1,118 @@
+package com.nvidia.triton.contrib.shm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.Preconditions;
+import com.nvidia.triton.contrib.Util;
+
+/**
+ * A POSIX shared memory object mapped into this process, to be registered with a co-located Triton server through its
+ * system shared memory extension. Tensors written into the region are read by the server without going through the
+ * HTTP body, and outputs placed into the region by the server are read back from the mapping.
+ * <p>
+ * The shared memory object lives in /dev/shm, which is what shm_open on Linux uses, so the key given to the server is
+ * the file name prefixed with "/".
+ */
+public class SystemSharedMemoryRegion implements AutoCloseable {
+
+    private static final String SHM_DIR = "/dev/shm";
+
+    /**
+     * Name of region registered on server.
+     */
+    private final String name;
+    /**
+     * Key of the shared memory object, in "/name" format.
+     */
+    private final String key;
+    private final int byteSize;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    private SystemSharedMemoryRegion(String name, String key, int byteSize, Path path, MappedByteBuffer buffer) {
+        this.name = name;
+        this.key = key;
+        this.byteSize = byteSize;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create, or open if exists, a shared memory object and map it.
+     *
+     * @param name     name to register the region on server with.
+     * @param key      key of shared memory object in "/name" format.
+     * @param byteSize size of region in bytes.
+     * @return the mapped region.
+     * @throws IOException if the shared memory object could not be created or mapped.
+     */
+    public static SystemSharedMemoryRegion create(String name, String key, int byteSize) throws IOException {
+        Preconditions.checkArgument(!Util.isEmpty(name), "name should not be null or empty.");
+        Preconditions.checkArgument(key != null && key.startsWith("/") && key.indexOf('/', 1) < 0,
+            "key should be in /name format: %s", key);
+        Preconditions.checkArgument(byteSize > 0, "Invalid byteSize: %s", byteSize);
+        Path path = Paths.get(SHM_DIR, key.substring(1));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, byteSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new SystemSharedMemoryRegion(name, key, byteSize, path, buffer);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getByteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Get a little-endian view of part of this region. Reads and writes through the view go to shared memory.
+     *
+     * @param offset start of the view in region.
+     * @param length length of the view.
+     * @return the view.
+     */
+    public ByteBuffer asByteBuffer(int offset, int length) {
+        Preconditions.checkArgument(offset >= 0 && length >= 0 && (long)offset + length <= this.byteSize,
+            "Range [%s, %s) out of region %s of size %s.", offset, (long)offset + length, this.name, this.byteSize);
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Copy bytes into region, typically tensor data produced by {@link com.nvidia.triton.contrib.BinaryProtocol}.
+     *
+     * @param offset start position in region.
+     * @param data   bytes to copy.
+     */
+    public void write(int offset, byte[] data) {
+        this.asByteBuffer(offset, data.length).put(data);
+    }
+
+    /**
+     * Remove the shared memory object. The mapping stays valid until it is garbage collected, so the region must not
+     * be used afterwards, and it should have been unregistered from the server before.
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+}
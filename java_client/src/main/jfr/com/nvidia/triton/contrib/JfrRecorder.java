@@ -0,0 +1,262 @@
+package com.nvidia.triton.contrib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Strings;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link FlightRecorderEvents.Recorder} emitting Java Flight Recorder events. Compiled from its own source root
+ * against jdk.jfr, which the Java 8 API of the rest of the SDK does not have, and only loaded when the running JVM
+ * has JFR.
+ */
+final class JfrRecorder implements FlightRecorderEvents.Recorder {
+
+    private static final AtomicLong CALL_IDS = new AtomicLong();
+
+    private static String errorOf(Throwable error) {
+        return error == null ? null : error.toString();
+    }
+
+    @Override
+    public Object beginRequest(String model, String requestId) {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        event.model = model;
+        event.requestId = Strings.emptyToNull(requestId);
+        event.callId = CALL_IDS.incrementAndGet();
+        return event;
+    }
+
+    @Override
+    public long callIdOf(Object request) {
+        return request == null ? 0 : ((RequestEvent)request).callId;
+    }
+
+    @Override
+    public void onAttempt(Object request, String endpoint, long requestBytes, long responseBytes) {
+        if (request == null) {
+            return;
+        }
+        RequestEvent event = (RequestEvent)request;
+        event.endpoint = endpoint;
+        event.attempts++;
+        event.requestBytes = requestBytes;
+        event.responseBytes = responseBytes;
+    }
+
+    @Override
+    public void commitRequest(Object request, Throwable error) {
+        if (request == null) {
+            return;
+        }
+        RequestEvent event = (RequestEvent)request;
+        event.end();
+        if (event.shouldCommit()) {
+            event.error = errorOf(error);
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginEncode() {
+        EncodeEvent event = new EncodeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitEncode(Object encode, Object request, String model, String requestId, long bytes) {
+        if (encode == null) {
+            return;
+        }
+        EncodeEvent event = (EncodeEvent)encode;
+        event.end();
+        if (event.shouldCommit()) {
+            event.model = model;
+            event.requestId = Strings.emptyToNull(requestId);
+            event.callId = callIdOf(request);
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginPoolLease() {
+        PoolLeaseEvent event = new PoolLeaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitPoolLease(Object lease, Object request, String endpoint, int attempt) {
+        if (lease == null) {
+            return;
+        }
+        PoolLeaseEvent event = (PoolLeaseEvent)lease;
+        if (event.shouldCommit()) {
+            RequestEvent call = (RequestEvent)request;
+            event.model = call == null ? null : call.model;
+            event.requestId = call == null ? null : call.requestId;
+            event.callId = callIdOf(request);
+            event.endpoint = endpoint;
+            event.attempt = attempt;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginDecode() {
+        DecodeEvent event = new DecodeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitDecode(Object decode, Object request, String model, String endpoint, String output,
+                             long bytes) {
+        if (decode == null) {
+            return;
+        }
+        DecodeEvent event = (DecodeEvent)decode;
+        if (event.shouldCommit()) {
+            RequestEvent call = (RequestEvent)request;
+            event.model = call == null ? model : call.model;
+            event.requestId = call == null ? null : call.requestId;
+            event.callId = callIdOf(request);
+            event.endpoint = endpoint;
+            event.output = output;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void end(Object event) {
+        if (event != null) {
+            ((Event)event).end();
+        }
+    }
+
+    @Override
+    public void retry(Object request, String model, String endpoint, int retry, Throwable error) {
+        RetryEvent event = new RetryEvent();
+        if (event.shouldCommit()) {
+            RequestEvent call = (RequestEvent)request;
+            event.model = model;
+            event.requestId = call == null ? null : call.requestId;
+            event.callId = callIdOf(request);
+            event.endpoint = endpoint;
+            event.retry = retry;
+            event.error = errorOf(error);
+            event.commit();
+        }
+    }
+
+    @Category("Triton")
+    @StackTrace(false)
+    abstract static class BaseEvent extends Event {
+        @Label("Model")
+        String model;
+
+        @Label("Request ID")
+        @Description("Request id of inference arguments")
+        String requestId;
+
+        @Label("Call ID")
+        @Description("Number of the call in this JVM, shared by its events")
+        long callId;
+    }
+
+    @Name("com.nvidia.triton.contrib.InferenceRequest")
+    @Label("Inference Request")
+    @Description("Inference call from start until its result is available, encoding and retries included")
+    static class RequestEvent extends BaseEvent {
+        @Label("Endpoint")
+        @Description("Address of the last attempt")
+        String endpoint;
+
+        @Label("Attempts")
+        int attempts;
+
+        @Label("Request Bytes")
+        @DataAmount
+        long requestBytes;
+
+        @Label("Response Bytes")
+        @DataAmount
+        long responseBytes;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("com.nvidia.triton.contrib.InferenceEncode")
+    @Label("Inference Encode")
+    @Description("Encoding the JSON header and framing the request body")
+    static class EncodeEvent extends BaseEvent {
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.nvidia.triton.contrib.InferencePoolLease")
+    @Label("Inference Pool Lease")
+    @Description("Attempt waiting for a pooled connection, or connecting a new one, until its request is written")
+    static class PoolLeaseEvent extends BaseEvent {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Attempt")
+        int attempt;
+    }
+
+    @Name("com.nvidia.triton.contrib.InferenceDecode")
+    @Label("Inference Decode")
+    @Description("Parsing the JSON header of a response, or decoding data of a lazily decoded output")
+    static class DecodeEvent extends BaseEvent {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Output")
+        @Description("Output decoded on access, null for a response")
+        String output;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.nvidia.triton.contrib.InferenceRetry")
+    @Label("Inference Retry")
+    @Description("Failed attempt being retried")
+    static class RetryEvent extends BaseEvent {
+        @Label("Endpoint")
+        @Description("Address of the failed attempt")
+        String endpoint;
+
+        @Label("Retry")
+        int retry;
+
+        @Label("Error")
+        String error;
+    }
+}
@@ -0,0 +1,88 @@
+package com.nvidia.triton.contrib;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryProtocolTest {
+
+    @Test
+    void testRoundTrip() {
+        boolean[] bools = {true, false, true};
+        assertArrayEquals(bools, (boolean[])decode(DataType.BOOL, BinaryProtocol.toBytes(DataType.BOOL, bools), 3));
+        byte[] bytes = {1, -2, 3};
+        assertArrayEquals(bytes, (byte[])decode(DataType.UINT8, BinaryProtocol.toBytes(DataType.UINT8, bytes), 3));
+        short[] shorts = {1, -2, Short.MAX_VALUE};
+        assertArrayEquals(shorts, (short[])decode(DataType.INT16, BinaryProtocol.toBytes(DataType.INT16, shorts), 3));
+        int[] ints = {1, -2, Integer.MAX_VALUE};
+        assertArrayEquals(ints, (int[])decode(DataType.UINT32, BinaryProtocol.toBytes(DataType.UINT32, ints), 3));
+        long[] longs = {1, -2, Long.MAX_VALUE};
+        assertArrayEquals(longs, (long[])decode(DataType.INT64, BinaryProtocol.toBytes(DataType.INT64, longs), 3));
+        float[] floats = {1.5F, -2F, Float.NaN};
+        assertArrayEquals(floats, (float[])decode(DataType.FP32, BinaryProtocol.toBytes(DataType.FP32, floats), 3));
+        double[] doubles = {1.5, -2, Double.MIN_VALUE};
+        assertArrayEquals(doubles,
+            (double[])decode(DataType.FP64, BinaryProtocol.toBytes(DataType.FP64, doubles), 3));
+    }
+
+    private static Object decode(DataType dataType, byte[] bytes, int numElem) {
+        return BinaryProtocol.fromBytes(dataType, ByteBuffer.wrap(bytes), numElem);
+    }
+
+    @Test
+    void testFromBytes_Buffer() {
+        // Data is little-endian whatever the order of the buffer, starts at its position which is left unchanged.
+        ByteBuffer buf = ByteBuffer.allocate(12).order(ByteOrder.BIG_ENDIAN);
+        buf.putInt(0, 99);
+        buf.position(4);
+        buf.duplicate().order(ByteOrder.LITTLE_ENDIAN).putInt(7).putInt(-8);
+        assertArrayEquals(new int[] {7, -8}, (int[])BinaryProtocol.fromBytes(DataType.INT32, buf, 2));
+        assertEquals(4, buf.position());
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.fromBytes(DataType.INT32, buf, 3));
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.fromBytes(DataType.BYTES, buf, 1));
+    }
+
+    @Test
+    void testBytes() {
+        String[] strings = {"", "ab", "\u00e9", "\u4e2d\u6587", "\ud83d\ude00"};
+        byte[] expected = legacyBytes(strings);
+        assertArrayEquals(expected, BinaryProtocol.toBytes(DataType.BYTES, strings));
+        assertEquals(expected.length, BinaryProtocol.bytesLength(strings));
+
+        // Character sequences and raw elements mixed, written at the position of a larger buffer.
+        Object[] mixed = {new StringBuilder("ab"), "\u4e2d\u6587".getBytes(StandardCharsets.UTF_8), "\ud83d\ude00"};
+        ByteBuffer buf = ByteBuffer.allocate(BinaryProtocol.bytesLength(mixed) + 2);
+        buf.position(2);
+        BinaryProtocol.encodeBytes(mixed, buf);
+        assertEquals(2, buf.position());
+        assertArrayEquals(legacyBytes(new String[] {"ab", "\u4e2d\u6587", "\ud83d\ude00"}),
+            Arrays.copyOfRange(buf.array(), 2, buf.capacity()));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.bytesLength(new String[] {"\ud83d"}));
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.bytesLength(new Object[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.toBytes(DataType.INT8, strings));
+    }
+
+    /**
+     * Encoding of BYTES elements through String#getBytes.
+     */
+    private static byte[] legacyBytes(String[] strings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.write(Util.intToBytes(bytes.length), 0, 4);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+}
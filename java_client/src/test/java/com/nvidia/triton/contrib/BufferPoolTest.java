@@ -0,0 +1,66 @@
+package com.nvidia.triton.contrib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BufferPoolTest {
+
+    @Test
+    void testSizeClasses() {
+        BufferPool pool = new BufferPool(1 << 20, 1 << 24);
+        assertEquals(4096, pool.acquire(0).array().length);
+        assertEquals(4096, pool.acquire(4096).array().length);
+        assertEquals(8192, pool.acquire(4097).array().length);
+        assertEquals(1 << 20, pool.acquire((1 << 19) + 1).array().length);
+        // Larger than the largest class, exact size and never pooled.
+        PooledBuffer large = pool.acquire((1 << 20) + 1);
+        assertEquals((1 << 20) + 1, large.array().length);
+        large.release();
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    void testRecycle() {
+        BufferPool pool = new BufferPool(1 << 20, 1 << 24);
+        PooledBuffer buf = pool.acquire(5000);
+        byte[] array = buf.array();
+        buf.retain();
+        buf.release();
+        assertEquals(0, pool.getPooledBytes());
+        buf.release();
+        assertEquals(8192, pool.getPooledBytes());
+
+        // Same class reuses the array, another class does not.
+        assertNotSame(array, pool.acquire(100).array());
+        PooledBuffer again = pool.acquire(6000);
+        assertSame(array, again.array());
+        assertEquals(0, pool.getPooledBytes());
+        again.release();
+    }
+
+    @Test
+    void testPooledBytesCap() {
+        BufferPool pool = new BufferPool(1 << 20, 8192);
+        PooledBuffer a = pool.acquire(8192);
+        PooledBuffer b = pool.acquire(4096);
+        a.release();
+        b.release();
+        assertEquals(8192, pool.getPooledBytes());
+    }
+
+    @Test
+    void testReleased() {
+        BufferPool pool = new BufferPool();
+        PooledBuffer buf = pool.acquire(10);
+        buf.release();
+        assertEquals(0, buf.refCnt());
+        assertThrows(IllegalStateException.class, buf::retain);
+        assertThrows(IllegalStateException.class, buf::release);
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(-1));
+    }
+}
@@ -0,0 +1,50 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BytesTensorTest {
+
+    @Test
+    void testParse() {
+        String[] strings = {"ab", "", "\u4e2d"};
+        byte[] encoded = BinaryProtocol.toBytes(DataType.BYTES, strings);
+        ByteBuffer buf = ByteBuffer.allocate(encoded.length + 1);
+        buf.position(1);
+        buf.duplicate().put(encoded);
+        BytesTensor tensor = BytesTensor.parse(buf, 3);
+        assertEquals(1, buf.position());
+        assertEquals(3, tensor.size());
+        assertArrayEquals(strings, tensor.toStringArray());
+        assertEquals(3, tensor.length(2));
+        assertArrayEquals(new byte[] {'a', 'b'}, tensor.getBytes(0));
+
+        // Views share the data.
+        ByteBuffer view = tensor.get(0);
+        assertEquals(2, view.remaining());
+        assertThrows(ReadOnlyBufferException.class, () -> view.put((byte)0));
+        buf.put(5, (byte)'x');
+        assertEquals("xb", tensor.getString(0));
+
+        // Direct buffers decode too.
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.duplicate().put(encoded);
+        assertArrayEquals(strings, BytesTensor.parse(direct, 3).toStringArray());
+    }
+
+    @Test
+    void testMalformed() {
+        byte[] encoded = BinaryProtocol.toBytes(DataType.BYTES, new String[] {"ab"});
+        assertThrows(IllegalArgumentException.class, () -> BytesTensor.parse(ByteBuffer.wrap(encoded), 2));
+        assertThrows(IllegalArgumentException.class, () -> BytesTensor.parse(ByteBuffer.wrap(encoded, 0, 5), 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> BytesTensor.parse(ByteBuffer.wrap(new byte[] {-1, -1, -1, -1}), 1));
+    }
+}
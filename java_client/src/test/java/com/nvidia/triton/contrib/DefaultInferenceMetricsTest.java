@@ -0,0 +1,103 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+
+import com.nvidia.triton.contrib.DefaultInferenceMetrics.Stats;
+import com.nvidia.triton.contrib.InferenceMetrics.Phase;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.mock.Latency;
+import com.nvidia.triton.contrib.mock.MockModel;
+import com.nvidia.triton.contrib.mock.MockTritonServer;
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultInferenceMetricsTest {
+
+    private MockTritonServer server;
+    private InferenceServerClient client;
+    private DefaultInferenceMetrics metrics;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockTritonServer().addModel(MockModel.echo("echo").setLatency(Latency.fixed(20)));
+        this.client = new InferenceServerClient(this.server.getAddress(), 1000, 5000);
+        this.metrics = new DefaultInferenceMetrics();
+        this.client.setMetrics(this.metrics);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.client.close();
+        this.server.close();
+    }
+
+    private static InferArguments echoArguments() {
+        InferInput input = new InferInput("x", new long[] {1, 4}, DataType.INT32);
+        input.setData(new int[] {1, 2, 3, 4}, true);
+        return new InferArguments("echo", input);
+    }
+
+    @Test
+    void testSucceeded() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            this.client.infer(echoArguments()).close();
+        }
+        Stats model = this.metrics.getModelStats().get("echo");
+        assertEquals(3, model.getRequests());
+        assertEquals(0, model.getErrors());
+        assertEquals(0, model.getRetries());
+        assertEquals(3, model.getLatency().getCount());
+        assertTrue(model.getLatency().getValueAtPercentile(50) >= 20_000_000L);
+        for (Phase phase : Phase.values()) {
+            assertEquals(3, model.getPhase(phase).getCount(), phase.name());
+        }
+        assertTrue(model.getPhase(Phase.TIME_TO_FIRST_BYTE).getValueAtPercentile(0) >= 20_000_000L);
+        assertTrue(model.getRequestBytes() > 3 * 16);
+        assertTrue(model.getResponseBytes() > 3 * 16);
+
+        Stats endpoint = this.metrics.getEndpointStats().get(this.server.getAddress());
+        assertEquals(3, endpoint.getRequests());
+        assertEquals(0, endpoint.getErrors());
+        assertEquals(model.getRequestBytes(), endpoint.getRequestBytes());
+        assertEquals(model.getResponseBytes(), endpoint.getResponseBytes());
+        assertEquals(0, endpoint.getPhase(Phase.ENCODE).getCount());
+        assertEquals(3, endpoint.getPhase(Phase.DECODE).getCount());
+    }
+
+    @Test
+    void testRetriesAndErrors() {
+        this.client.setRetryCnt(2);
+        this.client.setRetryPolicy(new RetryPolicy().setBackoff(1, 1).setBudget(100, 10));
+        this.server.setErrorRate(1, 503);
+        assertThrows(InferenceException.class, () -> this.client.infer(echoArguments()));
+
+        Stats model = this.metrics.getModelStats().get("echo");
+        assertEquals(1, model.getRequests());
+        assertEquals(1, model.getErrors());
+        assertEquals(2, model.getRetries());
+        assertEquals(0, model.getPhase(Phase.DECODE).getCount());
+        assertEquals(3, model.getPhase(Phase.TIME_TO_FIRST_BYTE).getCount());
+
+        Stats endpoint = this.metrics.getEndpointStats().get(this.server.getAddress());
+        assertEquals(3, endpoint.getRequests());
+        assertEquals(3, endpoint.getErrors());
+        assertEquals(2, endpoint.getRetries());
+        assertTrue(endpoint.getResponseBytes() > 0);
+    }
+
+    @Test
+    void testCancelledNotRecorded() throws Exception {
+        this.client.inferAsync(echoArguments()).cancel(true);
+        Thread.sleep(100);
+        Stats model = this.metrics.getModelStats().get("echo");
+        assertEquals(0, model.getRequests());
+        assertEquals(0, model.getLatency().getCount());
+        assertEquals(1, model.getPhase(Phase.ENCODE).getCount());
+    }
+}
@@ -0,0 +1,180 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nvidia.triton.contrib.InferResult.Index;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.InferenceResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DynamicBatcherTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v2/models/m/infer", this::echo);
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop(0);
+    }
+
+    /**
+     * Echo JSON input "in" as output "out".
+     */
+    private void echo(HttpExchange exchange) throws IOException {
+        this.requestCount.incrementAndGet();
+        JsonNode req = MAPPER.readTree(exchange.getRequestBody());
+        JsonNode in = req.get("inputs").get(0);
+        ObjectNode resp = MAPPER.createObjectNode();
+        resp.put("model_name", "m");
+        ArrayNode outputs = resp.putArray("outputs");
+        ObjectNode out = outputs.addObject();
+        out.put("name", "out");
+        out.put("datatype", in.get("datatype").asText());
+        out.set("shape", in.get("shape"));
+        out.set("data", in.get("data"));
+        byte[] body = MAPPER.writeValueAsString(resp).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static InferArguments createArguments(int value) {
+        InferInput input = new InferInput("in", new long[] {1, 2}, DataType.INT32);
+        input.setData(new int[] {value, -value}, false);
+        return new InferArguments("m", input);
+    }
+
+    @Test
+    void testBatching() throws Exception {
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000);
+             DynamicBatcher batcher = new DynamicBatcher(client, 4, 1_000_000)) {
+            List<CompletableFuture<InferResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(batcher.inferAsync(createArguments(i)));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertArrayEquals(new int[] {i, -i}, futures.get(i).get().getOutputAsInt("out"));
+            }
+            assertEquals(1, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testQueueDelay() throws Exception {
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000);
+             DynamicBatcher batcher = new DynamicBatcher(client, 8, 1000)) {
+            CompletableFuture<InferResult> f1 = batcher.inferAsync(createArguments(1));
+            CompletableFuture<InferResult> f2 = batcher.inferAsync(createArguments(2));
+            assertArrayEquals(new int[] {1, -1}, f1.get().getOutputAsInt("out"));
+            assertArrayEquals(new int[] {2, -2}, f2.get().getOutputAsInt("out"));
+            assertArrayEquals(new int[] {3, -3}, batcher.infer(createArguments(3)).getOutputAsInt("out"));
+        }
+    }
+
+    @Test
+    void testQueuesPruned() throws Exception {
+        AtomicInteger tagged = new AtomicInteger();
+        this.server.removeContext("/v2/models/m/infer");
+        this.server.createContext("/v2/models/m/infer", exchange -> {
+            if ("a".equals(exchange.getRequestHeaders().getFirst("X-Tag"))) {
+                tagged.incrementAndGet();
+            }
+            this.echo(exchange);
+        });
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000);
+             DynamicBatcher batcher = new DynamicBatcher(client, 2, 1_000_000)) {
+            InferArguments arg = createArguments(1).setHeader("X-Tag", "a");
+            CompletableFuture<InferResult> f1 = batcher.inferAsync(arg);
+            // Changing the arguments afterwards neither loses the pending request nor changes its batch.
+            arg.setHeader("X-Tag", "b");
+            assertEquals(1, batcher.getQueueCount());
+            CompletableFuture<InferResult> f2 = batcher.inferAsync(createArguments(2).setHeader("X-Tag", "a"));
+            assertArrayEquals(new int[] {1, -1}, f1.get().getOutputAsInt("out"));
+            assertArrayEquals(new int[] {2, -2}, f2.get().getOutputAsInt("out"));
+            assertEquals(1, this.requestCount.get());
+            assertEquals(1, tagged.get());
+            assertEquals(0, batcher.getQueueCount());
+
+            batcher.inferAsync(createArguments(3));
+            batcher.flushAll();
+            assertEquals(0, batcher.getQueueCount());
+        }
+    }
+
+    @Test
+    void testHedgePolicyKept() throws Exception {
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000);
+             DynamicBatcher batcher = new DynamicBatcher(client, 2, 1_000_000)) {
+            HedgePolicy p1 = HedgePolicy.fixedDelay(1000, 10);
+            HedgePolicy p2 = HedgePolicy.fixedDelay(1000, 10);
+            CompletableFuture<InferResult> f1 = batcher.inferAsync(createArguments(1).setHedgePolicy(p1));
+            CompletableFuture<InferResult> f2 = batcher.inferAsync(createArguments(2).setHedgePolicy(p2));
+            // Requests hedged differently are not batched together.
+            assertEquals(2, batcher.getQueueCount());
+            CompletableFuture<InferResult> f3 = batcher.inferAsync(createArguments(3).setHedgePolicy(p1));
+            assertArrayEquals(new int[] {1, -1}, f1.get().getOutputAsInt("out"));
+            assertArrayEquals(new int[] {3, -3}, f3.get().getOutputAsInt("out"));
+            batcher.flushAll();
+            assertArrayEquals(new int[] {2, -2}, f2.get().getOutputAsInt("out"));
+            assertEquals(2, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testSliceBinary() throws Exception {
+        InferInput a = new InferInput("x", new long[] {1, 2}, DataType.BYTES);
+        a.setData(new String[] {"a", "bb"}, true);
+        InferInput b = new InferInput("x", new long[] {2, 2}, DataType.BYTES);
+        b.setData(new String[] {"ccc", "d", "", "ee"}, true);
+        InferInput merged = InferInput.concat(Arrays.asList(a, b));
+        assertArrayEquals(new long[] {3, 2}, merged.getShape());
+        assertEquals(a.getBinaryData().length + b.getBinaryData().length, merged.getBinaryData().length);
+
+        InferInput f = new InferInput("y", new long[] {3, 2}, DataType.FP32);
+        f.setData(new float[] {1, 2, 3, 4, 5, 6}, true);
+        InferenceResponse resp = new InferenceResponse();
+        resp.setOutputs(Collections.singletonList(f.getTensor()));
+        Map<String, Index> idx = new HashMap<>();
+        idx.put("y", new Index(0, f.getBinaryData().length));
+        InferResult result = new InferResult(resp, idx, f.getBinaryData());
+        assertArrayEquals(new float[] {3, 4, 5, 6}, result.slice(1, 2, 3).getOutputAsFloat("y"));
+        assertArrayEquals(new float[] {1, 2}, result.slice(0, 1, 3).getOutputAsFloat("y"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HalfFloatTest {
+
+    @Test
+    void testFp16() {
+        assertEquals((short)0x3C00, HalfFloat.toFp16(1));
+        assertEquals((short)0xC000, HalfFloat.toFp16(-2));
+        assertEquals((short)0x7BFF, HalfFloat.toFp16(65504));
+        assertEquals((short)0x8000, HalfFloat.toFp16(-0F));
+        // Smallest subnormal and smallest normal.
+        assertEquals((short)0x0001, HalfFloat.toFp16(0x1p-24F));
+        assertEquals((short)0x0400, HalfFloat.toFp16(0x1p-14F));
+        // Overflow, underflow and specials.
+        assertEquals((short)0x7C00, HalfFloat.toFp16(65520));
+        assertEquals((short)0xFC00, HalfFloat.toFp16(Float.NEGATIVE_INFINITY));
+        assertEquals((short)0x0000, HalfFloat.toFp16(0x1p-25F));
+        assertEquals((short)0x0001, HalfFloat.toFp16(0x1.8p-25F));
+        assertTrue(Float.isNaN(HalfFloat.fp16ToFloat(HalfFloat.toFp16(Float.NaN))));
+
+        // Ties round to even: 1 + 2^-11 lies halfway between 1 and the next FP16.
+        assertEquals((short)0x3C00, HalfFloat.toFp16(1 + 0x1p-11F));
+        assertEquals((short)0x3C02, HalfFloat.toFp16(1 + 3 * 0x1p-11F));
+        assertEquals((short)0x3C01, HalfFloat.toFp16(1 + 0x1.004p-11F));
+        // Subnormal ties.
+        assertEquals((short)0x0002, HalfFloat.toFp16(0x1.4p-23F));
+        assertEquals((short)0x0004, HalfFloat.toFp16(0x1.cp-23F));
+    }
+
+    @Test
+    void testFp16RoundTrip() {
+        // Every FP16 value converts to float exactly and back to the same bits.
+        for (int i = 0; i < 1 << 16; i++) {
+            short bits = (short)i;
+            float value = HalfFloat.fp16ToFloat(bits);
+            if (Float.isNaN(value)) {
+                assertTrue((i & 0x7C00) == 0x7C00 && (i & 0x3FF) != 0);
+                continue;
+            }
+            assertEquals(bits, HalfFloat.toFp16(value), "bits " + Integer.toHexString(i));
+        }
+        assertEquals(0x1p-24F, HalfFloat.fp16ToFloat((short)1));
+        assertEquals(65504F, HalfFloat.fp16ToFloat((short)0x7BFF));
+        assertEquals(-0F, HalfFloat.fp16ToFloat((short)0x8000));
+    }
+
+    @Test
+    void testBf16() {
+        assertEquals((short)0x3F80, HalfFloat.toBf16(1));
+        assertEquals((short)0xC000, HalfFloat.toBf16(-2));
+        // Ties round to even.
+        assertEquals((short)0x3F80, HalfFloat.toBf16(Float.intBitsToFloat(0x3F808000)));
+        assertEquals((short)0x3F82, HalfFloat.toBf16(Float.intBitsToFloat(0x3F818000)));
+        assertEquals((short)0x3F81, HalfFloat.toBf16(Float.intBitsToFloat(0x3F808001)));
+        // Large values keep their exponent, rounding past max becomes infinity.
+        assertEquals((short)0x7F7F, HalfFloat.toBf16(Float.intBitsToFloat(0x7F7F7FFF)));
+        assertEquals(Float.POSITIVE_INFINITY, HalfFloat.bf16ToFloat(HalfFloat.toBf16(Float.MAX_VALUE)));
+        // NaN whose payload lives only in the dropped bits stays NaN.
+        assertTrue(Float.isNaN(HalfFloat.bf16ToFloat(HalfFloat.toBf16(Float.intBitsToFloat(0x7F800001)))));
+        for (int i = 0; i < 1 << 16; i++) {
+            float value = HalfFloat.bf16ToFloat((short)i);
+            if (!Float.isNaN(value)) {
+                assertEquals((short)i, HalfFloat.toBf16(value));
+            }
+        }
+    }
+
+    @Test
+    void testBulk() {
+        float[] values = new float[3000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i - 1500) * 0.25F;
+        }
+        for (DataType dataType : new DataType[] {DataType.FP16, DataType.BF16}) {
+            ByteBuffer buf = ByteBuffer.allocate(values.length * 2 + 4);
+            buf.position(4);
+            HalfFloat.encode(dataType, FloatBuffer.wrap(values), buf);
+            assertEquals(4, buf.position());
+            float[] decoded = HalfFloat.decode(dataType, buf, values.length);
+            float[] expected = dataType == DataType.FP16 ? HalfFloat.fp16ToFloat(HalfFloat.toFp16(values))
+                : HalfFloat.bf16ToFloat(HalfFloat.toBf16(values));
+            assertArrayEquals(expected, decoded);
+        }
+        // All these are exact in FP16.
+        assertArrayEquals(values, HalfFloat.fp16ToFloat(HalfFloat.toFp16(values)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.nvidia.triton.contrib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgePolicyTest {
+
+    @Test
+    void testBudget() {
+        HedgePolicy policy = HedgePolicy.fixedDelay(10, 10);
+        assertEquals(10_000_000L, policy.getDelayNanos());
+        assertFalse(policy.tryAcquireHedge());
+        for (int i = 0; i < 9; i++) {
+            policy.onRequest();
+        }
+        assertFalse(policy.tryAcquireHedge());
+        policy.onRequest();
+        assertTrue(policy.tryAcquireHedge());
+        assertFalse(policy.tryAcquireHedge());
+
+        // Saved budget is capped.
+        for (int i = 0; i < 1000; i++) {
+            policy.onRequest();
+        }
+        int hedges = 0;
+        while (policy.tryAcquireHedge()) {
+            hedges++;
+        }
+        assertEquals(10, hedges);
+    }
+
+    @Test
+    void testPercentileDelay() {
+        HedgePolicy policy = HedgePolicy.percentileDelay(95, 1, 5);
+        assertEquals(1_000_000L, policy.getDelayNanos());
+        for (int i = 1; i <= 1024; i++) {
+            policy.recordLatency(i * 10_000_000L);
+        }
+        // p95 of the latest 1024 samples, 10ms to 10.24s.
+        assertEquals(9_730_000_000L, policy.getDelayNanos());
+
+        for (int i = 0; i < 1024; i++) {
+            policy.recordLatency(1000);
+        }
+        // Lower bounded by the min delay.
+        assertEquals(1_000_000L, policy.getDelayNanos());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.fixedDelay(-1, 5));
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.fixedDelay(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> HedgePolicy.percentileDelay(100, 10, 5));
+    }
+}
@@ -1,6 +1,9 @@
 package com.nvidia.triton.contrib;
 
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
 
 import com.google.common.io.BaseEncoding;
@@ -8,6 +11,7 @@ import com.google.common.primitives.UnsignedInteger;
 import com.google.common.primitives.UnsignedLong;
 import com.nvidia.triton.contrib.pojo.DataType;
 import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.nvidia.triton.contrib.shm.SystemSharedMemoryRegion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -15,8 +19,10 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -138,4 +144,136 @@ public class InferInputTest {
         input.setData(new int[] {1, 1, 1, 1, 1, 1}, false);
         input.getTensor();
     }
+
+    @Test
+    void testSharedMemory() throws Exception {
+        InferInput input = new InferInput("foo", new long[] {3, 2}, DataType.FP32);
+        input.setData(new float[] {1, 1, 1, 1, 1, 1}, true);
+        input.setSharedMemory("region", 24, 8);
+        assertNull(input.getBinaryData());
+        String json = Util.toJson(input.getTensor());
+        assertTrue(json.contains("\"shared_memory_region\":\"region\""));
+        assertTrue(json.contains("\"shared_memory_byte_size\":24"));
+        assertTrue(json.contains("\"shared_memory_offset\":8"));
+        assertFalse(json.contains("binary_data_size"));
+        assertThrows(IllegalArgumentException.class, () -> input.setSharedMemory("region", 12, 0));
+
+        input.setData(new float[] {1, 1, 1, 1, 1, 1}, true);
+        assertEquals("{\"name\":\"foo\",\"shape\":[3,2],\"datatype\":\"FP32\",\"parameters\":"
+                + "{\"binary_data_size\":24}}", Util.toJson(input.getTensor()));
+    }
+
+    @Test
+    void testBufferPool() throws Exception {
+        BufferPool pool = new BufferPool();
+        InferInput input = new InferInput("foo", new long[] {3}, DataType.FP32, pool);
+        input.setData(new float[] {1, 2, 3}, true);
+        PooledBuffer buffer = input.getPooledBuffer();
+        assertNotNull(buffer);
+        assertEquals(12, input.getBinaryBuffer().remaining());
+        assertArrayEquals(BinaryProtocol.toBytes(DataType.FP32, new float[] {1, 2, 3}), input.getBinaryData());
+        assertEquals("{\"name\":\"foo\",\"shape\":[3],\"datatype\":\"FP32\",\"parameters\":"
+            + "{\"binary_data_size\":12}}", Util.toJson(input.getTensor()));
+
+        // New data gives the previous array back, and reuses it.
+        input.setData(new float[] {4, 5, 6}, true);
+        assertEquals(0, buffer.refCnt());
+        assertSame(buffer.array(), input.getPooledBuffer().array());
+        assertEquals(0, pool.getPooledBytes());
+        input.release();
+        assertNull(input.getBinaryBuffer());
+        assertEquals(4096, pool.getPooledBytes());
+    }
+
+    @Test
+    void testByteBuffer() throws Exception {
+        InferInput input = new InferInput("foo", new long[] {2}, DataType.INT32);
+        ByteBuffer direct = ByteBuffer.allocateDirect(12).order(ByteOrder.LITTLE_ENDIAN);
+        direct.putInt(9).putInt(1).putInt(-2).position(4);
+        input.setData(direct);
+        // Not copied, buffer state unchanged.
+        assertEquals(4, direct.position());
+        assertEquals(8, input.getBinaryBuffer().remaining());
+        assertTrue(input.getBinaryBuffer().isDirect());
+        assertArrayEquals(BinaryProtocol.toBytes(DataType.INT32, new int[] {1, -2}), input.getBinaryData());
+        assertEquals("{\"name\":\"foo\",\"shape\":[2],\"datatype\":\"INT32\",\"parameters\":"
+            + "{\"binary_data_size\":8}}", Util.toJson(input.getTensor()));
+        assertThrows(IllegalArgumentException.class, () -> input.setData(ByteBuffer.allocate(12)));
+
+        InferInput bytes = new InferInput("bar", new long[] {2}, DataType.BYTES);
+        bytes.setData(ByteBuffer.wrap(BinaryProtocol.toBytes(DataType.BYTES, new String[] {"ab", ""})));
+        assertEquals(10, bytes.getBinaryBuffer().remaining());
+        assertThrows(IllegalArgumentException.class, () -> bytes.setData(
+            ByteBuffer.wrap(BinaryProtocol.toBytes(DataType.BYTES, new String[] {"ab"}))));
+        assertThrows(IllegalArgumentException.class, () -> bytes.setData(ByteBuffer.wrap(new byte[] {9, 0, 0, 0, 1})));
+    }
+
+    @Test
+    void testHalf() throws Exception {
+        InferInput fp16 = new InferInput("foo", new long[] {2}, DataType.FP16);
+        fp16.setDataAsFp16(new float[] {1, -2});
+        assertArrayEquals(new byte[] {0x00, 0x3C, 0x00, (byte)0xC0}, fp16.getBinaryData());
+        assertEquals("{\"name\":\"foo\",\"shape\":[2],\"datatype\":\"FP16\",\"parameters\":"
+            + "{\"binary_data_size\":4}}", Util.toJson(fp16.getTensor()));
+        assertThrows(IllegalArgumentException.class, () -> fp16.setDataAsBf16(new float[] {1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> fp16.setDataAsFp16(new float[] {1}));
+
+        InferInput bf16 = new InferInput("bar", new long[] {2}, DataType.BF16, new BufferPool());
+        bf16.setDataAsBf16(new float[] {1, -2});
+        assertArrayEquals(new byte[] {(byte)0x80, 0x3F, 0x00, (byte)0xC0}, bf16.getBinaryData());
+
+        // FP32 inputs convert to new inputs, from JSON or binary data.
+        InferInput fp32 = new InferInput("baz", new long[] {2}, DataType.FP32);
+        fp32.setData(new float[] {1, -2}, false);
+        assertArrayEquals(fp16.getBinaryData(), fp32.toHalf(DataType.FP16).getBinaryData());
+        fp32.setData(new float[] {1, -2}, true);
+        InferInput converted = fp32.toHalf(DataType.BF16);
+        assertEquals(DataType.BF16, converted.getDataType());
+        assertArrayEquals(bf16.getBinaryData(), converted.getBinaryData());
+        assertNull(fp16.toHalf(DataType.BF16));
+    }
+
+    @Test
+    void testBytesSources() throws Exception {
+        byte[] expected = BinaryProtocol.toBytes(DataType.BYTES, new String[] {"ab", "\u4e2d"});
+        InferInput input = new InferInput("foo", new long[] {2}, DataType.BYTES);
+        input.setData(new byte[][] {{'a', 'b'}, "\u4e2d".getBytes(StandardCharsets.UTF_8)});
+        assertArrayEquals(expected, input.getBinaryData());
+        input.setData(new CharSequence[] {new StringBuilder("ab"), "\u4e2d"});
+        assertArrayEquals(expected, input.getBinaryData());
+        assertEquals("{\"name\":\"foo\",\"shape\":[2],\"datatype\":\"BYTES\",\"parameters\":"
+            + "{\"binary_data_size\":" + expected.length + "}}", Util.toJson(input.getTensor()));
+        assertThrows(IllegalArgumentException.class, () -> input.setData(new byte[][] {{1}}));
+
+        // Exact size is known up front, so BYTES data is pooled too.
+        InferInput pooled = new InferInput("bar", new long[] {2}, DataType.BYTES, new BufferPool());
+        pooled.setData(new String[] {"ab", "\u4e2d"}, true);
+        assertNotNull(pooled.getPooledBuffer());
+        assertArrayEquals(expected, pooled.getBinaryData());
+    }
+
+    @Test
+    void testWriteToSharedMemory() throws Exception {
+        String name = "triton_java_test_" + System.nanoTime();
+        try (SystemSharedMemoryRegion region = SystemSharedMemoryRegion.create(name, "/" + name, 4096)) {
+            InferInput json = new InferInput("foo", new long[] {2}, DataType.INT32);
+            json.setData(new int[] {1, -2}, false);
+            assertEquals(8, json.writeToSharedMemory(region, 0));
+            InferInput binary = new InferInput("bar", new long[] {2}, DataType.BYTES);
+            binary.setData(new String[] {"ab", "\u4e2d"}, true);
+            byte[] expected = binary.getBinaryData();
+            assertEquals(expected.length, binary.writeToSharedMemory(region, 8));
+
+            ByteBuffer view = region.asByteBuffer(0, 8 + expected.length);
+            assertEquals(1, view.getInt());
+            assertEquals(-2, view.getInt());
+            byte[] written = new byte[expected.length];
+            view.get(written);
+            assertArrayEquals(expected, written);
+            assertEquals("{\"name\":\"bar\",\"shape\":[2],\"datatype\":\"BYTES\",\"parameters\":"
+                + "{\"shared_memory_region\":\"" + name + "\",\"shared_memory_byte_size\":" + expected.length
+                + ",\"shared_memory_offset\":8}}", Util.toJson(binary.getTensor()));
+            assertThrows(IllegalStateException.class, () -> binary.writeToSharedMemory(region, 0));
+        }
+    }
 }
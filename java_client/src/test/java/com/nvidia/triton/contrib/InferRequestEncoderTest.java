@@ -0,0 +1,80 @@
+package com.nvidia.triton.contrib;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InferRequestEncoderTest {
+
+    private static Stream<Arguments> testData() {
+        // (dataType, dataArray, expectedJSON), unsigned types cover values with the sign bit set.
+        return Stream.of(
+            Arguments.of(DataType.BOOL, new boolean[] {true, false}, "[true,false]"),
+            Arguments.of(DataType.INT8, new byte[] {1, -128, 127}, "[1,-128,127]"),
+            Arguments.of(DataType.UINT8, new byte[] {1, (byte)200, (byte)255}, "[1,200,255]"),
+            Arguments.of(DataType.INT16, new short[] {1, Short.MIN_VALUE}, "[1,-32768]"),
+            Arguments.of(DataType.UINT16, new short[] {1, (short)65535}, "[1,65535]"),
+            Arguments.of(DataType.INT32, new int[] {1, Integer.MIN_VALUE}, "[1,-2147483648]"),
+            Arguments.of(DataType.UINT32, new int[] {1, -1}, "[1,4294967295]"),
+            Arguments.of(DataType.INT64, new long[] {1, Long.MIN_VALUE}, "[1,-9223372036854775808]"),
+            Arguments.of(DataType.UINT64, new long[] {1, -1}, "[1,18446744073709551615]"),
+            Arguments.of(DataType.FP32, new float[] {1.1F, -2.5F}, "[1.1,-2.5]"),
+            Arguments.of(DataType.FP64, new double[] {1.1, -2.5}, "[1.1,-2.5]"),
+            Arguments.of(DataType.BYTES, new String[] {"a\"b", "\u4e2d"}, "[\"a\\\"b\",\"\u4e2d\"]")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testData")
+    public void testData(DataType dataType, Object data, String expectedJSON) throws Exception {
+        assertEquals(expectedJSON, InferRequestEncoder.encodeData(dataType, data));
+    }
+
+    @Test
+    void testEncode() throws Exception {
+        InferInput jsonInput = new InferInput("a", new long[] {2}, DataType.UINT8);
+        jsonInput.setData(new byte[] {1, (byte)255}, false);
+        InferInput binInput = new InferInput("b", new long[] {1, 2}, DataType.FP32);
+        binInput.setData(new float[] {1, 2}, true);
+        InferArguments arg = new InferArguments("m", Arrays.asList(jsonInput, binInput),
+            Collections.singletonList(new InferRequestedOutput("c", true)))
+            .setRequestId("r1")
+            .setSequenceId(7)
+            .setSequenceStart(true)
+            .setPriority(2)
+            .setTimeout(100);
+
+        String json = new String(InferRequestEncoder.encode(arg), StandardCharsets.UTF_8);
+        assertEquals("{\"id\":\"r1\",\"inputs\":["
+            + "{\"name\":\"a\",\"shape\":[2],\"datatype\":\"UINT8\",\"data\":[1,255]},"
+            + "{\"name\":\"b\",\"shape\":[1,2],\"datatype\":\"FP32\",\"parameters\":{\"binary_data_size\":8}}],"
+            + "\"outputs\":[{\"name\":\"c\",\"parameters\":{\"binary_data\":true}}],"
+            + "\"parameters\":{\"sequence_id\":7,\"sequence_start\":true,\"sequence_end\":false,\"priority\":2,"
+            + "\"timeout\":100}}", json);
+
+        // Buffer is reused by the next call on this thread.
+        json = new String(InferRequestEncoder.encode(new InferArguments("m", binInput)), StandardCharsets.UTF_8);
+        assertEquals("{\"inputs\":["
+            + "{\"name\":\"b\",\"shape\":[1,2],\"datatype\":\"FP32\",\"parameters\":{\"binary_data_size\":8}}],"
+            + "\"parameters\":{\"binary_data_output\":true}}", json);
+    }
+
+    @Test
+    void testEncode_DataNotSet() {
+        InferInput input = new InferInput("foo", new long[] {3, 2}, DataType.FP32);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> InferRequestEncoder.encode(new InferArguments("m", input)));
+        assertEquals(".setData method not call on InferInput foo", ex.getMessage());
+    }
+}
@@ -0,0 +1,153 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.stream.Stream;
+
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.IOTensor;
+import com.nvidia.triton.contrib.pojo.InferenceResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InferResponseDecoderTest {
+
+    private static InferenceResponse decode(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return InferResponseDecoder.decode(bytes, 0, bytes.length);
+    }
+
+    private static Stream<Arguments> testData() {
+        // (dataType, JSON data, expected array), unsigned types cover values with the sign bit set.
+        return Stream.of(
+            Arguments.of(DataType.BOOL, "[true,false]", new boolean[] {true, false}),
+            Arguments.of(DataType.INT8, "[1,-128,127]", new byte[] {1, -128, 127}),
+            Arguments.of(DataType.UINT8, "[1,200,255]", new byte[] {1, (byte)200, (byte)255}),
+            Arguments.of(DataType.INT16, "[1,-32768]", new short[] {1, Short.MIN_VALUE}),
+            Arguments.of(DataType.UINT16, "[1,65535]", new short[] {1, (short)65535}),
+            Arguments.of(DataType.INT32, "[1,-2147483648]", new int[] {1, Integer.MIN_VALUE}),
+            Arguments.of(DataType.UINT32, "[1,4294967295]", new int[] {1, -1}),
+            Arguments.of(DataType.INT64, "[1,-9223372036854775808]", new long[] {1, Long.MIN_VALUE}),
+            Arguments.of(DataType.UINT64, "[1,18446744073709551615]", new long[] {1, -1}),
+            Arguments.of(DataType.FP32, "[1.1,-2.5]", new float[] {1.1F, -2.5F}),
+            Arguments.of(DataType.FP64, "[1.1,-2.5]", new double[] {1.1, -2.5}),
+            Arguments.of(DataType.BYTES, "[\"a\\\"b\",\"\u4e2d\"]", new String[] {"a\"b", "\u4e2d"})
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testData")
+    public void testData(DataType dataType, String jsonData, Object expected) throws Exception {
+        InferenceResponse resp = decode("{\"model_name\":\"m\",\"outputs\":[{\"name\":\"o\",\"datatype\":\""
+            + dataType.name() + "\",\"shape\":[2],\"data\":" + jsonData + "}]}");
+        IOTensor out = resp.getOutputByName("o");
+        assertEquals(expected.getClass(), out.getDataArray().getClass());
+        assertArrayEquals(Util.boxArray(dataType, expected), Util.boxArray(dataType, out.getDataArray()));
+
+        // Encoder and decoder agree on the JSON form of every data type.
+        assertEquals(jsonData, InferRequestEncoder.encodeData(dataType, out.getDataArray()));
+    }
+
+    @Test
+    void testResponse() throws Exception {
+        InferenceResponse resp = decode("{\"model_name\":\"m\",\"model_version\":\"1\",\"id\":\"r1\","
+            + "\"unknown\":{\"a\":[1,{\"b\":2}]},\"parameters\":{\"sequence_id\":3},\"outputs\":["
+            + "{\"name\":\"a\",\"datatype\":\"FP32\",\"shape\":[2,2],\"data\":[[1.5,2],[3,4]]},"
+            + "{\"name\":\"b\",\"datatype\":\"INT32\",\"shape\":[1],\"parameters\":{\"binary_data_size\":4}},"
+            + "{\"name\":\"c\",\"datatype\":\"INT64\",\"data\":[5,6,7]},"
+            + "{\"data\":[8,9],\"name\":\"d\",\"datatype\":\"INT32\",\"shape\":[2]}]}");
+        assertEquals("m", resp.getModelName());
+        assertEquals("1", resp.getModelVersion());
+        assertEquals("r1", resp.getId());
+        assertEquals(3, resp.getParameters().getInt("sequence_id"));
+        assertEquals(4, resp.getOutputs().size());
+
+        // Nested data is flattened.
+        assertArrayEquals(new float[] {1.5F, 2, 3, 4}, (float[])resp.getOutputByName("a").getDataArray());
+        assertArrayEquals(new long[] {2, 2}, resp.getOutputByName("a").getShape());
+        // Binary output has no data.
+        assertNull(resp.getOutputByName("b").getDataArray());
+        assertEquals(4, resp.getOutputByName("b").getParameters().getInt("binary_data_size"));
+        // Data without shape grows as parsed.
+        assertArrayEquals(new long[] {5, 6, 7}, (long[])resp.getOutputByName("c").getDataArray());
+        // Data before datatype is read boxed.
+        IOTensor d = resp.getOutputByName("d");
+        assertNull(d.getDataArray());
+        assertArrayEquals(new Object[] {8, 9}, d.getData());
+
+        InferResult result = new InferResult(resp, new HashMap<>(), null);
+        assertArrayEquals(new float[] {1.5F, 2, 3, 4}, result.getOutputAsFloat("a"));
+        assertArrayEquals(new int[] {8, 9}, result.getOutputAsInt("d"));
+        // Callers get a copy.
+        result.getOutputAsFloat("a")[0] = 0;
+        assertArrayEquals(new float[] {1.5F, 2, 3, 4}, result.getOutputAsFloat("a"));
+        // Boxed view is still available.
+        assertArrayEquals(new Object[] {5L, 6L, 7L}, resp.getOutputByName("c").getData());
+
+        InferResult sliced = new InferResult(decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"FP32\","
+            + "\"shape\":[2,2],\"data\":[1,2,3,4]}]}"), new HashMap<>(), null).slice(1, 1, 2);
+        assertArrayEquals(new float[] {3, 4}, sliced.getOutputAsFloat("a"));
+    }
+
+    @Test
+    void testLazy() throws Exception {
+        byte[] bytes = ("xx{\"outputs\":["
+            + "{\"name\":\"a\",\"datatype\":\"FP32\",\"shape\":[2,2],\"data\":[[1.5,2],[3,4]]},"
+            + "{\"name\":\"b\",\"datatype\":\"INT32\",\"shape\":[2],\"data\":[1,\"x\"]},"
+            + "{\"name\":\"c\",\"datatype\":\"BYTES\",\"shape\":[1],\"data\":[\"]\"]},"
+            + "{\"data\":[8,9],\"name\":\"d\",\"datatype\":\"INT32\",\"shape\":[2]}]}")
+            .getBytes(StandardCharsets.UTF_8);
+        InferenceResponse resp = InferResponseDecoder.decode(bytes, 2, bytes.length - 2, true);
+        InferResult result = new InferResult(resp, new HashMap<>(), null);
+        assertArrayEquals(new float[] {1.5F, 2, 3, 4}, result.getOutputAsFloat("a"));
+        assertArrayEquals(new String[] {"]"}, result.getOutputAsString("c"));
+        assertArrayEquals(new Object[] {8, 9}, resp.getOutputByName("d").getData());
+        // Malformed data only fails when read.
+        assertThrows(UncheckedIOException.class, () -> result.getOutputAsInt("b"));
+
+        // Same JSON decoded eagerly fails up front.
+        assertThrows(IOException.class, () -> InferResponseDecoder.decode(bytes, 2, bytes.length - 2));
+    }
+
+    @Test
+    void testMalformed() {
+        assertThrows(IOException.class, () -> decode("[]"));
+        assertThrows(IOException.class, () -> decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"BOOL\","
+            + "\"data\":[1]}]}"));
+        assertThrows(IOException.class, () -> decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"INT32\","
+            + "\"data\":1}]}"));
+        // No JSON form of half precision floats.
+        assertThrows(IOException.class, () -> decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"FP16\","
+            + "\"shape\":[1],\"data\":[1.0]}]}"));
+        assertThrows(IOException.class, () -> decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"BF16\","
+            + "\"shape\":[1],\"data\":[1.0]}]}"));
+    }
+
+    @Test
+    void testShapeNotTrusted() throws Exception {
+        // Presizing is capped, an array is grown past the cap or trimmed to the data actually sent.
+        InferenceResponse resp = decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"INT32\","
+            + "\"shape\":[1073741824,1024],\"data\":[1,2]}]}");
+        assertArrayEquals(new int[] {1, 2}, (int[])resp.getOutputByName("a").getDataArray());
+        resp = decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"INT32\",\"shape\":[-1],\"data\":[1,2]}]}");
+        assertArrayEquals(new int[] {1, 2}, (int[])resp.getOutputByName("a").getDataArray());
+        int[] big = new int[(1 << 16) + 3];
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < big.length; i++) {
+            big[i] = i;
+            data.append(i == 0 ? "" : ",").append(i);
+        }
+        resp = decode("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"INT32\",\"shape\":[" + big.length
+            + "],\"data\":[" + data + "]}]}");
+        assertArrayEquals(big, (int[])resp.getOutputByName("a").getDataArray());
+    }
+}
@@ -3,6 +3,8 @@ package com.nvidia.triton.contrib;
 import java.io.ByteArrayInputStream;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,6 +31,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author xiafei.qiuxf
@@ -184,6 +187,66 @@ class InferResultTest {
         assertNull(inferResult.getOutputAsDouble("no"));
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testOutputViews(boolean binary) throws Exception {
+        float[] data = {1.1F, 2.2F, 3.3F, 4.4F, -5.5F, -6.6F};
+        InferResult result = createResult(DataType.FP32, data, binary);
+        FloatBuffer view = result.getOutputAsFloatBuffer("foo");
+        assertTrue(view.isReadOnly());
+        assertEquals(6, view.remaining());
+        float[] viewed = new float[6];
+        view.get(viewed);
+        assertArrayEquals(data, viewed);
+        if (binary) {
+            // Viewed in place.
+            result.getBinaryData()[0] = 0;
+            assertEquals(Float.intBitsToFloat(Float.floatToRawIntBits(1.1F) & ~0xFF),
+                result.getOutputAsFloatBuffer("foo").get(0));
+        }
+        assertNull(result.getOutputAsFloatBuffer("no"));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsIntBuffer("foo"));
+
+        InferResult ints = createResult(DataType.UINT32, new int[] {1, 2, 3, 4, -5, -6}, binary);
+        assertEquals(-6, ints.getOutputAsIntBuffer("foo").get(5));
+        InferResult longs = createResult(DataType.INT64, new long[] {1, 2, 3, 4, -5, -6}, binary);
+        assertEquals(-5, longs.getOutputAsLongBuffer("foo").get(4));
+        InferResult shorts = createResult(DataType.INT16, new short[] {1, 2, 3, 4, -5, -6}, binary);
+        assertEquals(3, shorts.getOutputAsShortBuffer("foo").get(2));
+        InferResult doubles = createResult(DataType.FP64, new double[] {1, 2, 3, 4, -5, -6}, binary);
+        assertEquals(-6, doubles.getOutputAsDoubleBuffer("foo").get(5));
+        InferResult bools = createResult(DataType.BOOL, new boolean[] {true, false, true, false, true, false},
+            binary);
+        assertEquals(1, bools.getOutputAsByteBuffer("foo").get(2));
+        assertEquals(0, bools.getOutputAsByteBuffer("foo").get(3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testOutputCopyInto(boolean binary) throws Exception {
+        float[] data = {1.1F, 2.2F, 3.3F, 4.4F, -5.5F, -6.6F};
+        InferResult result = createResult(DataType.FP32, data, binary);
+        float[] dst = new float[8];
+        assertEquals(6, result.getOutputAsFloat("foo", dst, 2));
+        assertArrayEquals(new float[] {0, 0, 1.1F, 2.2F, 3.3F, 4.4F, -5.5F, -6.6F}, dst);
+        assertEquals(-1, result.getOutputAsFloat("no", dst, 0));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsFloat("foo", dst, 3));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsFloat("foo", dst, -1));
+
+        boolean[] bools = {true, false, true, false, true, false};
+        boolean[] boolDst = new boolean[6];
+        assertEquals(6, createResult(DataType.BOOL, bools, binary).getOutputAsBool("foo", boolDst, 0));
+        assertArrayEquals(bools, boolDst);
+        byte[] bytes = {1, 2, 3, 4, -5, -6};
+        byte[] byteDst = new byte[6];
+        assertEquals(6, createResult(DataType.UINT8, bytes, binary).getOutputAsByte("foo", byteDst, 0));
+        assertArrayEquals(bytes, byteDst);
+        long[] longs = {1, 2, 3, 4, -5, -6};
+        long[] longDst = new long[6];
+        assertEquals(6, createResult(DataType.UINT64, longs, binary).getOutputAsLong("foo", longDst, 0));
+        assertArrayEquals(longs, longDst);
+    }
+
     @Test
     void testParseHttpResult_Error() throws Exception {
         BasicHttpResponse resp = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 1, 0), 400, ""));
@@ -293,4 +356,85 @@ class InferResultTest {
         int[] t2Tensor = result.getOutputAsInt("t2");
         assertArrayEquals(new int[] {1, 2, 3, 4}, t2Tensor);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSharedMemoryOutput() throws Exception {
+        IOTensor out = new IOTensor();
+        out.setName("foo");
+        out.setDatatype(DataType.FP32);
+        out.setShape(new long[] {2});
+        InferenceResponse resp = new InferenceResponse();
+        resp.setOutputs(Collections.singletonList(out));
+        InferResult result = new InferResult(resp, new HashMap<>(), null);
+        ByteBuffer shm = ByteBuffer.wrap(BinaryProtocol.toBytes(DataType.FP32, new float[] {1.5F, -2F}));
+        result.setSharedMemoryOutputs(Collections.singletonMap("foo", shm));
+        assertArrayEquals(new float[] {1.5F, -2F}, result.getOutputAsFloat("foo"));
+        // Reading does not consume the shared view.
+        assertArrayEquals(new float[] {1.5F, -2F}, result.getOutputAsFloat("foo"));
+    }
+
+    @Test
+    void testClose() throws Exception {
+        BufferPool pool = new BufferPool();
+        PooledBuffer buffer = pool.acquire(16);
+        byte[] data = buffer.array();
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(1).putInt(2).putInt(3).putInt(4);
+        InferenceResponse resp = Util.fromJson("{\"outputs\":[{\"name\":\"a\",\"datatype\":\"INT32\","
+            + "\"shape\":[2,2],\"parameters\":{\"binary_data_size\":16}}]}", InferenceResponse.class);
+        Map<String, Index> indices = new HashMap<>();
+        InferResult.indexBinaryOutputs(resp, indices);
+        InferResult result = new InferResult(resp, indices, data, buffer);
+
+        // A slice holds its own reference.
+        InferResult slice = result.slice(1, 1, 2);
+        result.close();
+        assertEquals(1, buffer.refCnt());
+        assertThrows(IllegalStateException.class, () -> result.getOutputAsInt("a"));
+        assertArrayEquals(new int[] {3, 4}, slice.getOutputAsInt("a"));
+        slice.close();
+        slice.close();
+        assertEquals(0, buffer.refCnt());
+        assertEquals(4096, pool.getPooledBytes());
+    }
+
+    @Test
+    void testHalfOutputs() throws Exception {
+        byte[] data = new byte[8];
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putShort((short)0x3C00).putShort((short)0xC000)
+            .putShort((short)0x3F80).putShort((short)0xC000);
+        InferenceResponse resp = Util.fromJson("{\"outputs\":["
+            + "{\"name\":\"h\",\"datatype\":\"FP16\",\"shape\":[2],\"parameters\":{\"binary_data_size\":4}},"
+            + "{\"name\":\"b\",\"datatype\":\"BF16\",\"shape\":[2],\"parameters\":{\"binary_data_size\":4}}]}",
+            InferenceResponse.class);
+        Map<String, Index> indices = new HashMap<>();
+        InferResult.indexBinaryOutputs(resp, indices);
+        InferResult result = new InferResult(resp, indices, data);
+        assertArrayEquals(new float[] {1, -2}, result.getOutputAsFloatFromFp16("h"));
+        assertArrayEquals(new float[] {1, -2}, result.getOutputAsFloatFromBf16("b"));
+        assertNull(result.getOutputAsFloatFromFp16("missing"));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsFloatFromFp16("b"));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsFloat("h"));
+    }
+
+    @Test
+    void testBytesOutputs() throws Exception {
+        byte[] data = BinaryProtocol.toBytes(DataType.BYTES, new String[] {"ab", "\u4e2d"});
+        InferenceResponse resp = Util.fromJson("{\"outputs\":["
+            + "{\"name\":\"bin\",\"datatype\":\"BYTES\",\"shape\":[2],\"parameters\":{\"binary_data_size\":"
+            + data.length + "}},"
+            + "{\"name\":\"json\",\"datatype\":\"BYTES\",\"shape\":[2],\"data\":[\"c\",\"d\"]},"
+            + "{\"name\":\"f\",\"datatype\":\"FP32\",\"shape\":[1],\"data\":[1]}]}", InferenceResponse.class);
+        Map<String, Index> indices = new HashMap<>();
+        InferResult.indexBinaryOutputs(resp, indices);
+        InferResult result = new InferResult(resp, indices, data);
+
+        assertArrayEquals(new String[] {"ab", "\u4e2d"}, result.getOutputAsString("bin"));
+        BytesTensor bytes = result.getOutputAsBytes("bin");
+        assertEquals(2, bytes.size());
+        assertEquals(3, bytes.get(1).remaining());
+        assertArrayEquals(new String[] {"c", "d"}, result.getOutputAsString("json"));
+        assertEquals("d", result.getOutputAsBytes("json").getString(1));
+        assertNull(result.getOutputAsString("missing"));
+        assertThrows(IllegalArgumentException.class, () -> result.getOutputAsString("f"));
+    }
+}
@@ -0,0 +1,515 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.endpoint.EndpointUnavailableException;
+import com.nvidia.triton.contrib.endpoint.FixedEndpoint;
+import com.nvidia.triton.contrib.endpoint.HealthConfig;
+import com.nvidia.triton.contrib.endpoint.MultiEndpoint;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InferenceServerClientTest {
+
+    private static final String OK_BODY = "{\"model_name\":\"m\",\"outputs\":"
+        + "[{\"name\":\"out\",\"datatype\":\"INT32\",\"shape\":[1,2],\"data\":[1,2]}]}";
+
+    private static final int BIG_OUTPUT_SIZE = 256 * 1024;
+
+    private HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile int failuresBeforeSuccess = 0;
+    private volatile int failureStatus = 500;
+    private volatile long delayMs = 0;
+    private volatile byte[] lastBody;
+    private volatile String lastHeaderLength;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v2/models/m/infer", this::handle);
+        this.server.createContext("/v2/models/binary/infer", this::handleBinary);
+        this.server.createContext("/v2/health/ready", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int n = this.requestCount.incrementAndGet();
+        this.lastBody = IOUtils.toByteArray(exchange.getRequestBody());
+        this.lastHeaderLength = exchange.getRequestHeaders().getFirst("Inference-Header-Content-Length");
+        try {
+            Thread.sleep(this.delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean fail = n <= this.failuresBeforeSuccess;
+        byte[] body = (fail ? "{\"error\":\"boom\"}" : OK_BODY).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(fail ? this.failureStatus : 200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Respond with a large binary FP32 output and a small binary INT32 output, chunked if asked by query.
+     */
+    private void handleBinary(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        float[] big = new float[BIG_OUTPUT_SIZE];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = i * 0.5F;
+        }
+        byte[] bigBytes = BinaryProtocol.toBytes(DataType.FP32, big);
+        byte[] smallBytes = BinaryProtocol.toBytes(DataType.INT32, new int[] {7, 8});
+        byte[] header = String.format("{\"model_name\":\"binary\",\"outputs\":["
+                + "{\"name\":\"big\",\"datatype\":\"FP32\",\"shape\":[%d],\"parameters\":{\"binary_data_size\":%d}},"
+                + "{\"name\":\"small\",\"datatype\":\"INT32\",\"shape\":[2],\"parameters\":{\"binary_data_size\":8}}]}",
+            big.length, bigBytes.length).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Inference-Header-Content-Length", String.valueOf(header.length));
+        String query = exchange.getRequestURI().getQuery();
+        boolean chunked = query != null && query.startsWith("chunked");
+        exchange.sendResponseHeaders(200, chunked ? 0 : header.length + bigBytes.length + smallBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(header);
+            os.write(bigBytes);
+            os.write(smallBytes);
+        }
+    }
+
+    private InferenceServerClient createClient(int networkTimeout) throws IOException {
+        return new InferenceServerClient("127.0.0.1:" + this.server.getAddress().getPort(), 1000, networkTimeout);
+    }
+
+    private static InferArguments createArguments() {
+        InferInput input = new InferInput("in", new long[] {1, 2}, DataType.INT32);
+        input.setData(new int[] {1, 2}, true);
+        return new InferArguments("m", input);
+    }
+
+    @Test
+    void testInferAsync() throws Exception {
+        try (InferenceServerClient client = createClient(5000)) {
+            CompletableFuture<InferResult> future = client.inferAsync(createArguments());
+            assertArrayEquals(new int[] {1, 2}, future.get().getOutputAsInt("out"));
+        }
+    }
+
+    @Test
+    void testLazyDecode() throws Exception {
+        try (InferenceServerClient client = createClient(5000)) {
+            client.setLazyDecode(true);
+            InferResult result = client.infer(createArguments());
+            assertArrayEquals(new int[] {1, 2}, result.getOutputAsInt("out"));
+            assertArrayEquals(new int[] {7, 8}, client.infer(new InferArguments("binary", createArguments().inputs))
+                .getOutputAsInt("small"));
+        }
+    }
+
+    @Test
+    void testRequestBody() throws Exception {
+        try (InferenceServerClient client = createClient(5000)) {
+            InferInput json = new InferInput("a", new long[] {1, 2}, DataType.INT32);
+            json.setData(new int[] {3, 4}, false);
+            InferInput bin1 = new InferInput("b", new long[] {1, 2}, DataType.INT32);
+            bin1.setData(new int[] {1, 2}, true);
+            InferInput bin2 = new InferInput("c", new long[] {1}, DataType.FP64);
+            bin2.setData(new double[] {1.5}, true);
+            client.infer(new InferArguments("m", json, bin1, bin2));
+
+            int headerLen = Integer.parseInt(this.lastHeaderLength);
+            assertEquals(headerLen + 8 + 8, this.lastBody.length);
+            String header = new String(this.lastBody, 0, headerLen, StandardCharsets.UTF_8);
+            assertTrue(header.contains("\"data\":[3,4]"));
+            assertArrayEquals(bin1.getBinaryData(), Arrays.copyOfRange(this.lastBody, headerLen, headerLen + 8));
+            assertArrayEquals(bin2.getBinaryData(), Arrays.copyOfRange(this.lastBody, headerLen + 8, headerLen + 16));
+        }
+    }
+
+    @Test
+    void testRequestBody_MappedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("embeddings");
+        float[] rows = new float[64 * 1024];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        Files.write(file, BinaryProtocol.toBytes(DataType.FP32, rows));
+        try (InferenceServerClient client = createClient(5000);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Second half of the file.
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, rows.length * 2L, rows.length * 2L);
+            InferInput input = new InferInput("e", new long[] {rows.length / 2}, DataType.FP32);
+            input.setData(region);
+            client.infer(new InferArguments("m", input));
+
+            int headerLen = Integer.parseInt(this.lastHeaderLength);
+            assertEquals(headerLen + rows.length * 2, this.lastBody.length);
+            float[] sent = (float[])BinaryProtocol.fromBytes(DataType.FP32,
+                ByteBuffer.wrap(this.lastBody, headerLen, rows.length * 2).slice(), rows.length / 2);
+            assertArrayEquals(Arrays.copyOfRange(rows, rows.length / 2, rows.length), sent);
+        }
+    }
+
+    @Test
+    void testAutoDowncast() throws Exception {
+        AtomicInteger metadataCount = new AtomicInteger();
+        this.server.createContext("/v2/models/m", exchange -> {
+            metadataCount.incrementAndGet();
+            byte[] body = ("{\"name\":\"m\",\"versions\":[\"1\"],\"platform\":\"onnxruntime_onnx\",\"inputs\":["
+                + "{\"name\":\"x\",\"datatype\":\"FP16\",\"shape\":[-1,3]},"
+                + "{\"name\":\"y\",\"datatype\":\"FP32\",\"shape\":[-1,1]}],"
+                + "\"outputs\":[{\"name\":\"out\",\"datatype\":\"INT32\",\"shape\":[-1,2]}]}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        try (InferenceServerClient client = createClient(5000)) {
+            assertEquals(DataType.FP16, client.getModelMetadata("m", null).getInputByName("x").getDatatype());
+            client.setAutoDowncast(true);
+            InferInput x = new InferInput("x", new long[] {1, 3}, DataType.FP32);
+            x.setData(new float[] {1.5F, -2, 65504}, true);
+            InferInput y = new InferInput("y", new long[] {1, 1}, DataType.FP32);
+            y.setData(new float[] {0.1F}, false);
+            for (int i = 0; i < 2; i++) {
+                client.infer(new InferArguments("m", x, y));
+                int headerLen = Integer.parseInt(this.lastHeaderLength);
+                String header = new String(this.lastBody, 0, headerLen, StandardCharsets.UTF_8);
+                assertTrue(header.contains("{\"name\":\"x\",\"shape\":[1,3],\"datatype\":\"FP16\",\"parameters\":"
+                    + "{\"binary_data_size\":6}}"));
+                assertTrue(header.contains("\"data\":[0.1]"));
+                assertEquals(headerLen + 6, this.lastBody.length);
+                assertArrayEquals(new float[] {1.5F, -2, 65504}, HalfFloat.decode(DataType.FP16,
+                    ByteBuffer.wrap(this.lastBody, headerLen, 6), 3));
+            }
+            // Fetched once, caller's input untouched.
+            assertEquals(2, metadataCount.get());
+            assertEquals(DataType.FP32, x.getDataType());
+            assertEquals(12, x.getBinaryBuffer().remaining());
+        }
+    }
+
+    @Test
+    void testAutoDowncastMetadataFailureCached() throws Exception {
+        AtomicInteger metadataCount = new AtomicInteger();
+        this.server.createContext("/v2/models/m", exchange -> {
+            metadataCount.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        try (InferenceServerClient client = createClient(5000)) {
+            client.setAutoDowncast(true);
+            InferInput x = new InferInput("x", new long[] {1, 3}, DataType.FP32);
+            x.setData(new float[] {1.5F, -2, 65504}, true);
+            for (int i = 0; i < 3; i++) {
+                client.infer(new InferArguments("m", x));
+                int headerLen = Integer.parseInt(this.lastHeaderLength);
+                assertEquals(headerLen + 12, this.lastBody.length);
+            }
+            // Not fetched again for every request.
+            assertEquals(1, metadataCount.get());
+            assertEquals(3, this.requestCount.get());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testBinaryResponse(boolean chunked) throws Exception {
+        try (InferenceServerClient client = createClient(5000)) {
+            InferArguments arg = createArguments();
+            InferArguments binaryArg = new InferArguments("binary", arg.inputs);
+            if (chunked) {
+                binaryArg.addQueryParam("chunked", "");
+            }
+            InferResult result = client.infer(binaryArg);
+            float[] big = result.getOutputAsFloat("big");
+            assertEquals(BIG_OUTPUT_SIZE, big.length);
+            assertEquals(1000 * 0.5F, big[1000]);
+            assertArrayEquals(new int[] {7, 8}, result.getOutputAsInt("small"));
+        }
+    }
+
+    @Test
+    void testBufferPool() throws Exception {
+        BufferPool pool = new BufferPool();
+        try (InferenceServerClient client = createClient(5000)) {
+            client.setBufferPool(pool);
+            InferInput input = new InferInput("in", new long[] {1, 2}, DataType.INT32, pool);
+            input.setData(new int[] {1, 2}, true);
+            PooledBuffer requestBuffer = input.getPooledBuffer();
+            InferArguments arg = new InferArguments("binary", input);
+            try (InferResult result = client.infer(arg)) {
+                assertEquals(1000 * 0.5F, result.getOutputAsFloat("big")[1000]);
+                assertArrayEquals(new int[] {7, 8}, result.getOutputAsInt("small"));
+            }
+            // Response array is back, and so is the request array once the exchange is over and the input is done.
+            input.release();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (requestBuffer.refCnt() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, requestBuffer.refCnt());
+            assertEquals(4096 + Integer.highestOneBit(BIG_OUTPUT_SIZE * 4 + 8) * 2, pool.getPooledBytes());
+
+            // Arrays are reused.
+            input.setData(new int[] {1, 2}, true);
+            assertSame(requestBuffer.array(), input.getPooledBuffer().array());
+            try (InferResult result = client.infer(arg)) {
+                assertArrayEquals(new int[] {7, 8}, result.getOutputAsInt("small"));
+            }
+        }
+    }
+
+    @Test
+    void testInferAsync_Retry() throws Exception {
+        this.failuresBeforeSuccess = 2;
+        try (InferenceServerClient client = createClient(5000)) {
+            InferResult result = client.inferAsync(createArguments()).get();
+            assertArrayEquals(new int[] {1, 2}, result.getOutputAsInt("out"));
+            assertEquals(3, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testInferAsync_RetryExhausted() throws Exception {
+        this.failuresBeforeSuccess = Integer.MAX_VALUE;
+        try (InferenceServerClient client = createClient(5000)) {
+            client.setRetryCnt(1);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.inferAsync(createArguments()).get());
+            assertTrue(e.getCause() instanceof InferenceException);
+            assertEquals(2, this.requestCount.get());
+            InferenceException syncErr = assertThrows(InferenceException.class, () -> client.infer(createArguments()));
+            assertEquals("boom", syncErr.getMessage());
+        }
+    }
+
+    @Test
+    void testInferAsync_ClientErrorNotRetried() throws Exception {
+        this.failuresBeforeSuccess = Integer.MAX_VALUE;
+        this.failureStatus = 400;
+        try (InferenceServerClient client = createClient(5000)) {
+            InferenceException e = assertThrows(InferenceException.class, () -> client.infer(createArguments()));
+            assertEquals(400, e.getStatusCode());
+            assertEquals(1, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testInferAsync_RetryBudget() throws Exception {
+        this.failuresBeforeSuccess = Integer.MAX_VALUE;
+        try (InferenceServerClient client = createClient(5000)) {
+            client.setRetryPolicy(new RetryPolicy().setBackoff(0, 0).setBudget(10, 2));
+            for (int i = 0; i < 11; i++) {
+                assertThrows(InferenceException.class, () -> client.infer(createArguments()));
+            }
+            // The first request is retried twice with the saved up tokens, then 10 more requests earn one retry.
+            assertEquals(11 + 2 + 1, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testInferAsync_Timeout() throws Exception {
+        this.delayMs = 500;
+        try (InferenceServerClient client = createClient(100)) {
+            client.setRetryCnt(1);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.inferAsync(createArguments()).get());
+            assertTrue(e.getCause() instanceof InferenceException);
+        }
+    }
+
+    @Test
+    void testSharedRuntime() throws Exception {
+        TransportRuntime runtime = TransportRuntime.create(new InferenceServerClient.HttpConfig());
+        FixedEndpoint endpoint = new FixedEndpoint("127.0.0.1:" + this.server.getAddress().getPort());
+        InferenceServerClient client1 = new InferenceServerClient(endpoint, runtime);
+        InferenceServerClient client2 = new InferenceServerClient(endpoint, runtime);
+        runtime.close();
+
+        List<CompletableFuture<InferResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add((i % 2 == 0 ? client1 : client2).inferAsync(createArguments()));
+        }
+        for (CompletableFuture<InferResult> future : futures) {
+            assertArrayEquals(new int[] {1, 2}, future.get().getOutputAsInt("out"));
+        }
+
+        // The runtime stays alive until its last client is closed.
+        client1.close();
+        // Closing a client again does not release the reference of the other one.
+        client1.close();
+        assertArrayEquals(new int[] {1, 2}, client2.infer(createArguments()).getOutputAsInt("out"));
+        client2.close();
+        assertThrows(IllegalStateException.class, () -> new InferenceServerClient(endpoint, runtime));
+    }
+
+    @Test
+    void testCircuitBreaker() throws Exception {
+        this.failuresBeforeSuccess = Integer.MAX_VALUE;
+        FixedEndpoint endpoint = new FixedEndpoint("127.0.0.1:" + this.server.getAddress().getPort());
+        HealthConfig healthConfig = new HealthConfig();
+        healthConfig.setFailureThreshold(2);
+        healthConfig.setBaseEjectionMs(60000);
+        healthConfig.setProbeIntervalMs(0);
+        endpoint.setHealthConfig(healthConfig);
+        try (InferenceServerClient client = new InferenceServerClient(endpoint,
+            new InferenceServerClient.HttpConfig())) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.inferAsync(createArguments()).get());
+            // Attempts after the breaker opened fail fast without reaching the server.
+            assertTrue(e.getCause().getCause() instanceof EndpointUnavailableException);
+            assertEquals(2, this.requestCount.get());
+            assertThrows(InferenceException.class, () -> client.infer(createArguments()));
+            assertEquals(2, this.requestCount.get());
+        }
+    }
+
+    @Test
+    void testHealthProbe() throws Exception {
+        String live = "127.0.0.1:" + this.server.getAddress().getPort();
+        HttpServer dead = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        dead.createContext("/v2/health/ready", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        dead.start();
+        try {
+            String notReady = "127.0.0.1:" + dead.getAddress().getPort();
+            MultiEndpoint endpoint = new MultiEndpoint(Arrays.asList(live, notReady),
+                MultiEndpoint.Policy.ROUND_ROBIN);
+            HealthConfig healthConfig = new HealthConfig();
+            healthConfig.setBaseEjectionMs(60000);
+            healthConfig.setProbeIntervalMs(20);
+            endpoint.setHealthConfig(healthConfig);
+            try (InferenceServerClient client = new InferenceServerClient(endpoint,
+                new InferenceServerClient.HttpConfig())) {
+                long deadline = System.currentTimeMillis() + 5000;
+                boolean ejected = false;
+                while (!ejected && System.currentTimeMillis() < deadline) {
+                    ejected = true;
+                    for (int i = 0; i < 4; i++) {
+                        ejected &= live.equals(endpoint.getEndpoint());
+                    }
+                    Thread.sleep(10);
+                }
+                assertTrue(ejected);
+                for (int i = 0; i < 4; i++) {
+                    assertArrayEquals(new int[] {1, 2}, client.infer(createArguments()).getOutputAsInt("out"));
+                }
+                assertEquals(4, this.requestCount.get());
+            }
+        } finally {
+            dead.stop(0);
+        }
+    }
+
+    @Test
+    void testHealthProbeNotPiledUp() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        HttpServer hung = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        hung.setExecutor(executor);
+        hung.createContext("/v2/health/ready", exchange -> {
+            probes.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        hung.start();
+        try {
+            FixedEndpoint endpoint = new FixedEndpoint("127.0.0.1:" + hung.getAddress().getPort());
+            HealthConfig healthConfig = new HealthConfig();
+            healthConfig.setProbeIntervalMs(10);
+            healthConfig.setProbeTimeoutMs(5000);
+            endpoint.setHealthConfig(healthConfig);
+            try (InferenceServerClient client = new InferenceServerClient(endpoint,
+                new InferenceServerClient.HttpConfig())) {
+                Thread.sleep(300);
+                // Rounds started while the first probe hangs skip the address.
+                assertEquals(1, probes.get());
+            }
+        } finally {
+            hung.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHedge() throws Exception {
+        HttpServer slow = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        slow.createContext("/v2/models/m/infer", exchange -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        slow.start();
+        try {
+            String slowAddr = "127.0.0.1:" + slow.getAddress().getPort();
+            String fastAddr = "127.0.0.1:" + this.server.getAddress().getPort();
+            MultiEndpoint endpoint = new MultiEndpoint(Arrays.asList(slowAddr, fastAddr),
+                MultiEndpoint.Policy.ROUND_ROBIN);
+            HedgePolicy hedgePolicy = HedgePolicy.fixedDelay(50, 100);
+            try (InferenceServerClient client = new InferenceServerClient(endpoint,
+                new InferenceServerClient.HttpConfig())) {
+                long start = System.nanoTime();
+                InferResult result = client.infer(createArguments().setHedgePolicy(hedgePolicy));
+                assertArrayEquals(new int[] {1, 2}, result.getOutputAsInt("out"));
+                assertTrue(System.nanoTime() - start < 2_000_000_000L);
+                assertEquals(1, this.requestCount.get());
+                // The slow request was cancelled when the hedge won.
+                assertEquals(0, endpoint.getInflight(slowAddr));
+            }
+        } finally {
+            slow.stop(0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.nvidia.triton.contrib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBuckets() {
+        for (long v = 0; v < 8; v++) {
+            assertEquals(v, LatencyHistogram.bucketOf(v));
+            assertEquals(v, LatencyHistogram.upperBoundOf((int)v));
+        }
+        assertEquals(8, LatencyHistogram.bucketOf(8));
+        assertEquals(8, LatencyHistogram.upperBoundOf(8));
+        assertEquals(LatencyHistogram.bucketOf(16), LatencyHistogram.bucketOf(17));
+        assertEquals(17, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(16)));
+        long[] values = {9, 100, 12345, 1_000_000, 987_654_321L, Long.MAX_VALUE};
+        for (long v : values) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upper >= v && upper - v <= v / 8, v + " in bucket up to " + upper);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < v);
+            if (upper < Long.MAX_VALUE) {
+                assertEquals(bucket + 1, LatencyHistogram.bucketOf(upper + 1));
+            }
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean(), 0);
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        histogram.record(-5);
+        assertEquals(1001, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getSum());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 9 / 8, String.valueOf(p50));
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, String.valueOf(p99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+}
@@ -0,0 +1,100 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PreparedInferenceTest {
+
+    private static final String OK_BODY = "{\"model_name\":\"m\",\"outputs\":"
+        + "[{\"name\":\"out\",\"datatype\":\"INT32\",\"shape\":[1,2],\"data\":[1,2]}]}";
+
+    private HttpServer server;
+    private final List<String> uris = new CopyOnWriteArrayList<>();
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v2/models/m", this::handle);
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.uris.add(exchange.getRequestURI().toString());
+        this.bodies.add(IOUtils.toByteArray(exchange.getRequestBody()));
+        byte[] body = OK_BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static InferInput intInput(int a, int b) {
+        InferInput input = new InferInput("in", new long[] {1, 2}, DataType.INT32);
+        input.setData(new int[] {a, b}, true);
+        return input;
+    }
+
+    private static InferInput bytesInput(String s) {
+        InferInput input = new InferInput("text", new long[] {1}, DataType.BYTES);
+        input.setData(new String[] {s}, true);
+        return input;
+    }
+
+    @Test
+    void testPrepared() throws Exception {
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000)) {
+            InferArguments template = new InferArguments("m", intInput(0, 0), bytesInput("abc"))
+                .setModelVersion("2").addQueryParam("q", "1");
+            PreparedInference prepared = client.prepare(template);
+
+            assertArrayEquals(new int[] {1, 2}, prepared.infer(intInput(3, 4), bytesInput("xyz"))
+                .getOutputAsInt("out"));
+            client.infer(new InferArguments("m", intInput(3, 4), bytesInput("xyz"))
+                .setModelVersion("2").addQueryParam("q", "1"));
+            // Same request as a regular one.
+            assertEquals(this.uris.get(1), this.uris.get(0));
+            assertArrayEquals(this.bodies.get(1), this.bodies.get(0));
+            assertEquals("/v2/models/m/versions/2/infer?q=1", this.uris.get(0));
+
+            // BYTES of another size does not fit the cached header, it is sent as a regular request.
+            prepared.inferAsync(intInput(5, 6), bytesInput("longer text")).get();
+            client.infer(new InferArguments("m", intInput(5, 6), bytesInput("longer text"))
+                .setModelVersion("2").addQueryParam("q", "1"));
+            assertArrayEquals(this.bodies.get(3), this.bodies.get(2));
+        }
+    }
+
+    @Test
+    void testPrepare_JsonInput() throws Exception {
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000)) {
+            InferInput input = new InferInput("in", new long[] {1, 2}, DataType.INT32);
+            input.setData(new int[] {1, 2}, false);
+            assertThrows(IllegalArgumentException.class, () -> client.prepare(new InferArguments("m", input)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import com.nvidia.triton.contrib.RetryPolicy.FailureType;
+import com.nvidia.triton.contrib.endpoint.EndpointUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void testClassify() {
+        assertEquals(FailureType.SERVER_ERROR, RetryPolicy.classify(new InferenceException(503, "unavailable")));
+        assertEquals(FailureType.CLIENT_ERROR, RetryPolicy.classify(new InferenceException(400, "bad input")));
+        assertEquals(FailureType.CONNECT, RetryPolicy.classify(new ConnectException("refused")));
+        assertEquals(FailureType.CONNECT, RetryPolicy.classify(new EndpointUnavailableException("a:1")));
+        assertEquals(FailureType.TIMEOUT, RetryPolicy.classify(new TimeoutException()));
+        assertEquals(FailureType.TIMEOUT, RetryPolicy.classify(new SocketTimeoutException()));
+        assertEquals(FailureType.TIMEOUT,
+            RetryPolicy.classify(new InferenceException(new SocketTimeoutException())));
+        assertEquals(FailureType.OTHER, RetryPolicy.classify(new IOException("Connection reset by peer")));
+        assertEquals(FailureType.OTHER, RetryPolicy.classify(new InferenceException("Malformed response")));
+
+        RetryPolicy policy = new RetryPolicy();
+        assertTrue(policy.isRetryable(FailureType.SERVER_ERROR));
+        assertFalse(policy.isRetryable(FailureType.CLIENT_ERROR));
+        policy.setRetryOn(FailureType.CONNECT);
+        assertFalse(policy.isRetryable(FailureType.SERVER_ERROR));
+    }
+
+    @Test
+    void testBackoff() {
+        RetryPolicy policy = new RetryPolicy().setBackoff(10, 50);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoffNanos(1) <= 10_000_000L);
+            assertTrue(policy.backoffNanos(2) <= 20_000_000L);
+            long capped = policy.backoffNanos(40);
+            assertTrue(capped >= 0 && capped <= 50_000_000L);
+        }
+        assertEquals(0, new RetryPolicy().setBackoff(0, 0).backoffNanos(3));
+    }
+
+    @Test
+    void testBudget() {
+        RetryPolicy policy = new RetryPolicy().setBudget(50, 1);
+        assertTrue(policy.tryAcquireRetry());
+        assertFalse(policy.tryAcquireRetry());
+        policy.onRequest();
+        assertFalse(policy.tryAcquireRetry());
+        policy.onRequest();
+        assertTrue(policy.tryAcquireRetry());
+    }
+}
@@ -60,4 +60,24 @@ class AbstractEndpointTest {
         Assertions.assertEquals("a", endpoint.getEndpoint());
         Assertions.assertEquals("b", endpoint.getEndpoint());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPeekEndpoint_DoesNotTakeTrial() throws Exception {
+        FixedEndpoint endpoint = new FixedEndpoint("a:1");
+        HealthConfig config = new HealthConfig();
+        config.setFailureThreshold(1);
+        config.setBaseEjectionMs(50);
+        endpoint.setHealthConfig(config);
+        endpoint.onRequestComplete("a:1", 0, false);
+        Assertions.assertThrows(EndpointUnavailableException.class, endpoint::peekEndpoint);
+        Thread.sleep(60);
+        // Requests not reporting their outcome may use the address but leave the trial to an inference.
+        Assertions.assertEquals("a:1", endpoint.peekEndpoint());
+        Assertions.assertEquals("a:1", endpoint.peekEndpoint());
+        Assertions.assertEquals("a:1", endpoint.getEndpoint());
+        Assertions.assertThrows(EndpointUnavailableException.class, endpoint::getEndpoint);
+        Assertions.assertThrows(EndpointUnavailableException.class, endpoint::peekEndpoint);
+        endpoint.onRequestComplete("a:1", 1000, true);
+        Assertions.assertEquals("a:1", endpoint.peekEndpoint());
+    }
+}
@@ -0,0 +1,174 @@
+package com.nvidia.triton.contrib.endpoint;
+
+import com.google.common.collect.Lists;
+import com.nvidia.triton.contrib.endpoint.EndpointHealth.State;
+import com.nvidia.triton.contrib.endpoint.MultiEndpoint.Policy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EndpointHealthTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static HealthConfig createConfig() {
+        HealthConfig config = new HealthConfig();
+        config.setFailureThreshold(3);
+        config.setBaseEjectionMs(100);
+        config.setMaxEjectionMs(300);
+        return config;
+    }
+
+    @Test
+    void testCircuitBreaker() {
+        HealthConfig config = createConfig();
+        EndpointHealth health = new EndpointHealth();
+        health.onFailure(0, 0, config);
+        health.onFailure(0, 0, config);
+        Assertions.assertEquals(State.CLOSED, health.getState());
+        health.onFailure(0, 0, config);
+        Assertions.assertEquals(State.OPEN, health.getState());
+        Assertions.assertFalse(health.isAvailable(99 * MS));
+        Assertions.assertFalse(health.tryAcquire(99 * MS));
+
+        // Backoff expired, only one trial request is let through.
+        Assertions.assertTrue(health.isAvailable(100 * MS));
+        Assertions.assertTrue(health.tryAcquire(100 * MS));
+        Assertions.assertEquals(State.HALF_OPEN, health.getState());
+        Assertions.assertFalse(health.tryAcquire(100 * MS));
+
+        // Failed trial doubles the backoff.
+        health.onFailure(100 * MS, 0, config);
+        Assertions.assertEquals(State.OPEN, health.getState());
+        Assertions.assertFalse(health.tryAcquire(299 * MS));
+        Assertions.assertTrue(health.tryAcquire(300 * MS));
+        health.onFailure(300 * MS, 0, config);
+        // Backoff is capped by maxEjectionMs.
+        Assertions.assertTrue(health.tryAcquire(600 * MS));
+
+        health.onSuccess(MS, 601 * MS);
+        Assertions.assertEquals(State.CLOSED, health.getState());
+        Assertions.assertTrue(health.tryAcquire(600 * MS));
+    }
+
+    @Test
+    void testOnlyTrialCloses() {
+        HealthConfig config = createConfig();
+        EndpointHealth health = new EndpointHealth();
+        health.eject(0, config);
+        // Requests sent before the ejection complete while OPEN, their latency is recorded and the state is kept.
+        health.onSuccess(50 * MS, 10 * MS);
+        Assertions.assertEquals(State.OPEN, health.getState());
+        Assertions.assertEquals(1, health.getLatencySamples());
+        Assertions.assertTrue(health.tryAcquire(100 * MS));
+        // A straggler completing while the trial is in flight neither closes the breaker nor fails the trial.
+        health.onSuccess(150 * MS, 110 * MS);
+        health.onFailure(110 * MS, 150 * MS, config);
+        Assertions.assertEquals(State.HALF_OPEN, health.getState());
+        Assertions.assertFalse(health.tryAcquire(110 * MS));
+        health.onSuccess(5 * MS, 110 * MS);
+        Assertions.assertEquals(State.CLOSED, health.getState());
+        Assertions.assertEquals(5 * MS, health.getEwmaLatencyNanos(), 1);
+        Assertions.assertEquals(1, health.getLatencySamples());
+
+        // Backoff keeps doubling while the trial fails, whatever stragglers report.
+        health.eject(200 * MS, config);
+        Assertions.assertTrue(health.tryAcquire(300 * MS));
+        health.onFailure(300 * MS, 0, config);
+        health.onSuccess(200 * MS, 310 * MS);
+        Assertions.assertEquals(State.OPEN, health.getState());
+        Assertions.assertFalse(health.tryAcquire(499 * MS));
+    }
+
+    @Test
+    void testCancelledTrial() {
+        HealthConfig config = createConfig();
+        EndpointHealth health = new EndpointHealth();
+        health.eject(0, config);
+        Assertions.assertTrue(health.tryAcquire(100 * MS));
+        Assertions.assertFalse(health.tryAcquire(100 * MS));
+        health.onCancelled();
+        Assertions.assertTrue(health.tryAcquire(100 * MS));
+    }
+
+    @Test
+    void testProbe() {
+        HealthConfig config = createConfig();
+        EndpointHealth health = new EndpointHealth();
+        health.onProbe(false, 0, config);
+        Assertions.assertEquals(State.OPEN, health.getState());
+        Assertions.assertFalse(health.isAvailable(MS));
+        // Ready again, ejection ends early.
+        health.onProbe(true, MS, config);
+        Assertions.assertTrue(health.tryAcquire(MS));
+    }
+
+    @Test
+    void testFailFast() throws Exception {
+        FixedEndpoint endpoint = new FixedEndpoint("a:1");
+        endpoint.setHealthConfig(createConfig());
+        Assertions.assertEquals(Lists.newArrayList("a:1"), endpoint.getAddresses());
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals("a:1", endpoint.getEndpoint());
+            endpoint.onRequestStart("a:1");
+            endpoint.onRequestComplete("a:1", MS, false);
+        }
+        Assertions.assertThrows(EndpointUnavailableException.class, endpoint::getEndpoint);
+
+        // Disabling health checking forgets all ejections.
+        endpoint.setHealthConfig(null);
+        Assertions.assertEquals("a:1", endpoint.getEndpoint());
+    }
+
+    @Test
+    void testClientErrorIsSuccess() throws Exception {
+        FixedEndpoint endpoint = new FixedEndpoint("a:1");
+        endpoint.setHealthConfig(createConfig());
+        for (int i = 0; i < 10; i++) {
+            endpoint.onRequestComplete("a:1", MS, i % 2 == 0);
+        }
+        Assertions.assertEquals("a:1", endpoint.getEndpoint());
+    }
+
+    @Test
+    void testLatencyOutlier() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1", "c:1"), Policy.ROUND_ROBIN);
+        HealthConfig config = createConfig();
+        config.setOutlierMinRequests(5);
+        config.setBaseEjectionMs(60000);
+        endpoint.setHealthConfig(config);
+        for (int i = 0; i < 5; i++) {
+            for (String addr : endpoint.getAddresses()) {
+                endpoint.onRequestStart(addr);
+                endpoint.onRequestComplete(addr, addr.equals("c:1") ? 100 * MS : MS, true);
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNotEquals("c:1", endpoint.getEndpoint());
+        }
+    }
+
+    @Test
+    void testLatencyOutlierWithRequestsInFlight() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1", "c:1"), Policy.ROUND_ROBIN);
+        HealthConfig config = createConfig();
+        config.setOutlierMinRequests(5);
+        config.setBaseEjectionMs(60000);
+        endpoint.setHealthConfig(config);
+        for (int i = 0; i < 10; i++) {
+            endpoint.onRequestStart("c:1");
+        }
+        for (int i = 0; i < 5; i++) {
+            for (String addr : endpoint.getAddresses()) {
+                endpoint.onRequestStart(addr);
+                endpoint.onRequestComplete(addr, addr.equals("c:1") ? 100 * MS : MS, true);
+            }
+        }
+        // Slow requests sent before the ejection succeed afterwards, they neither undo it nor eject again.
+        for (int i = 0; i < 10; i++) {
+            endpoint.onRequestComplete("c:1", 100 * MS, true);
+        }
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertNotEquals("c:1", endpoint.getEndpoint());
+        }
+    }
+}
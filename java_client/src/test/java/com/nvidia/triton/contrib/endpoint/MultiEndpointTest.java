@@ -0,0 +1,113 @@
+package com.nvidia.triton.contrib.endpoint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.nvidia.triton.contrib.endpoint.MultiEndpoint.Policy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MultiEndpointTest {
+
+    @Test
+    void testRoundRobin() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1", "c:1"), Policy.ROUND_ROBIN);
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals("a:1", endpoint.getEndpoint());
+            Assertions.assertEquals("b:1", endpoint.getEndpoint());
+            Assertions.assertEquals("c:1", endpoint.getEndpoint());
+        }
+    }
+
+    @Test
+    void testLeastOutstanding() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1"), Policy.LEAST_OUTSTANDING);
+        endpoint.onRequestStart("a:1");
+        endpoint.onRequestStart("a:1");
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("b:1", endpoint.getEndpoint());
+        }
+        Assertions.assertEquals(2, endpoint.getInflight("a:1"));
+
+        endpoint.onRequestComplete("a:1", 1000, true);
+        endpoint.onRequestComplete("a:1", 1000, true);
+        Assertions.assertEquals(0, endpoint.getInflight("a:1"));
+        endpoint.onRequestStart("b:1");
+        endpoint.onRequestComplete("b:1", 5000, true);
+        // Equal in-flight count, lower latency wins.
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("a:1", endpoint.getEndpoint());
+        }
+    }
+
+    @Test
+    void testPowerOfTwoChoices() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1"), Policy.POWER_OF_TWO_CHOICES);
+        endpoint.onRequestStart("a:1");
+        endpoint.onRequestComplete("a:1", 1_000_000, true);
+        endpoint.onRequestStart("b:1");
+        endpoint.onRequestComplete("b:1", 1_000, true);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("b:1", endpoint.getEndpoint());
+        }
+
+        MultiEndpoint three = new MultiEndpoint(Lists.newArrayList("a:1", "b:1", "c:1"),
+            Policy.POWER_OF_TWO_CHOICES);
+        for (int i = 0; i < 5; i++) {
+            three.onRequestStart("a:1");
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            counts.merge(three.getEndpoint(), 1, Integer::sum);
+        }
+        // The busiest replica is never the better of two distinct choices.
+        Assertions.assertNull(counts.get("a:1"));
+        Assertions.assertTrue(counts.get("b:1") > 0);
+        Assertions.assertTrue(counts.get("c:1") > 0);
+    }
+
+    @Test
+    void testEwmaLatency() {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1"), Policy.ROUND_ROBIN);
+        Assertions.assertEquals(0, endpoint.getEwmaLatencyNanos("a:1"));
+        endpoint.onRequestStart("a:1");
+        endpoint.onRequestComplete("a:1", 1000, true);
+        Assertions.assertEquals(1000, endpoint.getEwmaLatencyNanos("a:1"), 1e-6);
+        endpoint.onRequestStart("a:1");
+        endpoint.onRequestComplete("a:1", 2000, true);
+        Assertions.assertEquals(1200, endpoint.getEwmaLatencyNanos("a:1"), 1e-6);
+    }
+
+    @Test
+    void testFastFailuresRaiseLatency() throws Exception {
+        MultiEndpoint endpoint = new MultiEndpoint(Lists.newArrayList("a:1", "b:1"), Policy.LEAST_OUTSTANDING);
+        endpoint.onRequestStart("a:1");
+        endpoint.onRequestComplete("a:1", 1_000_000, true);
+        endpoint.onRequestStart("b:1");
+        endpoint.onRequestComplete("b:1", 1_000_000, true);
+        // b refuses connections right away, its failures count as slow samples.
+        endpoint.onRequestStart("b:1");
+        endpoint.onRequestComplete("b:1", 1_000, false);
+        Assertions.assertEquals(1_000_000 + 0.2 * (10_000_000 - 1_000_000), endpoint.getEwmaLatencyNanos("b:1"),
+            1e-6);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals("a:1", endpoint.getEndpoint());
+        }
+
+        MultiEndpoint fresh = new MultiEndpoint(Lists.newArrayList("c:1"), Policy.ROUND_ROBIN);
+        fresh.onRequestStart("c:1");
+        fresh.onRequestComplete("c:1", 1_000, false);
+        Assertions.assertEquals(10_000_000, fresh.getEwmaLatencyNanos("c:1"), 1e-6);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new MultiEndpoint(Lists.newArrayList(), Policy.ROUND_ROBIN));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new MultiEndpoint(Lists.newArrayList("a:1", "a:1"), Policy.ROUND_ROBIN));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new MultiEndpoint(Lists.newArrayList("http://a:1"), Policy.ROUND_ROBIN));
+    }
+}
@@ -0,0 +1,49 @@
+package com.nvidia.triton.contrib.mock;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyTest {
+
+    private static long[] sample(Latency latency, int n) {
+        long[] ret = new long[n];
+        for (int i = 0; i < n; i++) {
+            ret[i] = latency.nextNanos();
+        }
+        Arrays.sort(ret);
+        return ret;
+    }
+
+    @Test
+    void testDistributions() {
+        long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        assertEquals(0, Latency.none().nextNanos());
+        assertEquals(5 * ms, Latency.fixed(5).nextNanos());
+
+        long[] uniform = sample(Latency.uniform(2, 4), 1000);
+        assertTrue(uniform[0] >= 2 * ms && uniform[999] <= 4 * ms);
+
+        long[] logNormal = sample(Latency.logNormal(10, 0.5), 10000);
+        assertTrue(Math.abs(logNormal[5000] - 10 * ms) < ms, String.valueOf(logNormal[5000]));
+        // p99 is about 10ms * exp(2.33 * 0.5), 32ms.
+        assertTrue(logNormal[9900] > 25 * ms && logNormal[9900] < 40 * ms, String.valueOf(logNormal[9900]));
+
+        long[] mixed = sample(Latency.mix(Latency.fixed(1), 0.1, Latency.fixed(100)), 10000);
+        long outliers = Arrays.stream(mixed).filter(v -> v == 100 * ms).count();
+        assertTrue(outliers > 800 && outliers < 1200, String.valueOf(outliers));
+        assertEquals(10000 - outliers, Arrays.stream(mixed).filter(v -> v == ms).count());
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Latency.fixed(-1));
+        assertThrows(IllegalArgumentException.class, () -> Latency.uniform(3, 2));
+        assertThrows(IllegalArgumentException.class, () -> Latency.logNormal(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> Latency.mix(Latency.none(), 2, Latency.none()));
+    }
+}
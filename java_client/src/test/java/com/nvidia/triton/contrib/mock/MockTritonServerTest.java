@@ -0,0 +1,160 @@
+package com.nvidia.triton.contrib.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.nvidia.triton.contrib.InferInput;
+import com.nvidia.triton.contrib.InferRequestedOutput;
+import com.nvidia.triton.contrib.InferResult;
+import com.nvidia.triton.contrib.InferenceException;
+import com.nvidia.triton.contrib.InferenceServerClient;
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.nvidia.triton.contrib.pojo.ModelMetadata;
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MockTritonServerTest {
+
+    private MockTritonServer server;
+    private InferenceServerClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockTritonServer()
+            .addModel(MockModel.echo("echo"))
+            .addModel(MockModel.synthetic("roberta")
+                .addInput("input_ids", DataType.INT32, -1, 32)
+                .addOutput("logits", DataType.FP32, -1, 2)
+                .addOutput("labels", DataType.BYTES, -1)
+                .setMaxBatchSize(8));
+        this.client = new InferenceServerClient(this.server.getAddress(), 1000, 5000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.client.close();
+        this.server.close();
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection)new URL("http://" + this.server.getAddress() + path)
+            .openConnection();
+        try {
+            return conn.getResponseCode();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private String getBody(String path) throws IOException {
+        try (InputStream in = new URL("http://" + this.server.getAddress() + path).openStream()) {
+            return new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testHealth() throws IOException {
+        assertEquals(200, get("/v2/health/live"));
+        assertEquals(200, get("/v2/health/ready"));
+        assertEquals(200, get("/v2/models/roberta/ready"));
+        assertEquals(200, get("/v2/models/roberta/versions/1/ready"));
+        assertEquals(400, get("/v2/models/roberta/versions/2/ready"));
+        assertEquals(400, get("/v2/models/unknown/ready"));
+        this.server.setReady(false);
+        assertEquals(503, get("/v2/health/ready"));
+        assertEquals(400, get("/v2/models/roberta/ready"));
+        assertEquals(200, get("/v2/health/live"));
+    }
+
+    @Test
+    void testMetadataAndConfig() throws Exception {
+        ModelMetadata metadata = this.client.getModelMetadata("roberta", null);
+        assertEquals("roberta", metadata.getName());
+        assertEquals(Lists.newArrayList("1"), metadata.getVersions());
+        assertEquals(DataType.INT32, metadata.getInputByName("input_ids").getDatatype());
+        assertArrayEquals(new long[] {-1, 32}, metadata.getInputByName("input_ids").getShape());
+        assertEquals(2, metadata.getOutputs().size());
+
+        String config = getBody("/v2/models/roberta/config");
+        assertTrue(config.contains("\"max_batch_size\":8"), config);
+        assertTrue(config.contains("{\"name\":\"input_ids\",\"data_type\":\"TYPE_INT32\",\"dims\":[32]}"), config);
+        assertTrue(config.contains("{\"name\":\"labels\",\"data_type\":\"TYPE_STRING\",\"dims\":[]}"), config);
+    }
+
+    @Test
+    void testEcho() throws Exception {
+        InferInput ints = new InferInput("ints", new long[] {1, 3}, DataType.UINT32);
+        ints.setData(new int[] {1, -1, 3}, true);
+        InferInput floats = new InferInput("floats", new long[] {2}, DataType.FP32);
+        floats.setData(new float[] {0.5F, -2F}, false);
+        InferInput strings = new InferInput("strings", new long[] {2}, DataType.BYTES);
+        strings.setData(new String[] {"a", "\u4e2d"}, true);
+        InferInput halves = new InferInput("halves", new long[] {1}, DataType.FP16);
+        halves.setDataAsFp16(new float[] {1.5F});
+        // Formats of outputs differ from those of inputs.
+        InferArguments arg = new InferArguments("echo", Lists.newArrayList(ints, floats, strings, halves),
+            Lists.newArrayList(new InferRequestedOutput("ints", false), new InferRequestedOutput("floats", true),
+                new InferRequestedOutput("strings", false), new InferRequestedOutput("halves", true)));
+        try (InferResult result = this.client.infer(arg)) {
+            assertArrayEquals(new int[] {1, -1, 3}, result.getOutputAsInt("ints"));
+            assertArrayEquals(new float[] {0.5F, -2F}, result.getOutputAsFloat("floats"));
+            assertArrayEquals(new String[] {"a", "\u4e2d"}, result.getOutputAsString("strings"));
+            assertArrayEquals(new float[] {1.5F}, result.getOutputAsFloatFromFp16("halves"));
+        }
+        assertEquals(1, this.server.getInferCount());
+    }
+
+    @Test
+    void testSynthetic() throws Exception {
+        InferInput ids = new InferInput("input_ids", new long[] {4, 32}, DataType.INT32);
+        ids.setData(new int[4 * 32], true);
+        InferArguments arg = new InferArguments("roberta", Lists.newArrayList(ids),
+            Lists.newArrayList(new InferRequestedOutput("logits", true), new InferRequestedOutput("labels", false)));
+        try (InferResult result = this.client.infer(arg)) {
+            assertArrayEquals(new float[8], result.getOutputAsFloat("logits"));
+            assertArrayEquals(new String[] {"", "", "", ""}, result.getOutputAsString("labels"));
+            assertEquals(Lists.newArrayList("logits", "labels"), result.getOutputs());
+        }
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        InferInput input = new InferInput("x", new long[] {1}, DataType.INT32);
+        input.setData(new int[] {1}, true);
+        InferenceException e = assertThrows(InferenceException.class,
+            () -> this.client.infer(new InferArguments("unknown", input)));
+        assertEquals(400, e.getStatusCode());
+
+        this.server.setErrorRate(1, 503);
+        e = assertThrows(InferenceException.class, () -> this.client.infer(new InferArguments("echo", input)));
+        assertEquals(503, e.getStatusCode());
+        assertTrue(e.getMessage().contains("Injected failure"), e.getMessage());
+
+        this.server.setErrorRate(0, 500);
+        try (InferResult result = this.client.infer(new InferArguments("echo", input))) {
+            assertArrayEquals(new int[] {1}, result.getOutputAsInt("x"));
+        }
+    }
+
+    @Test
+    void testLatency() throws Exception {
+        this.server.addModel(MockModel.echo("slow").setLatency(Latency.fixed(50)));
+        this.server.setExtraLatency(Latency.fixed(50));
+        InferInput input = new InferInput("x", new long[] {1}, DataType.INT32);
+        input.setData(new int[] {1}, true);
+        long start = System.nanoTime();
+        this.client.infer(new InferArguments("slow", input)).close();
+        assertTrue(System.nanoTime() - start >= 100_000_000L);
+    }
+}
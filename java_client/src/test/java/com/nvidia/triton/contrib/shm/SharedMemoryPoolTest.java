@@ -0,0 +1,86 @@
+package com.nvidia.triton.contrib.shm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.nvidia.triton.contrib.InferenceServerClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedMemoryPoolTest {
+
+    private HttpServer server;
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/v2/systemsharedmemory", this::handle);
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(IOUtils.toByteArray(exchange.getRequestBody()), "UTF-8");
+        this.calls.add(exchange.getRequestURI().getPath() + (body.isEmpty() ? "" : " " + body));
+        exchange.sendResponseHeaders(200, -1);
+        try (OutputStream ignored = exchange.getResponseBody()) {
+            // Empty body.
+        }
+    }
+
+    @Test
+    void testAcquireRelease() throws Exception {
+        String prefix = "triton_java_test_" + System.nanoTime();
+        try (InferenceServerClient client = new InferenceServerClient(
+            "127.0.0.1:" + this.server.getAddress().getPort(), 1000, 5000)) {
+            SharedMemoryPool pool = new SharedMemoryPool(client, prefix);
+            SystemSharedMemoryRegion r1 = pool.acquire(100);
+            assertEquals(4096, r1.getByteSize());
+            assertTrue(Files.exists(Paths.get("/dev/shm", prefix + "_0")));
+            assertEquals(1, this.calls.size());
+            assertTrue(this.calls.get(0).startsWith("/v2/systemsharedmemory/region/" + prefix + "_0/register"));
+            assertTrue(this.calls.get(0).contains("\"key\":\"/" + prefix + "_0\""));
+            assertTrue(this.calls.get(0).contains("\"byte_size\":4096"));
+
+            SystemSharedMemoryRegion r2 = pool.acquire(5000);
+            assertNotSame(r1, r2);
+            assertEquals(8192, r2.getByteSize());
+
+            // Released regions are reused without registering again.
+            pool.release(r1);
+            // A second release would hand the region to two users.
+            assertThrows(IllegalStateException.class, () -> pool.release(r1));
+            assertSame(r1, pool.acquire(4000));
+            assertEquals(2, this.calls.size());
+
+            r1.write(8, new byte[] {1, 2, 3, 4});
+            assertEquals(0x04030201, r1.asByteBuffer(8, 4).getInt());
+
+            pool.close();
+            assertEquals(4, this.calls.size());
+            assertTrue(this.calls.get(2).endsWith("/unregister"));
+            assertFalse(Files.exists(Paths.get("/dev/shm", prefix + "_0")));
+        }
+    }
+}
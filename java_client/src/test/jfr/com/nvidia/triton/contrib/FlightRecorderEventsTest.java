@@ -0,0 +1,147 @@
+package com.nvidia.triton.contrib;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.nvidia.triton.contrib.InferenceServerClient.InferArguments;
+import com.nvidia.triton.contrib.mock.MockModel;
+import com.nvidia.triton.contrib.mock.MockTritonServer;
+import com.nvidia.triton.contrib.pojo.DataType;
+import com.google.common.collect.Lists;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecorderEventsTest {
+
+    private static final String PREFIX = "com.nvidia.triton.contrib.Inference";
+
+    private MockTritonServer server;
+    private InferenceServerClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockTritonServer().addModel(MockModel.echo("echo"));
+        this.client = new InferenceServerClient(this.server.getAddress(), 1000, 5000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        this.client.close();
+        this.server.close();
+    }
+
+    private static InferArguments echoArguments(boolean binary) {
+        InferInput input = new InferInput("x", new long[] {1, 4}, DataType.INT32);
+        input.setData(new int[] {1, 2, 3, 4}, binary);
+        InferRequestedOutput output = new InferRequestedOutput("x", binary);
+        return new InferArguments("echo", Lists.newArrayList(input), Lists.newArrayList(output));
+    }
+
+    private static List<RecordedEvent> record(ThrowingRunnable body) throws Exception {
+        Path file = Files.createTempFile("inference", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] {"Request", "Encode", "PoolLease", "Decode", "Retry"}) {
+                recording.enable(PREFIX + name).withoutThreshold();
+            }
+            recording.start();
+            body.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().startsWith(PREFIX))
+                .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(PREFIX + name))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void testSucceeded() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            this.client.infer(echoArguments(true).setRequestId("req-1")).close();
+            this.client.setLazyDecode(true);
+            try (InferResult result = this.client.infer(echoArguments(false))) {
+                assertArrayEquals(new int[] {1, 2, 3, 4}, result.getOutputAsInt("x"));
+            }
+        });
+        List<RecordedEvent> requests = ofType(events, "Request");
+        assertEquals(2, requests.size());
+        RecordedEvent first = requests.get(0);
+        assertEquals("echo", first.getString("model"));
+        assertEquals("req-1", first.getString("requestId"));
+        assertEquals(this.server.getAddress(), first.getString("endpoint"));
+        assertEquals(1, first.getInt("attempts"));
+        assertTrue(first.getLong("requestBytes") > 16);
+        assertTrue(first.getLong("responseBytes") > 16);
+        assertNull(first.getString("error"));
+        long callId = first.getLong("callId");
+        assertTrue(callId > 0);
+
+        for (String name : new String[] {"Encode", "PoolLease"}) {
+            List<RecordedEvent> phase = ofType(events, name);
+            assertEquals(2, phase.size(), name);
+            assertEquals(callId, phase.get(0).getLong("callId"), name);
+            assertEquals("req-1", phase.get(0).getString("requestId"), name);
+        }
+        assertEquals(first.getLong("requestBytes"), ofType(events, "Encode").get(0).getLong("bytes"));
+
+        // Response of each call, then the lazily decoded output of the second one.
+        List<RecordedEvent> decodes = ofType(events, "Decode");
+        assertEquals(3, decodes.size());
+        assertEquals(callId, decodes.get(0).getLong("callId"));
+        assertNull(decodes.get(0).getString("output"));
+        RecordedEvent lazy = decodes.stream().filter(e -> e.getString("output") != null).findFirst().get();
+        assertEquals("x", lazy.getString("output"));
+        assertEquals("echo", lazy.getString("model"));
+        assertTrue(lazy.getLong("bytes") > 0);
+    }
+
+    @Test
+    void testRetried() throws Exception {
+        this.client.setRetryCnt(2);
+        this.client.setRetryPolicy(new RetryPolicy().setBackoff(1, 1).setBudget(100, 10));
+        this.server.setErrorRate(1, 503);
+        List<RecordedEvent> events = record(() ->
+            assertThrows(InferenceException.class, () -> this.client.infer(echoArguments(true))));
+        List<RecordedEvent> requests = ofType(events, "Request");
+        assertEquals(1, requests.size());
+        assertEquals(3, requests.get(0).getInt("attempts"));
+        assertTrue(requests.get(0).getString("error").contains("Injected failure"), requests.get(0).getString("error"));
+        List<RecordedEvent> retries = ofType(events, "Retry");
+        assertEquals(2, retries.size());
+        assertEquals(requests.get(0).getLong("callId"), retries.get(1).getLong("callId"));
+        assertEquals(this.server.getAddress(), retries.get(1).getString("endpoint"));
+        assertEquals(3, ofType(events, "PoolLease").size());
+        assertEquals(0, ofType(events, "Decode").size());
+    }
+
+    @Test
+    void testDisabled() throws Exception {
+        assertNull(FlightRecorderEvents.beginRequest("echo", ""));
+        assertNull(FlightRecorderEvents.beginDecode());
+        assertEquals(0, FlightRecorderEvents.callIdOf(null));
+        this.client.infer(echoArguments(true)).close();
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}